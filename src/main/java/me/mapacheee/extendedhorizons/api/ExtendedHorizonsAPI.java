@@ -1,6 +1,7 @@
 package me.mapacheee.extendedhorizons.api;
 
 import me.mapacheee.extendedhorizons.api.event.FakeChunkBatchLoadEvent.ChunkCoordinate;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
@@ -61,6 +62,17 @@ public interface ExtendedHorizonsAPI {
      */
     void refreshFakeChunks(@NotNull Player player);
 
+    /**
+     * Announces an upcoming teleport so the horizon around the destination
+     * starts loading before the player arrives.
+     * Call this before a delayed teleport (warmup countdowns, queued warps);
+     * plain teleports are prefetched automatically.
+     *
+     * @param player      The player about to teleport
+     * @param destination The teleport destination
+     */
+    void prefetchDestination(@NotNull Player player, @NotNull Location destination);
+
     /**
      * Gets the total size of the packet cache.
      *
@@ -6,7 +6,9 @@ import me.mapacheee.extendedhorizons.api.event.FakeChunkBatchLoadEvent.ChunkCoor
 import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
 import me.mapacheee.extendedhorizons.viewdistance.service.FakeChunkService;
 import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.TeleportPrefetchService;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
@@ -24,12 +26,15 @@ public class ExtendedHorizonsAPIImpl implements ExtendedHorizonsAPI {
 
     private final FakeChunkService fakeChunkService;
     private final ViewDistanceService viewDistanceService;
+    private final TeleportPrefetchService teleportPrefetchService;
 
     @Inject
     public ExtendedHorizonsAPIImpl(FakeChunkService fakeChunkService,
-            ViewDistanceService viewDistanceService) {
+            ViewDistanceService viewDistanceService,
+            TeleportPrefetchService teleportPrefetchService) {
         this.fakeChunkService = fakeChunkService;
         this.viewDistanceService = viewDistanceService;
+        this.teleportPrefetchService = teleportPrefetchService;
     }
 
     @Override
@@ -77,6 +82,11 @@ public class ExtendedHorizonsAPIImpl implements ExtendedHorizonsAPI {
                 5L);
     }
 
+    @Override
+    public void prefetchDestination(@NotNull Player player, @NotNull Location destination) {
+        teleportPrefetchService.prefetch(player, destination);
+    }
+
     @Override
     public int getCacheSize() {
         return fakeChunkService.getCacheSize();
@@ -0,0 +1,100 @@
+package me.mapacheee.extendedhorizons.api.event;
+
+import me.mapacheee.extendedhorizons.api.event.FakeChunkBatchLoadEvent.ChunkCoordinate;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Called once when a group of fake chunks is unloaded from a player.
+ * This event is not cancellable - it is purely informational.
+ */
+public class FakeChunkBatchUnloadEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Player player;
+    private final List<ChunkCoordinate> chunks;
+    private final World world;
+    private final FakeChunkUnloadEvent.UnloadReason reason;
+
+    /**
+     * Creates a new FakeChunkBatchUnloadEvent.
+     *
+     * @param player The player from whom the chunks are being unloaded
+     * @param chunks The list of chunk coordinates being unloaded
+     * @param world  The world containing the chunks
+     * @param reason The reason for unloading
+     */
+    public FakeChunkBatchUnloadEvent(@NotNull Player player, @NotNull List<ChunkCoordinate> chunks,
+            @NotNull World world, @NotNull FakeChunkUnloadEvent.UnloadReason reason) {
+        this.player = player;
+        this.chunks = List.copyOf(chunks); // immutable copy
+        this.world = world;
+        this.reason = reason;
+    }
+
+    /**
+     * Gets the player from whom the chunks are being unloaded.
+     *
+     * @return The player
+     */
+    @NotNull
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets an immutable list of the unloaded chunk coordinates.
+     *
+     * @return List of chunk coordinates
+     */
+    @NotNull
+    public List<ChunkCoordinate> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Gets the total number of chunks unloaded.
+     *
+     * @return Number of chunks
+     */
+    public int getTotalChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Gets the world containing the chunks.
+     *
+     * @return The world
+     */
+    @NotNull
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the reason why the chunks are being unloaded.
+     *
+     * @return The unload reason
+     */
+    @NotNull
+    public FakeChunkUnloadEvent.UnloadReason getReason() {
+        return reason;
+    }
+
+    @NotNull
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    @NotNull
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -131,6 +131,18 @@ public class FakeChunkLoadEvent extends Event implements Cancellable {
         /**
          * Chunk was generated because it didn't exist (slowest).
          */
-        GENERATED
+        GENERATED,
+
+        /**
+         * Chunk didn't exist and was approximated from the world generator
+         * without being generated or saved.
+         */
+        APPROXIMATED,
+
+        /**
+         * Chunk didn't exist and a skyline impostor was built from sampled
+         * terrain heights. It is replaced once the player comes closer.
+         */
+        SKYLINE
     }
 }
@@ -24,6 +24,7 @@ public class PacketChunkCacheService {
 
     private final Map<Long, Entry> cache;
     private final ConfigService configService;
+    private final SectionStore sectionStore;
     private ScheduledTask cleanupTask;
     private final long ttlMillis;
 
@@ -43,8 +44,9 @@ public class PacketChunkCacheService {
     }
 
     @Inject
-    public PacketChunkCacheService(ConfigService configService) {
+    public PacketChunkCacheService(ConfigService configService, SectionStore sectionStore) {
         this.configService = configService;
+        this.sectionStore = sectionStore;
 
         int maxEntries = configService.get().performance().fakeChunks().maxCachedPackets();
         if (maxEntries <= 0)
@@ -120,8 +122,24 @@ public class PacketChunkCacheService {
     }
 
     public void put(int x, int z, Column column) {
+        // Stored right away so a get that follows sees it; a late dedup pass cannot replace newer data
         long key = ChunkUtils.packChunkKey(x, z);
-        cache.put(key, new Entry(column));
+        Entry entry = new Entry(column);
+        cache.put(key, entry);
+
+        if (!configService.get().performance().fakeChunks().deduplicateSections()) {
+            return;
+        }
+
+        // Hashing sections is too slow for the netty thread that intercepted the packet.
+        // Interning swaps sections for identical shared ones in place, and is skipped once
+        // the entry was replaced or removed
+        Bukkit.getAsyncScheduler().runNow(me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin.getInstance(),
+                (task) -> {
+                    if (cache.get(key) == entry) {
+                        sectionStore.internColumn(column);
+                    }
+                });
     }
 
     public int size() {
@@ -15,13 +15,19 @@ import com.thewinterframework.service.annotation.lifecycle.OnEnable;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
 import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
 import org.bukkit.entity.Player;
 
 import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerChunkState;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerStateManager;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 /*
  *   Intercepts packets and manages fake chunk system
  *   - Caches chunk packets for reuse as fake chunks
@@ -35,16 +41,20 @@ public class PacketInterceptionService {
     private final Provider<ViewDistanceService> viewDistanceServiceProvider;
     private final PacketChunkCacheService chunkCache;
     private final NMSPacketAccess nmsPacketAccess;
+    private final PlayerStateManager playerStateManager;
+    private final AtomicLong handoffs = new AtomicLong(0);
     private static final boolean DEBUG = false;
 
     @Inject
     public PacketInterceptionService(
             Provider<ViewDistanceService> viewDistanceServiceProvider,
             PacketChunkCacheService chunkCache,
-            NMSPacketAccess nmsPacketAccess) {
+            NMSPacketAccess nmsPacketAccess,
+            PlayerStateManager playerStateManager) {
         this.viewDistanceServiceProvider = viewDistanceServiceProvider;
         this.chunkCache = chunkCache;
         this.nmsPacketAccess = nmsPacketAccess;
+        this.playerStateManager = playerStateManager;
     }
 
     @OnEnable
@@ -58,16 +68,40 @@ public class PacketInterceptionService {
                             if (player == null)
                                 return;
 
+                            WrapperPlayServerUnloadChunk wrapper = new WrapperPlayServerUnloadChunk(event);
+                            int chunkX = wrapper.getChunkX();
+                            int chunkZ = wrapper.getChunkZ();
+
+                            // Unloads sent by the plugin itself go through, and their mark is
+                            // consumed whatever happened to the player's view or state since
+                            if (playerStateManager.consumeReleased(player.getUniqueId(),
+                                    ChunkUtils.packChunkKey(chunkX, chunkZ)))
+                                return;
+
+                            // Paper manages unloads itself in native mode
+                            if (viewDistanceServiceProvider.get().isNativeEngine())
+                                return;
+
                             var view = viewDistanceServiceProvider.get().getPlayerView(player.getUniqueId());
                             if (view == null)
                                 return;
 
-                            WrapperPlayServerUnloadChunk wrapper = new WrapperPlayServerUnloadChunk(event);
-                            int chunkX = wrapper.getChunkX();
-                            int chunkZ = wrapper.getChunkZ();
+                            // The center is cached from the region thread; the entity is only
+                            // read here before the player's first chunk change
+                            PlayerChunkState state = playerStateManager.get(player.getUniqueId()).orElse(null);
+                            if (state == null)
+                                return;
 
-                            int playerChunkX = player.getLocation().getBlockX() >> 4;
-                            int playerChunkZ = player.getLocation().getBlockZ() >> 4;
+                            long center = state.getCenterChunk();
+                            int playerChunkX;
+                            int playerChunkZ;
+                            if (center != Long.MIN_VALUE) {
+                                playerChunkX = ChunkUtils.unpackX(center);
+                                playerChunkZ = ChunkUtils.unpackZ(center);
+                            } else {
+                                playerChunkX = player.getLocation().getBlockX() >> 4;
+                                playerChunkZ = player.getLocation().getBlockZ() >> 4;
+                            }
                             int dx = Math.abs(chunkX - playerChunkX);
                             int dz = Math.abs(chunkZ - playerChunkZ);
                             int chebyshev = Math.max(dx, dz);
@@ -75,6 +109,13 @@ public class PacketInterceptionService {
                             int margin = 1;
                             if (chebyshev <= view.getTargetDistance() + margin) {
                                 event.setCancelled(true);
+                                // The client keeps the real chunk, so it now counts as a sent fake chunk
+                                long key = ChunkUtils.packChunkKey(chunkX, chunkZ);
+                                if (state.getFakeChunks().add(key)) {
+                                    handoffs.incrementAndGet();
+                                }
+                                // Its real light is already on the client
+                                state.dropLightPackets(List.of(key));
                             }
                         } else if (event.getPacketType() == PacketType.Play.Server.UPDATE_VIEW_DISTANCE) {
                             Player player = event.getPlayer();
@@ -84,6 +125,9 @@ public class PacketInterceptionService {
                             if (player.getTicksLived() < 100)
                                 return;
 
+                            if (viewDistanceServiceProvider.get().isNativeEngine())
+                                return;
+
                             var view = viewDistanceServiceProvider.get().getPlayerView(player.getUniqueId());
                             if (view == null)
                                 return;
@@ -125,6 +169,14 @@ public class PacketInterceptionService {
         }
     }
 
+    /**
+     * Gets how many real chunks were kept on the client as fake chunks
+     * instead of being unloaded and resent.
+     */
+    public long getHandoffCount() {
+        return handoffs.get();
+    }
+
     /**
      * Sends a cached chunk (Column) to the player using PacketEvents.
      * This method abstracts the PacketEvents usage from FakeChunkService.
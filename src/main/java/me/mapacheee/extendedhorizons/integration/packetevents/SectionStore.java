@@ -0,0 +1,223 @@
+package me.mapacheee.extendedhorizons.integration.packetevents;
+
+import com.github.retrooper.packetevents.protocol.world.chunk.BaseChunk;
+import com.github.retrooper.packetevents.protocol.world.chunk.Column;
+import com.github.retrooper.packetevents.protocol.world.chunk.LightData;
+import com.github.retrooper.packetevents.protocol.world.chunk.impl.v_1_18.Chunk_v1_18;
+import com.github.retrooper.packetevents.protocol.world.chunk.palette.DataPalette;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *   Content-addressed store for the sections and light arrays of cached columns
+ *   Identical sections (ocean, sky, solid stone) and identical light arrays are
+ *   replaced by one shared instance, so the packet cache holds each distinct
+ *   section once. Shared instances are weakly held and disappear with the last
+ *   column that uses them. Cached columns are never mutated, only re-sent.
+ *   Hashing and comparing run outside the lock, which only guards the maps,
+ *   so columns of different players are interned in parallel.
+ */
+@Service
+public class SectionStore {
+
+    private static final int LIGHT_ARRAY_BYTES = 2048;
+
+    private final Map<Long, WeakReference<Chunk_v1_18>> sections = new HashMap<>();
+    private final Map<Long, WeakReference<byte[]>> lightArrays = new HashMap<>();
+    private final Map<Reference<?>, Long> sectionKeys = new HashMap<>();
+    private final Map<Reference<?>, Long> lightKeys = new HashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private final AtomicLong sectionsSeen = new AtomicLong(0);
+    private final AtomicLong sectionsShared = new AtomicLong(0);
+    private final AtomicLong lightArraysSeen = new AtomicLong(0);
+    private final AtomicLong lightArraysShared = new AtomicLong(0);
+
+    @OnDisable
+    public synchronized void clear() {
+        sections.clear();
+        lightArrays.clear();
+        sectionKeys.clear();
+        lightKeys.clear();
+    }
+
+    /**
+     * Replaces the sections and light arrays of a column with shared
+     * instances of identical content, in place.
+     */
+    public void internColumn(Column column) {
+        synchronized (this) {
+            drainCollected();
+        }
+
+        BaseChunk[] chunks = column.getChunks();
+        if (chunks != null) {
+            for (int i = 0; i < chunks.length; i++) {
+                if (chunks[i] instanceof Chunk_v1_18 section) {
+                    chunks[i] = internSection(section);
+                }
+            }
+        }
+
+        LightData lightData = column.getLightData();
+        if (lightData != null) {
+            internLightArrays(lightData.getSkyLightArray());
+            internLightArrays(lightData.getBlockLightArray());
+        }
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        drainCollected();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("sections_seen", sectionsSeen.get());
+        stats.put("sections_shared", sectionsShared.get());
+        stats.put("distinct_sections", (long) sections.size());
+        stats.put("light_arrays_seen", lightArraysSeen.get());
+        stats.put("light_arrays_shared", lightArraysShared.get());
+        stats.put("distinct_light_arrays", (long) lightArrays.size());
+        stats.put("light_kb_saved", lightArraysShared.get() * LIGHT_ARRAY_BYTES / 1024);
+        return stats;
+    }
+
+    private Chunk_v1_18 internSection(Chunk_v1_18 section) {
+        sectionsSeen.incrementAndGet();
+        long hash = hashSection(section);
+
+        Chunk_v1_18 shared;
+        synchronized (this) {
+            WeakReference<Chunk_v1_18> reference = sections.get(hash);
+            shared = reference != null ? reference.get() : null;
+            if (shared == null) {
+                WeakReference<Chunk_v1_18> created = new WeakReference<>(section, collected);
+                sections.put(hash, created);
+                sectionKeys.put(created, hash);
+                return section;
+            }
+        }
+
+        if (shared != section && sameSection(shared, section)) {
+            sectionsShared.incrementAndGet();
+            return shared;
+        }
+        // Hash collision: keep the section as it is
+        return section;
+    }
+
+    private void internLightArrays(byte[][] arrays) {
+        if (arrays == null) {
+            return;
+        }
+
+        for (int i = 0; i < arrays.length; i++) {
+            byte[] array = arrays[i];
+            if (array == null) {
+                continue;
+            }
+            lightArraysSeen.incrementAndGet();
+            long hash = hashBytes(array);
+
+            byte[] shared;
+            synchronized (this) {
+                WeakReference<byte[]> reference = lightArrays.get(hash);
+                shared = reference != null ? reference.get() : null;
+                if (shared == null) {
+                    WeakReference<byte[]> created = new WeakReference<>(array, collected);
+                    lightArrays.put(hash, created);
+                    lightKeys.put(created, hash);
+                    continue;
+                }
+            }
+
+            if (shared != array && Arrays.equals(shared, array)) {
+                arrays[i] = shared;
+                lightArraysShared.incrementAndGet();
+            }
+        }
+    }
+
+    private static long hashSection(Chunk_v1_18 section) {
+        long hash = 1125899906842597L;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    hash = 31 * hash + section.getBlockId(x, y, z);
+                }
+            }
+        }
+
+        DataPalette biomes = section.getBiomeData();
+        if (biomes != null) {
+            for (int y = 0; y < 4; y++) {
+                for (int z = 0; z < 4; z++) {
+                    for (int x = 0; x < 4; x++) {
+                        hash = 31 * hash + biomes.get(x, y, z);
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static boolean sameSection(Chunk_v1_18 a, Chunk_v1_18 b) {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (a.getBlockId(x, y, z) != b.getBlockId(x, y, z)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        DataPalette biomesA = a.getBiomeData();
+        DataPalette biomesB = b.getBiomeData();
+        if (biomesA == null || biomesB == null) {
+            return biomesA == biomesB;
+        }
+        for (int y = 0; y < 4; y++) {
+            for (int z = 0; z < 4; z++) {
+                for (int x = 0; x < 4; x++) {
+                    if (biomesA.get(x, y, z) != biomesB.get(x, y, z)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long hashBytes(byte[] bytes) {
+        long hash = 1125899906842597L;
+        for (byte value : bytes) {
+            hash = 31 * hash + value;
+        }
+        return hash;
+    }
+
+    /**
+     * Forgets shared instances no cached column references anymore.
+     */
+    private void drainCollected() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            Long sectionHash = sectionKeys.remove(reference);
+            if (sectionHash != null && sections.get(sectionHash) == reference) {
+                sections.remove(sectionHash);
+            }
+
+            Long lightHash = lightKeys.remove(reference);
+            if (lightHash != null && lightArrays.get(lightHash) == reference) {
+                lightArrays.remove(lightHash);
+            }
+        }
+    }
+}
@@ -20,13 +20,22 @@ public record MainConfig(
                 BandwidthSaverConfig bandwidthSaver) {
 
         @ConfigSerializable
-        public record ViewDistanceConfig(int maxDistance, int defaultDistance) {
+        public record ViewDistanceConfig(int maxDistance, int defaultDistance, String engine) {
         }
 
         @ConfigSerializable
         public record WorldConfig(
                         boolean enabled,
-                        int maxDistance) {
+                        int maxDistance,
+                        @Setting("vertical-culling") VerticalCullingConfig verticalCulling) {
+        }
+
+        @ConfigSerializable
+        public record VerticalCullingConfig(
+                        boolean enabled,
+                        @Setting("from-tier") String fromTier,
+                        @Setting("sections-below-surface") int sectionsBelowSurface,
+                        @Setting("sections-above-surface") int sectionsAboveSurface) {
         }
 
         @ConfigSerializable
@@ -39,7 +48,12 @@ public record MainConfig(
                         @Setting("max-async-load-queue") int maxAsyncLoadQueue,
                         @Setting("max-generations-per-tick") int maxGenerationsPerTick,
                         @Setting("fake-chunks") FakeChunksConfig fakeChunks,
-                        @Setting("occlusion-culling") OcclusionCullingConfig occlusionCulling) {
+                        @Setting("occlusion-culling") OcclusionCullingConfig occlusionCulling,
+                        @Setting("load-priority") LoadPriorityConfig loadPriority,
+                        @Setting("chunk-residency") ChunkResidencyConfig chunkResidency,
+                        @Setting("view-clustering") ViewClusteringConfig viewClustering,
+                        @Setting("teleport-prefetch") TeleportPrefetchConfig teleportPrefetch,
+                        HotspotsConfig hotspots) {
                 @ConfigSerializable
                 public record FakeChunksConfig(
                                 boolean enabled,
@@ -48,8 +62,18 @@ public record MainConfig(
                                 @Setting("cache-cleanup-interval") int cacheCleanupInterval,
                                 @Setting("enable-memory-cache") boolean enableMemoryCache,
                                 @Setting("max-memory-cache-size") int maxMemoryCacheSize,
+                                @Setting("memory-cache-references") String memoryCacheReferences,
                                 @Setting("packet-cache-ttl-seconds") int packetCacheTtlSeconds,
-                                @Setting("anti-xray") AntiXrayConfig antiXray) {
+                                @Setting("compact-palettes") boolean compactPalettes,
+                                @Setting("deduplicate-sections") boolean deduplicateSections,
+                                @Setting("unload-margin") int unloadMargin,
+                                @Setting("anti-xray") AntiXrayConfig antiXray,
+                                LodConfig lod,
+                                @Setting("vertical-culling") VerticalCullingConfig verticalCulling,
+                                RefinementConfig refinement,
+                                LightConfig light,
+                                TemplatesConfig templates,
+                                @Setting("approximate-generation") ApproximateGenerationConfig approximateGeneration) {
 
                         @ConfigSerializable
                         public record AntiXrayConfig(
@@ -58,14 +82,97 @@ public record MainConfig(
                                         @Setting("add-fake-ores") boolean addFakeOres,
                                         @Setting("fake-ore-density") double fakeOreDensity) {
                         }
+
+                        @ConfigSerializable
+                        public record LodConfig(
+                                        boolean enabled,
+                                        @Setting("reduced-from-distance") int reducedFromDistance,
+                                        @Setting("minimal-from-distance") int minimalFromDistance,
+                                        @Setting("surface-band") int surfaceBand,
+                                        @Setting("uniform-threshold") double uniformThreshold,
+                                        @Setting("encoded-cache-size") int encodedCacheSize,
+                                        @Setting("strip-block-entity-data") boolean stripBlockEntityData) {
+                        }
+
+                        @ConfigSerializable
+                        public record RefinementConfig(
+                                        boolean enabled,
+                                        @Setting("coarse-uniform-threshold") double coarseUniformThreshold,
+                                        @Setting("chunks-per-cycle") int chunksPerCycle,
+                                        @Setting("max-pending-packets") int maxPendingPackets) {
+                        }
+
+                        @ConfigSerializable
+                        public record ApproximateGenerationConfig(
+                                        boolean enabled,
+                                        @Setting("from-tier") String fromTier,
+                                        @Setting("skyline-from-distance") int skylineFromDistance,
+                                        @Setting("skyline-samples") int skylineSamples) {
+                        }
+
+                        @ConfigSerializable
+                        public record TemplatesConfig(
+                                        boolean enabled,
+                                        @Setting("max-templates") int maxTemplates,
+                                        @Setting("max-chunks") int maxChunks) {
+                        }
+
+                        @ConfigSerializable
+                        public record LightConfig(
+                                        String mode) {
+                        }
                 }
 
                 @ConfigSerializable
                 public record OcclusionCullingConfig(
                                 boolean enabled,
                                 @Setting("sky-light-threshold") int skyLightThreshold,
+                                @Setting("sky-light-hysteresis") int skyLightHysteresis,
                                 @Setting("max-y-level") int maxYLevel,
-                                @Setting("min-y-level") int minYLevel) {
+                                @Setting("min-y-level") int minYLevel,
+                                TerrainOcclusionConfig terrain) {
+
+                        @ConfigSerializable
+                        public record TerrainOcclusionConfig(
+                                        boolean enabled,
+                                        @Setting("margin-blocks") int marginBlocks,
+                                        @Setting("position-bucket-size") int positionBucketSize,
+                                        @Setting("max-tracked-chunks") int maxTrackedChunks) {
+                        }
+                }
+
+                @ConfigSerializable
+                public record LoadPriorityConfig(
+                                boolean enabled,
+                                @Setting("near-horizon-band") int nearHorizonBand,
+                                @Setting("max-in-flight-loads") int maxInFlightLoads,
+                                @Setting("real-view-radius") int realViewRadius) {
+                }
+
+                @ConfigSerializable
+                public record ChunkResidencyConfig(
+                                @Setting("release-after-encode") boolean releaseAfterEncode) {
+                }
+
+                @ConfigSerializable
+                public record ViewClusteringConfig(
+                                boolean enabled,
+                                @Setting("cluster-radius") int clusterRadius) {
+                }
+
+                @ConfigSerializable
+                public record TeleportPrefetchConfig(
+                                boolean enabled,
+                                @Setting("max-chunks") int maxChunks) {
+                }
+
+                @ConfigSerializable
+                public record HotspotsConfig(
+                                boolean enabled,
+                                @Setting("half-life-hours") double halfLifeHours,
+                                @Setting("warm-cells") int warmCells,
+                                @Setting("warm-interval-minutes") int warmIntervalMinutes,
+                                @Setting("generate-missing") boolean generateMissing) {
                 }
         }
 
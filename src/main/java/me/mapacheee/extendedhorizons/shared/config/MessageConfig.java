@@ -20,7 +20,8 @@ public record MessageConfig(
         Integrations integrations,
         Startup startup,
         Messages messages,
-        Additional additional) {
+        Additional additional,
+        Pipeline pipeline) {
     @ConfigSerializable
     public record General(String noPermission, String playerNotFound, String playerOnly, String configReloaded,
             String configError, String pluginInfo, String unknownCommand) {
@@ -71,4 +72,8 @@ public record MessageConfig(
     @ConfigSerializable
     public record Additional(String noViewData, String distanceSetOther, String minDistanceError) {
     }
+
+    @ConfigSerializable
+    public record Pipeline(String header, String section, String entry, String footer) {
+    }
 }
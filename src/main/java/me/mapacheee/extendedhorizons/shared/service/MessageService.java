@@ -7,6 +7,7 @@ import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.command.CommandSender;
 
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /*
@@ -136,6 +137,23 @@ public class MessageService {
         }
     }
 
+    public void sendPipelineStats(CommandSender sender, Map<String, Map<String, Long>> sections) {
+        MessageConfig.Pipeline pipeline = configService.messages().pipeline();
+        if (pipeline == null)
+            return;
+
+        sendRaw(sender, pipeline.header());
+        for (Map.Entry<String, Map<String, Long>> section : sections.entrySet()) {
+            sendRaw(sender, pipeline.section().replace("{section}", section.getKey()));
+            for (Map.Entry<String, Long> entry : section.getValue().entrySet()) {
+                sendRaw(sender, pipeline.entry()
+                        .replace("{key}", entry.getKey())
+                        .replace("{value}", String.valueOf(entry.getValue())));
+            }
+        }
+        sendRaw(sender, pipeline.footer());
+    }
+
     public void sendWorldNotFound(CommandSender sender, String world) {
         sendPrefixed(sender, configService.messages().world().notFound().replace("{world}", world));
     }
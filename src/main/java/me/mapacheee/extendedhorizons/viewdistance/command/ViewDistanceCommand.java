@@ -5,11 +5,32 @@ import com.thewinterframework.command.CommandComponent;
 import com.thewinterframework.service.ReloadServiceManager;
 import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
 import me.mapacheee.extendedhorizons.integration.packetevents.PacketChunkCacheService;
+import me.mapacheee.extendedhorizons.integration.packetevents.SectionStore;
 
 import me.mapacheee.extendedhorizons.shared.service.ConfigService;
 import me.mapacheee.extendedhorizons.shared.service.MessageService;
 import me.mapacheee.extendedhorizons.viewdistance.service.FakeChunkService;
+import me.mapacheee.extendedhorizons.viewdistance.service.OcclusionCullingService;
+import me.mapacheee.extendedhorizons.viewdistance.service.snapshot.ApproximateChunkService;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.MovementSampler;
 import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkMemoryCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkTemplateCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.EncodedChunkCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.EncodingBenchmarkService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LevelOfDetailService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LightDeliveryService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.PaletteCompactionService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.AntiXrayService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.ProgressiveRefinementService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.VerticalCullingService;
+import me.mapacheee.extendedhorizons.viewdistance.service.engine.NativeSendDistanceEngine;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkLoadScheduler;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkResidencyManager;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ClusteredViewPlanner;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.HotspotService;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.TeleportPrefetchService;
+import me.mapacheee.extendedhorizons.viewdistance.service.snapshot.ChunkSnapshotService;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.command.CommandSender;
@@ -20,6 +41,9 @@ import org.incendo.cloud.annotations.Command;
 import org.incendo.cloud.annotations.Permission;
 import org.incendo.cloud.paper.util.sender.Source;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /*
  *   Command entrypoint for user/admin operations
 */
@@ -32,6 +56,27 @@ public class ViewDistanceCommand {
     private final ReloadServiceManager reloadServiceManager;
     private final PacketChunkCacheService cacheService;
     private final FakeChunkService fakeChunkService;
+    private final ChunkLoadScheduler chunkLoadScheduler;
+    private final ChunkResidencyManager chunkResidencyManager;
+    private final NativeSendDistanceEngine nativeEngine;
+    private final ChunkSnapshotService chunkSnapshotService;
+    private final ChunkMemoryCache chunkMemoryCache;
+    private final EncodedChunkCache encodedChunkCache;
+    private final LevelOfDetailService levelOfDetailService;
+    private final VerticalCullingService verticalCullingService;
+    private final ProgressiveRefinementService progressiveRefinementService;
+    private final LightDeliveryService lightDeliveryService;
+    private final EncodingBenchmarkService encodingBenchmarkService;
+    private final PaletteCompactionService paletteCompactionService;
+    private final SectionStore sectionStore;
+    private final ChunkTemplateCache chunkTemplateCache;
+    private final AntiXrayService antiXrayService;
+    private final OcclusionCullingService occlusionCullingService;
+    private final ApproximateChunkService approximateChunkService;
+    private final MovementSampler movementSampler;
+    private final ClusteredViewPlanner clusteredViewPlanner;
+    private final TeleportPrefetchService teleportPrefetchService;
+    private final HotspotService hotspotService;
 
     @Inject
     public ViewDistanceCommand(
@@ -40,13 +85,55 @@ public class ViewDistanceCommand {
             ConfigService configService,
             ReloadServiceManager reloadServiceManager,
             PacketChunkCacheService cacheService,
-            FakeChunkService fakeChunkService) {
+            FakeChunkService fakeChunkService,
+            ChunkLoadScheduler chunkLoadScheduler,
+            ChunkResidencyManager chunkResidencyManager,
+            NativeSendDistanceEngine nativeEngine,
+            ChunkSnapshotService chunkSnapshotService,
+            ChunkMemoryCache chunkMemoryCache,
+            EncodedChunkCache encodedChunkCache,
+            LevelOfDetailService levelOfDetailService,
+            VerticalCullingService verticalCullingService,
+            ProgressiveRefinementService progressiveRefinementService,
+            LightDeliveryService lightDeliveryService,
+            EncodingBenchmarkService encodingBenchmarkService,
+            PaletteCompactionService paletteCompactionService,
+            SectionStore sectionStore,
+            ChunkTemplateCache chunkTemplateCache,
+            AntiXrayService antiXrayService,
+            OcclusionCullingService occlusionCullingService,
+            ApproximateChunkService approximateChunkService,
+            MovementSampler movementSampler,
+            ClusteredViewPlanner clusteredViewPlanner,
+            TeleportPrefetchService teleportPrefetchService,
+            HotspotService hotspotService) {
         this.viewDistanceService = viewDistanceService;
         this.messageService = messageService;
         this.configService = configService;
         this.reloadServiceManager = reloadServiceManager;
         this.cacheService = cacheService;
         this.fakeChunkService = fakeChunkService;
+        this.chunkLoadScheduler = chunkLoadScheduler;
+        this.chunkResidencyManager = chunkResidencyManager;
+        this.nativeEngine = nativeEngine;
+        this.chunkSnapshotService = chunkSnapshotService;
+        this.chunkMemoryCache = chunkMemoryCache;
+        this.encodedChunkCache = encodedChunkCache;
+        this.levelOfDetailService = levelOfDetailService;
+        this.verticalCullingService = verticalCullingService;
+        this.progressiveRefinementService = progressiveRefinementService;
+        this.lightDeliveryService = lightDeliveryService;
+        this.encodingBenchmarkService = encodingBenchmarkService;
+        this.paletteCompactionService = paletteCompactionService;
+        this.sectionStore = sectionStore;
+        this.chunkTemplateCache = chunkTemplateCache;
+        this.antiXrayService = antiXrayService;
+        this.occlusionCullingService = occlusionCullingService;
+        this.approximateChunkService = approximateChunkService;
+        this.movementSampler = movementSampler;
+        this.clusteredViewPlanner = clusteredViewPlanner;
+        this.teleportPrefetchService = teleportPrefetchService;
+        this.hotspotService = hotspotService;
     }
 
     @Command("eh|extendedhorizons|horizons|viewdistance|vd help")
@@ -195,6 +282,64 @@ public class ViewDistanceCommand {
                 cachedFakePackets, fakeMemoryMB, fakeChunkService.getCacheHitRate(), cacheEntries);
     }
 
+    @Command("eh|extendedhorizons|horizons|viewdistance|vd pipeline")
+    @Permission("extendedhorizons.admin")
+    public void pipeline(Source source) {
+        Map<String, Map<String, Long>> sections = new LinkedHashMap<>();
+        if (viewDistanceService.isNativeEngine()) {
+            sections.put("paper-native", nativeEngine.getStats());
+        }
+        Map<String, Long> movement = new LinkedHashMap<>(movementSampler.getStats());
+        movement.putAll(viewDistanceService.getPlanStats());
+        sections.put("movement", movement);
+        sections.put("planning", clusteredViewPlanner.getStats());
+        sections.put("prefetch", teleportPrefetchService.getStats());
+        sections.put("hotspots", hotspotService.getStats());
+        sections.put("loader", chunkLoadScheduler.getStats());
+        sections.put("residency", chunkResidencyManager.getStats());
+        sections.put("fake-chunks", fakeChunkService.getStats());
+        sections.put("snapshots", chunkSnapshotService.getStats());
+        sections.put("approximate", approximateChunkService.getStats());
+        sections.put("memory-cache", chunkMemoryCache.getStats());
+        sections.put("lod", levelOfDetailService.getStats());
+        sections.put("terrain-occlusion", occlusionCullingService.getStats());
+        sections.put("vertical-culling", verticalCullingService.getStats());
+        sections.put("refinement", progressiveRefinementService.getStats());
+        sections.put("light", lightDeliveryService.getStats());
+        sections.put("anti-xray", antiXrayService.getStats());
+        sections.put("palettes", paletteCompactionService.getStats());
+        sections.put("encoded-cache", encodedChunkCache.getStats());
+        sections.put("templates", chunkTemplateCache.getStats());
+        sections.put("packet-cache", cacheService.getStats());
+        sections.put("section-store", sectionStore.getStats());
+        messageService.sendPipelineStats(source.source(), sections);
+    }
+
+    @Command("eh|extendedhorizons|horizons|viewdistance|vd benchmark <radius>")
+    @Permission("extendedhorizons.admin")
+    public void benchmark(Source source, @Argument("radius") int radius) {
+        CommandSender sender = source.source();
+        if (!(sender instanceof Player player)) {
+            messageService.sendPlayerOnly(sender);
+            return;
+        }
+        encodingBenchmarkService.run(player, radius)
+                .thenAccept(stats -> messageService.sendPipelineStats(sender, Map.of("encoding-benchmark", stats)));
+    }
+
+    @Command("eh|extendedhorizons|horizons|viewdistance|vd hotspots")
+    @Permission("extendedhorizons.admin")
+    public void hotspots(Source source) {
+        Map<String, Map<String, Long>> sections = new LinkedHashMap<>();
+        sections.put("hotspots", hotspotService.getStats());
+        for (HotspotService.Hotspot hotspot : hotspotService.getWarmSet()) {
+            // Listed by world, keyed by the block coordinates of the area center
+            sections.computeIfAbsent("warm-set " + hotspot.world(), world -> new LinkedHashMap<>())
+                    .put(hotspot.centerBlockX() + ", " + hotspot.centerBlockZ(), Math.round(hotspot.heat()));
+        }
+        messageService.sendPipelineStats(source.source(), sections);
+    }
+
     @Command("eh|extendedhorizons|horizons|viewdistance|vd worldinfo <world>")
     @Permission("extendedhorizons.admin")
     public void worldInfo(Source source, @Argument("world") String worldName) {
@@ -4,6 +4,7 @@ import org.bukkit.Chunk;
 import org.bukkit.entity.Player;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * Represents the view-related state of a connected player.
@@ -14,6 +15,7 @@ public class PlayerView {
 
     private final UUID uuid;
     private int targetDistance;
+    private final AtomicLong planVersion = new AtomicLong();
 
     public PlayerView(Player player, int initialDistance) {
         this.uuid = player.getUniqueId();
@@ -32,6 +34,22 @@ public class PlayerView {
         this.targetDistance = targetDistance;
     }
 
+    /**
+     * Starts a new view plan, superseding any plan still being computed.
+     *
+     * @return The version of the new plan
+     */
+    public long nextPlan() {
+        return planVersion.incrementAndGet();
+    }
+
+    /**
+     * Checks whether no newer plan was started since the given one.
+     */
+    public boolean isCurrentPlan(long version) {
+        return planVersion.get() == version;
+    }
+
     public static long getChunkKey(Chunk chunk) {
         return getChunkKey(chunk.getX(), chunk.getZ());
     }
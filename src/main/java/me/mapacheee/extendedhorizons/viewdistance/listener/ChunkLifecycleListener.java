@@ -0,0 +1,86 @@
+package me.mapacheee.extendedhorizons.viewdistance.listener;
+
+import com.google.inject.Inject;
+import com.thewinterframework.paper.listener.ListenerComponent;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkMemoryCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.OcclusionCullingService;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkTemplateCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.EncodedChunkCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.TerrainHeightGrid;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/*
+ * Listens for server chunk loads and chunk and world unloads.
+ * Keeps plugin caches from holding chunks the server already let go of,
+ * and keeps the terrain height grid up to date.
+ */
+@ListenerComponent
+public class ChunkLifecycleListener implements Listener {
+
+    private final ChunkMemoryCache chunkMemoryCache;
+    private final ChunkTemplateCache chunkTemplateCache;
+    private final EncodedChunkCache encodedChunkCache;
+    private final TerrainHeightGrid terrainHeightGrid;
+    private final OcclusionCullingService occlusionCullingService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    @Inject
+    public ChunkLifecycleListener(ChunkMemoryCache chunkMemoryCache, ChunkTemplateCache chunkTemplateCache,
+            EncodedChunkCache encodedChunkCache, TerrainHeightGrid terrainHeightGrid, OcclusionCullingService occlusionCullingService,
+            NMSChunkAccess nmsChunkAccess) {
+        this.chunkMemoryCache = chunkMemoryCache;
+        this.chunkTemplateCache = chunkTemplateCache;
+        this.encodedChunkCache = encodedChunkCache;
+        this.terrainHeightGrid = terrainHeightGrid;
+        this.occlusionCullingService = occlusionCullingService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        recordHeight(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        chunkMemoryCache.invalidate(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+        // Unsaved changes mean the chunk may no longer match its template or its encoded packets;
+        // Paper reports every unload as saving, so the chunk itself is asked
+        if (event.isSaveChunk() && isUnsaved(event.getChunk())) {
+            chunkTemplateCache.invalidate(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+            encodedChunkCache.invalidate(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+            recordHeight(event.getChunk());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        chunkMemoryCache.invalidateWorld(event.getWorld());
+        chunkTemplateCache.invalidateWorld(event.getWorld());
+        terrainHeightGrid.invalidateWorld(event.getWorld());
+    }
+
+    private boolean isUnsaved(Chunk chunk) {
+        Object nmsChunk = nmsChunkAccess.getNMSChunk(chunk);
+        return nmsChunk == null || nmsChunkAccess.isUnsaved(nmsChunk);
+    }
+
+    private void recordHeight(Chunk chunk) {
+        if (!occlusionCullingService.isTerrainEnabled()) {
+            return;
+        }
+
+        Object nmsChunk = nmsChunkAccess.getNMSChunk(chunk);
+        if (nmsChunk != null) {
+            terrainHeightGrid.record(chunk.getWorld(), chunk.getX(), chunk.getZ(),
+                    nmsChunkAccess.getSurfaceHeight(nmsChunk), nmsChunkAccess.getLowSurfaceHeight(nmsChunk));
+        }
+    }
+}
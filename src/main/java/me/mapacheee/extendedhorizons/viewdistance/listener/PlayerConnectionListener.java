@@ -3,6 +3,7 @@ package me.mapacheee.extendedhorizons.viewdistance.listener;
 import com.google.inject.Inject;
 import com.thewinterframework.paper.listener.ListenerComponent;
 import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.TeleportPrefetchService;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
@@ -17,10 +18,13 @@ import org.bukkit.event.player.PlayerQuitEvent;
 public class PlayerConnectionListener implements Listener {
 
     private final ViewDistanceService viewDistanceService;
+    private final TeleportPrefetchService teleportPrefetchService;
 
     @Inject
-    public PlayerConnectionListener(ViewDistanceService viewDistanceService) {
+    public PlayerConnectionListener(ViewDistanceService viewDistanceService,
+            TeleportPrefetchService teleportPrefetchService) {
         this.viewDistanceService = viewDistanceService;
+        this.teleportPrefetchService = teleportPrefetchService;
     }
 
     @EventHandler
@@ -31,6 +35,7 @@ public class PlayerConnectionListener implements Listener {
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
         viewDistanceService.handlePlayerQuit(event.getPlayer());
+        teleportPrefetchService.forget(event.getPlayer().getUniqueId());
     }
 }
 
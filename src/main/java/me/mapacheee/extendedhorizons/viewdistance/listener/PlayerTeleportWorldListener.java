@@ -3,14 +3,20 @@ package me.mapacheee.extendedhorizons.viewdistance.listener;
 import com.google.inject.Inject;
 import com.thewinterframework.paper.listener.ListenerComponent;
 import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
+import me.mapacheee.extendedhorizons.viewdistance.service.ChunkService;
 import me.mapacheee.extendedhorizons.viewdistance.service.FakeChunkService;
 import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
 import me.mapacheee.extendedhorizons.api.event.FakeChunkUnloadEvent;
 import me.mapacheee.extendedhorizons.viewdistance.service.PacketService;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.HotspotService;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.TeleportPrefetchService;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.MovementSampler;
 import me.mapacheee.extendedhorizons.shared.service.ConfigService;
 
 /*
@@ -19,42 +25,78 @@ import me.mapacheee.extendedhorizons.shared.service.ConfigService;
 @ListenerComponent
 public class PlayerTeleportWorldListener implements Listener {
 
+    private static final long MIN_DELAY_TICKS = 5L;
+
     private final ViewDistanceService viewDistanceService;
     private final FakeChunkService fakeChunkService;
+    private final ChunkService chunkService;
     private final ConfigService configService;
+    private final MovementSampler movementSampler;
+    private final TeleportPrefetchService teleportPrefetchService;
+    private final HotspotService hotspotService;
 
     @Inject
     public PlayerTeleportWorldListener(ViewDistanceService viewDistanceService,
             FakeChunkService fakeChunkService,
-            ConfigService configService) {
+            ChunkService chunkService,
+            ConfigService configService,
+            MovementSampler movementSampler,
+            TeleportPrefetchService teleportPrefetchService,
+            HotspotService hotspotService) {
         this.viewDistanceService = viewDistanceService;
         this.fakeChunkService = fakeChunkService;
+        this.chunkService = chunkService;
         this.configService = configService;
+        this.movementSampler = movementSampler;
+        this.teleportPrefetchService = teleportPrefetchService;
+        this.hotspotService = hotspotService;
     }
 
-    @EventHandler
+    /**
+     * Starts loading the destination once no other plugin can cancel or
+     * redirect the teleport any more.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleportPrefetch(PlayerTeleportEvent event) {
+        if (event.getTo().getWorld() != null) {
+            chunkService.requestRealView(event.getTo().getWorld(), event.getTo().getBlockX() >> 4,
+                    event.getTo().getBlockZ() >> 4);
+            hotspotService.recordVisit(event.getTo().getWorld(), event.getTo().getBlockX() >> 4,
+                    event.getTo().getBlockZ() >> 4);
+        }
+        teleportPrefetchService.prefetch(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(ignoreCancelled = true)
     public void onTeleport(PlayerTeleportEvent event) {
         boolean isSameWorld = event.getFrom().getWorld().equals(event.getTo().getWorld());
         fakeChunkService.cleanupPlayer(event.getPlayer(), isSameWorld);
+        movementSampler.rebase(event.getPlayer().getUniqueId());
 
         event.getPlayer().getScheduler().run(
                 ExtendedHorizonsPlugin.getPlugin(
                         ExtendedHorizonsPlugin.class),
                 (task) -> {
                     if (event.getPlayer().isOnline()) {
+                        // A prefetched destination is already loading; skip the warmup so the
+                        // horizon is queued right away instead of after a cold start
+                        boolean prefetched = teleportPrefetchService.isPrefetchedArrival(event.getPlayer());
                         event.getPlayer().getScheduler().runDelayed(
                                 ExtendedHorizonsPlugin.getPlugin(
                                         ExtendedHorizonsPlugin.class),
                                 (innerTask) -> {
                                     if (event.getPlayer().isOnline()) {
+                                        if (prefetched) {
+                                            skipWarmup(event.getPlayer());
+                                        }
                                         viewDistanceService.updatePlayerView(event.getPlayer());
                                         var view = viewDistanceService.getPlayerView(event.getPlayer().getUniqueId());
-                                        if (view != null) {
+                                        if (view != null && !prefetched) {
                                             fakeChunkService.onPlayerJoin(event.getPlayer());
                                         }
                                     }
                                 },
-                                null, getDelayTicks());
+                                null, prefetched ? MIN_DELAY_TICKS : getDelayTicks());
                     }
                 },
                 null);
@@ -64,6 +106,7 @@ public class PlayerTeleportWorldListener implements Listener {
     public void onWorldChange(PlayerChangedWorldEvent event) {
         fakeChunkService.cleanupPlayer(event.getPlayer(), false,
                 FakeChunkUnloadEvent.UnloadReason.WORLD_CHANGE);
+        movementSampler.rebase(event.getPlayer().getUniqueId());
 
         ExtendedHorizonsPlugin.getService(
                 PacketService.class)
@@ -74,25 +117,41 @@ public class PlayerTeleportWorldListener implements Listener {
                         ExtendedHorizonsPlugin.class),
                 (task) -> {
                     if (event.getPlayer().isOnline()) {
+                        boolean prefetched = teleportPrefetchService.isPrefetchedArrival(event.getPlayer());
                         event.getPlayer().getScheduler().runDelayed(
                                 ExtendedHorizonsPlugin.getPlugin(
                                         ExtendedHorizonsPlugin.class),
                                 (innerTask) -> {
                                     if (event.getPlayer().isOnline()) {
+                                        if (prefetched) {
+                                            skipWarmup(event.getPlayer());
+                                        }
                                         viewDistanceService.updatePlayerView(event.getPlayer());
-                                        fakeChunkService.onPlayerJoin(event.getPlayer());
+                                        if (!prefetched) {
+                                            fakeChunkService.onPlayerJoin(event.getPlayer());
+                                        }
                                     }
                                 },
-                                null, getDelayTicks());
+                                null, prefetched ? MIN_DELAY_TICKS : getDelayTicks());
                     }
                 },
                 null);
     }
 
+    /**
+     * Takes the player's fresh chunk state out of warmup so the prefetched
+     * horizon is queued and sent right away.
+     */
+    private void skipWarmup(Player player) {
+        if (fakeChunkService.onPrefetchedArrival(player)) {
+            teleportPrefetchService.recordArrival(player);
+        }
+    }
+
     private long getDelayTicks() {
         long delayMs = configService.get().performance().teleportWarmupDelay();
         if (delayMs <= 0)
-            return 5L;
-        return Math.max(5L, delayMs / 50);
+            return MIN_DELAY_TICKS;
+        return Math.max(MIN_DELAY_TICKS, delayMs / 50);
     }
 }
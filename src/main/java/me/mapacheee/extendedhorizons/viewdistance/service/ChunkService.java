@@ -14,6 +14,8 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkLoadPriority;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkLoadScheduler;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -28,11 +30,13 @@ public class ChunkService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChunkService.class);
     private final ConfigService configService;
+    private final ChunkLoadScheduler chunkLoadScheduler;
     private final Plugin plugin;
 
     @Inject
-    public ChunkService(ConfigService configService) {
+    public ChunkService(ConfigService configService, ChunkLoadScheduler chunkLoadScheduler) {
         this.configService = configService;
+        this.chunkLoadScheduler = chunkLoadScheduler;
         this.plugin = JavaPlugin.getPlugin(ExtendedHorizonsPlugin.class);
     }
 
@@ -66,7 +70,8 @@ public class ChunkService {
                     int x = ChunkUtils.unpackX(key);
                     int z = ChunkUtils.unpackZ(key);
 
-                    CompletableFuture<Chunk> chunkFuture = world.getChunkAtAsync(x, z)
+                    CompletableFuture<Chunk> chunkFuture = chunkLoadScheduler
+                            .load(world, x, z, true, ChunkLoadPriority.REAL_VIEW)
                             .exceptionally(ex -> {
                                 logger.warn("[EH] Failed to load chunk {},{}: {}", x, z, ex.getMessage());
                                 return null;
@@ -99,14 +104,50 @@ public class ChunkService {
         return allLoads.thenApply(v -> chunks);
     }
 
+    /**
+     * Loads the chunks around a position with real-view priority so a joining or
+     * teleporting player never waits behind horizon loads.
+     */
+    public void requestRealView(World world, int centerChunkX, int centerChunkZ) {
+        var config = configService.get().performance().loadPriority();
+        if (config == null || !config.enabled() || config.realViewRadius() < 0) {
+            return;
+        }
+
+        int radius = config.realViewRadius();
+        for (int x = centerChunkX - radius; x <= centerChunkX + radius; x++) {
+            for (int z = centerChunkZ - radius; z <= centerChunkZ + radius; z++) {
+                if (world.isChunkLoaded(x, z)) {
+                    continue;
+                }
+
+                int chunkX = x;
+                int chunkZ = z;
+                chunkLoadScheduler.load(world, chunkX, chunkZ, true, ChunkLoadPriority.REAL_VIEW)
+                        .exceptionally(ex -> {
+                            logger.warn("[EH] Failed to load real-view chunk {},{}: {}", chunkX, chunkZ,
+                                    ex.getMessage());
+                            return null;
+                        });
+            }
+        }
+    }
+
     /**
      * Computes chunk keys in a circular pattern around the player.
      * Only includes chunks that are within the world border.
      */
     public Set<Long> computeCircularKeys(Player player, int radius) {
-        int cx = player.getLocation().getBlockX() >> 4;
-        int cz = player.getLocation().getBlockZ() >> 4;
+        return computeCircularKeys(player.getWorld(), player.getLocation().getBlockX() >> 4,
+                player.getLocation().getBlockZ() >> 4, radius);
+    }
 
+    /**
+     * Computes chunk keys in a circular pattern around a chunk, for callers
+     * off the player's region thread that read the center beforehand.
+     * Only includes chunks that are within the world border.
+     */
+    public Set<Long> computeCircularKeys(World world, int cx, int cz, int radius) {
         Set<Long> keys = new HashSet<>();
         double radiusSquared = (radius + 0.5) * (radius + 0.5);
 
@@ -117,7 +158,7 @@ public class ChunkService {
                 double distanceSquared = dx * dx + dz * dz;
 
                 if (distanceSquared <= radiusSquared) {
-                    if (ChunkUtils.isChunkWithinWorldBorder(player.getWorld(), x, z)) {
+                    if (ChunkUtils.isChunkWithinWorldBorder(world, x, z)) {
                         keys.add(ChunkUtils.packChunkKey(x, z));
                     }
                 }
@@ -12,6 +12,7 @@ import me.mapacheee.extendedhorizons.shared.service.ConfigService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
@@ -19,8 +20,7 @@ import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
 import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
 
 import java.util.ArrayList;
-
-import java.util.Collections;
+import java.util.Collection;
 
 import java.util.HashSet;
 
@@ -38,8 +38,10 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import me.mapacheee.extendedhorizons.api.event.FakeChunkBatchLoadEvent.ChunkCoordinate;
 import me.mapacheee.extendedhorizons.api.event.FakeChunkLoadEvent;
 import me.mapacheee.extendedhorizons.api.event.FakeChunkUnloadEvent;
 import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
@@ -49,6 +51,24 @@ import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerChunkStat
 import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerStateManager;
 import me.mapacheee.extendedhorizons.viewdistance.service.bandwidth.BandwidthController;
 import me.mapacheee.extendedhorizons.viewdistance.service.event.ChunkEventDispatcher;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkMemoryCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkTemplateCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.EncodedChunkCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.TerrainHeightGrid;
+import me.mapacheee.extendedhorizons.viewdistance.service.snapshot.ApproximateChunkService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.EncodedChunk;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LevelOfDetailService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LightDeliveryService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LodTier;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.PaletteCompactionService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.AntiXrayService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.ProgressiveRefinementService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.VerticalCullingService;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkLoadPriority;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkLoadScheduler;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ChunkResidencyManager;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.HotspotService;
+import me.mapacheee.extendedhorizons.viewdistance.service.snapshot.ChunkSnapshotService;
 import me.mapacheee.extendedhorizons.viewdistance.service.strategy.ChunkLoadStrategy;
 import me.mapacheee.extendedhorizons.viewdistance.service.player.WarmupManager;
 
@@ -72,15 +92,40 @@ public class FakeChunkService {
     private final NMSChunkAccess nmsChunkAccess;
     private final NMSPacketAccess nmsPacketAccess;
     private final WarmupManager warmupManager;
+    private final ChunkLoadScheduler chunkLoadScheduler;
+    private final ChunkResidencyManager chunkResidencyManager;
+    private final ChunkSnapshotService chunkSnapshotService;
+    private final ChunkMemoryCache chunkMemoryCache;
+    private final EncodedChunkCache encodedChunkCache;
+    private final LevelOfDetailService levelOfDetailService;
+    private final VerticalCullingService verticalCullingService;
+    private final ProgressiveRefinementService progressiveRefinementService;
+    private final LightDeliveryService lightDeliveryService;
+    private final PaletteCompactionService paletteCompactionService;
+    private final ChunkTemplateCache chunkTemplateCache;
+    private final AntiXrayService antiXrayService;
+    private final OcclusionCullingService occlusionCullingService;
+    private final TerrainHeightGrid terrainHeightGrid;
+    private final ApproximateChunkService approximateChunkService;
+    private final HotspotService hotspotService;
     private final Set<Long> generatingChunks = ConcurrentHashMap.newKeySet();
     private final AtomicInteger chunksGeneratedThisTick = new AtomicInteger(0);
     private int maxGenerationsPerTick = 1;
     private ScheduledTask progressiveLoadingTask;
     private static final boolean DEBUG = false;
+    private static final int MAX_UNLOAD_MARGIN = 3;
+    private static final int MAX_UNLOADS_PER_TICK = 1024;
+    private static final Runnable NOT_RESIDENT = () -> {
+    };
     private final AtomicLong memoryCacheHits = new AtomicLong(0);
     private final AtomicLong memoryCacheMisses = new AtomicLong(0);
     private final AtomicLong diskLoads = new AtomicLong(0);
     private final AtomicLong chunkGenerations = new AtomicLong(0);
+    private final AtomicLong retainedChunks = new AtomicLong(0);
+    private final AtomicLong resendsAvoided = new AtomicLong(0);
+    private final AtomicLong droppedChunks = new AtomicLong(0);
+    private final AtomicLong unloadsSent = new AtomicLong(0);
+    private final AtomicLong unloadFlushes = new AtomicLong(0);
 
     private final PacketInterceptionService packetInterceptionService;
     private final PacketChunkCacheService packetChunkCacheService;
@@ -96,7 +141,23 @@ public class FakeChunkService {
             NMSChunkAccess nmsChunkAccess,
             NMSPacketAccess nmsPacketAccess,
             WarmupManager warmupManager,
-            PacketInterceptionService packetInterceptionService) {
+            PacketInterceptionService packetInterceptionService,
+            ChunkLoadScheduler chunkLoadScheduler,
+            ChunkResidencyManager chunkResidencyManager,
+            ChunkSnapshotService chunkSnapshotService,
+            ChunkMemoryCache chunkMemoryCache,
+            EncodedChunkCache encodedChunkCache,
+            LevelOfDetailService levelOfDetailService,
+            VerticalCullingService verticalCullingService,
+            ProgressiveRefinementService progressiveRefinementService,
+            LightDeliveryService lightDeliveryService,
+            PaletteCompactionService paletteCompactionService,
+            ChunkTemplateCache chunkTemplateCache,
+            AntiXrayService antiXrayService,
+            OcclusionCullingService occlusionCullingService,
+            TerrainHeightGrid terrainHeightGrid,
+            ApproximateChunkService approximateChunkService,
+            HotspotService hotspotService) {
         this.packetChunkCacheService = packetChunkCacheService;
         this.configService = configService;
         this.chunkLoadStrategy = chunkLoadStrategy;
@@ -107,15 +168,23 @@ public class FakeChunkService {
         this.nmsPacketAccess = nmsPacketAccess;
         this.warmupManager = warmupManager;
         this.packetInterceptionService = packetInterceptionService;
+        this.chunkLoadScheduler = chunkLoadScheduler;
+        this.chunkResidencyManager = chunkResidencyManager;
+        this.chunkSnapshotService = chunkSnapshotService;
+        this.chunkMemoryCache = chunkMemoryCache;
+        this.encodedChunkCache = encodedChunkCache;
+        this.levelOfDetailService = levelOfDetailService;
+        this.verticalCullingService = verticalCullingService;
+        this.progressiveRefinementService = progressiveRefinementService;
+        this.lightDeliveryService = lightDeliveryService;
+        this.paletteCompactionService = paletteCompactionService;
+        this.chunkTemplateCache = chunkTemplateCache;
+        this.antiXrayService = antiXrayService;
+        this.occlusionCullingService = occlusionCullingService;
+        this.terrainHeightGrid = terrainHeightGrid;
+        this.approximateChunkService = approximateChunkService;
+        this.hotspotService = hotspotService;
         this.maxGenerationsPerTick = configService.get().performance().maxGenerationsPerTick();
-        int maxCacheSize = configService.get().performance().fakeChunks().maxMemoryCacheSize();
-        this.chunkMemoryCache = Collections.synchronizedMap(
-                new LinkedHashMap<Long, Object>(16, 0.75f, true) {
-                    @Override
-                    protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
-                        return size() > maxCacheSize;
-                    }
-                });
 
         int configuredThreads = configService.get().performance().chunkProcessorThreads();
         int threadCount = configuredThreads > 0
@@ -138,6 +207,18 @@ public class FakeChunkService {
         warmupManager.startWarmup(state);
     }
 
+    /**
+     * Starts the horizon of a player who arrived at a prefetched destination
+     * without a warmup. The state created after the teleport cleanup starts
+     * in warmup, which would otherwise hold the queue back.
+     *
+     * @return true if a warmup was skipped
+     */
+    public boolean onPrefetchedArrival(Player player) {
+        PlayerChunkState state = playerStateManager.getOrCreate(player);
+        return warmupManager.endWarmup(state);
+    }
+
     /**
      * Cleans up player data when they quit or change worlds
      * 
@@ -162,6 +243,12 @@ public class FakeChunkService {
         stats.put("memory_misses", memoryCacheMisses.get());
         stats.put("disk_loads", diskLoads.get());
         stats.put("generations", chunkGenerations.get());
+        stats.put("retained", retainedChunks.get());
+        stats.put("resends_avoided", resendsAvoided.get());
+        stats.put("dropped", droppedChunks.get());
+        stats.put("handoffs", packetInterceptionService.getHandoffCount());
+        stats.put("unloads_sent", unloadsSent.get());
+        stats.put("unload_flushes", unloadFlushes.get());
         return stats;
     }
 
@@ -202,6 +289,9 @@ public class FakeChunkService {
 
                         bandwidthController.updateMaxBytesPerTick((int) bandwidthPerPlayer);
 
+                        // Unload packets are tiny and free client memory, so they are not held back by load
+                        drainUnloadQueues();
+
                         try {
                             double mspt = Bukkit.getAverageTickTime();
                             double maxMspt = configService.get().performance().maxMsptForLoading();
@@ -225,10 +315,12 @@ public class FakeChunkService {
                         if (maxQueue <= 0)
                             maxQueue = 10;
 
-                        if (activeTasks > maxTasks || queueSize > maxQueue) {
+                        int queuedLoads = chunkLoadScheduler.getQueuedHorizonLoads();
+
+                        if (activeTasks > maxTasks || queueSize > maxQueue || queuedLoads > maxQueue) {
                             if (DEBUG) {
-                                logger.warn("[EH] High async load ({} active, {} queued), skipping batch", activeTasks,
-                                        queueSize);
+                                logger.warn("[EH] High async load ({} active, {} queued, {} loads waiting), skipping batch",
+                                        activeTasks, queueSize, queuedLoads);
                             }
                             return;
                         }
@@ -236,7 +328,8 @@ public class FakeChunkService {
                         List<UUID> playerIds = new ArrayList<>();
                         for (UUID playerId : playerStateManager.getAllPlayerIds()) {
                             PlayerChunkState state = playerStateManager.get(playerId).orElse(null);
-                            if (state == null || state.getChunkQueue().isEmpty()) {
+                            if (state == null
+                                    || (state.getChunkQueue().isEmpty() && state.getCoarseChunks().isEmpty())) {
                                 continue;
                             }
                             playerIds.add(playerId);
@@ -249,7 +342,7 @@ public class FakeChunkService {
                             }
                             Queue<Long> queue = state.getChunkQueue();
 
-                            if (queue == null || queue.isEmpty()) {
+                            if (queue == null) {
                                 continue;
                             }
 
@@ -263,7 +356,27 @@ public class FakeChunkService {
                                 continue;
                             }
 
-                            processChunkQueue(player, queue);
+                            // Distances are measured from the chunk cached on the player's region
+                            // thread; this task never reads the entity's position
+                            if (state.getCenterChunk() == Long.MIN_VALUE) {
+                                continue;
+                            }
+
+                            // Underground the horizon is paused; queued chunks wait for the player to resurface
+                            if (occlusionCullingService.isPaused(playerId)) {
+                                continue;
+                            }
+
+                            // Chunks that came into sight and skyline impostors the player
+                            // approached are upgraded like coarse chunks
+                            state.getCoarseChunks().addAll(occlusionCullingService.reveal(player, state));
+                            state.getCoarseChunks().addAll(approximateChunkService.approaching(state));
+
+                            if (!queue.isEmpty()) {
+                                processChunkQueue(player, queue);
+                            } else if (progressiveRefinementService.hasSpareCapacity(state)) {
+                                processRefinements(player, state);
+                            }
                         }
                     } catch (Throwable t) {
                         logger.error("[EH] Error in progressive loading task", t);
@@ -291,12 +404,22 @@ public class FakeChunkService {
 
         int maxChunks = configService.get().bandwidthSaver().maxFakeChunksPerTick();
         List<Long> batch = new ArrayList<>();
-        while (!queue.isEmpty() && batch.size() < maxChunks) {
+        List<Long> deferred = new ArrayList<>();
+        int scanned = 0;
+        while (!queue.isEmpty() && batch.size() < maxChunks && scanned++ < maxChunks * 4) {
             Long key = queue.poll();
-            if (key != null && !generatingChunks.contains(key)) {
+            if (key == null || sentTracker.contains(key)) {
+                continue;
+            }
+            if (generatingChunks.contains(key)) {
+                // Being loaded for another player nearby; once that load is done the
+                // chunk is served from the encoded cache instead of loading it again
+                deferred.add(key);
+            } else {
                 batch.add(key);
             }
         }
+        queue.addAll(deferred);
 
         if (!batch.isEmpty()) {
             processChunkBatch(player, batch, sentTracker);
@@ -321,6 +444,11 @@ public class FakeChunkService {
      */
     private void processChunkBatch(Player player, List<Long> batch, Set<Long> sentTracker) {
         World world = player.getWorld();
+        UUID uuid = player.getUniqueId();
+        PlayerChunkState state = playerStateManager.getOrCreate(uuid);
+        long center = state.getCenterChunk();
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
 
         for (long key : batch) {
             if (!player.isOnline())
@@ -328,9 +456,6 @@ public class FakeChunkService {
 
             generatingChunks.add(key);
 
-            UUID uuid = player.getUniqueId();
-            PlayerChunkState state = playerStateManager.getOrCreate(uuid);
-
             long estimatedChunkSize = configService.get().bandwidthSaver().estimatedPacketSize();
             if (!bandwidthController.canSendData(uuid, estimatedChunkSize)) {
                 generatingChunks.remove(key);
@@ -340,71 +465,169 @@ public class FakeChunkService {
 
             int chunkX = ChunkUtils.unpackX(key);
             int chunkZ = ChunkUtils.unpackZ(key);
+            ChunkLoadPriority priority = chunkLoadScheduler.classifyHorizon(playerChunkX, playerChunkZ, chunkX,
+                    chunkZ);
+            LodTier target = levelOfDetailService.tierFor(playerChunkX, playerChunkZ, chunkX, chunkZ);
+            LodTier tier;
+            if (occlusionCullingService.isHidden(player, state, chunkX, chunkZ)) {
+                // Hidden behind terrain: lowest detail until it comes into sight
+                tier = LodTier.COARSE;
+                state.getOccludedChunks().add(key);
+            } else {
+                tier = progressiveRefinementService.firstPassTier(target);
+                if (tier != target) {
+                    progressiveRefinementService.markCoarse(state, key);
+                }
+            }
 
-            chunkProcessor.execute(() -> {
-                try {
-                    // Strategy 1: Try to get chunk from PacketEvents cache
-                    if (packetInterceptionService.sendCachedChunk(player, chunkX, chunkZ)) {
-                        sentTracker.add(ChunkUtils.packChunkKey(chunkX, chunkZ));
-                        if (DEBUG)
-                            logger.info("[EH] Loaded chunk {},{} from PacketEvents cache", chunkX, chunkZ);
-                        generatingChunks.remove(key);
-                        return;
-                    }
+            dispatchChunk(player, world, key, sentTracker, priority, tier);
+        }
+    }
 
-                    // Strategy 2: Try to get chunk from servers memory cache
-                    Object memoryChunk = getChunkFromMemoryCache(world, chunkX, chunkZ);
-                    if (memoryChunk != null) {
-                        if (DEBUG) {
-                            logger.info("[EH] Loaded chunk {},{} from memory cache", chunkX, chunkZ);
-                        }
-                        sendChunkPacket(player, memoryChunk, key, sentTracker,
-                                FakeChunkLoadEvent.LoadSource.MEMORY_CACHE);
-                        return;
-                    }
+    /**
+     * Sends coarse chunks again in their real tier, using bandwidth left over
+     * once the first pass of the horizon is done
+     */
+    private void processRefinements(Player player, PlayerChunkState state) {
+        World world = player.getWorld();
+        long center = state.getCenterChunk();
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
+        Set<Long> sentTracker = state.getFakeChunks();
+        long estimatedChunkSize = configService.get().bandwidthSaver().estimatedPacketSize();
+
+        List<Long> batch = progressiveRefinementService.nextRefinements(state, generatingChunks,
+                configService.get().bandwidthSaver().maxFakeChunksPerTick());
+        for (int i = 0; i < batch.size(); i++) {
+            long key = batch.get(i);
+            if (!player.isOnline() || !bandwidthController.canSendData(player.getUniqueId(), estimatedChunkSize)) {
+                for (int j = i; j < batch.size(); j++) {
+                    progressiveRefinementService.requeue(state, batch.get(j));
+                }
+                break;
+            }
+
+            int chunkX = ChunkUtils.unpackX(key);
+            int chunkZ = ChunkUtils.unpackZ(key);
+            generatingChunks.add(key);
+            ChunkLoadPriority priority = chunkLoadScheduler.classifyHorizon(playerChunkX, playerChunkZ, chunkX,
+                    chunkZ);
+            LodTier tier = levelOfDetailService.tierFor(playerChunkX, playerChunkZ, chunkX, chunkZ);
+            dispatchChunk(player, world, key, sentTracker, priority, tier);
+        }
 
-                    // Strategy 3: Try to load chunk from disk
-                    loadChunkFromDiskAndSend(player, world, chunkX, chunkZ, key, sentTracker);
+        if (DEBUG && !batch.isEmpty()) {
+            logger.info("[EH] Refining {} coarse chunks for {} ({} remaining)",
+                    batch.size(), player.getName(), state.getCoarseChunks().size());
+        }
+    }
 
-                } catch (Exception e) {
+    /**
+     * Loads, encodes and queues one chunk on the chunk processor, trying the
+     * cheapest source first
+     */
+    private void dispatchChunk(Player player, World world, long key, Set<Long> sentTracker,
+            ChunkLoadPriority priority, LodTier tier) {
+        int chunkX = ChunkUtils.unpackX(key);
+        int chunkZ = ChunkUtils.unpackZ(key);
+
+        chunkProcessor.execute(() -> {
+            try {
+                // Strategy 0: Reuse a packet already encoded for this tier
+                EncodedChunk encoded = encodedChunkCache.get(world, chunkX, chunkZ, tier);
+                if (encoded != null) {
+                    queueChunkPacket(player, encoded, key, sentTracker,
+                            FakeChunkLoadEvent.LoadSource.PACKET_CACHE);
+                    return;
+                }
+
+                // Strategy 0b: Patch the coordinates into a shared template of an empty or uniform chunk
+                EncodedChunk templated = chunkTemplateCache.instantiate(world, chunkX, chunkZ, tier);
+                if (templated != null) {
+                    queueChunkPacket(player, templated, key, sentTracker,
+                            FakeChunkLoadEvent.LoadSource.PACKET_CACHE);
+                    return;
+                }
+
+                // Strategy 1: Try to get chunk from PacketEvents cache (full detail, not obfuscated)
+                if (tier == LodTier.FULL && !antiXrayService.isEnabled()
+                        && packetInterceptionService.sendCachedChunk(player, chunkX, chunkZ)) {
+                    sentTracker.add(ChunkUtils.packChunkKey(chunkX, chunkZ));
+                    if (DEBUG)
+                        logger.info("[EH] Loaded chunk {},{} from PacketEvents cache", chunkX, chunkZ);
                     generatingChunks.remove(key);
-                    logger.warn("[EH] Error loading chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
+                    return;
+                }
+
+                // Strategy 2: Try to get chunk from servers memory cache
+                Object memoryChunk = getChunkFromMemoryCache(world, chunkX, chunkZ);
+                if (memoryChunk != null) {
                     if (DEBUG) {
-                        e.printStackTrace();
+                        logger.info("[EH] Loaded chunk {},{} from memory cache", chunkX, chunkZ);
                     }
+                    snapshotAndSend(player, world, memoryChunk, key, sentTracker,
+                            FakeChunkLoadEvent.LoadSource.MEMORY_CACHE, tier, NOT_RESIDENT);
+                    return;
                 }
-            });
-        }
+
+                // Strategy 3: Try to load chunk from disk
+                loadChunkFromDiskAndSend(player, world, chunkX, chunkZ, key, sentTracker, priority, tier);
+
+            } catch (Exception e) {
+                generatingChunks.remove(key);
+                logger.warn("[EH] Error loading chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
+                if (DEBUG) {
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 
     /**
      * Attempts to load chunk from disk without generating
      */
     private void loadChunkFromDiskAndSend(Player player, World world, int chunkX, int chunkZ,
-            long key, Set<Long> sentTracker) {
-        world.getChunkAtAsync(chunkX, chunkZ, false).thenAcceptAsync(chunk -> {
+            long key, Set<Long> sentTracker, ChunkLoadPriority priority, LodTier tier) {
+        Runnable release = holdResident(world, chunkX, chunkZ);
+        chunkLoadScheduler.load(world, chunkX, chunkZ, false, priority).thenAcceptAsync(chunk -> {
             if (!player.isOnline()) {
                 generatingChunks.remove(key);
+                release.run();
                 return;
             }
 
             if (chunk == null || !chunk.isLoaded()) {
+                // Impostors cost microseconds, so they skip the generation limit
+                PlayerChunkState playerState = playerStateManager.getOrCreate(player.getUniqueId());
+                if (approximateChunkService.isSkyline(playerState, chunkX, chunkZ)
+                        && skylineAndSend(player, world, chunkX, chunkZ, key, sentTracker, tier)) {
+                    release.run();
+                    return;
+                }
+
                 if (chunksGeneratedThisTick.get() >= maxGenerationsPerTick) {
                     if (DEBUG)
                         logger.debug("[EH] Generation limit hit, deferring chunk {},{}", chunkX, chunkZ);
                     generatingChunks.remove(key);
-                    PlayerChunkState limitState = playerStateManager.getOrCreate(player.getUniqueId());
-                    limitState.getChunkQueue().add(key);
+                    playerState.getChunkQueue().add(key);
+                    release.run();
                     return;
                 }
 
                 chunksGeneratedThisTick.incrementAndGet();
 
+                if (approximateChunkService.appliesTo(tier)
+                        && approximateAndSend(player, world, chunkX, chunkZ, key, sentTracker, tier)) {
+                    release.run();
+                    return;
+                }
+
                 if (DEBUG) {
                     logger.info("[EH] Chunk {},{} not found on disk, generating", chunkX, chunkZ);
                 }
                 chunkGenerations.incrementAndGet();
-                generateChunkAndSend(player, world, chunkX, chunkZ, key, sentTracker);
+                release.run();
+                generateChunkAndSend(player, world, chunkX, chunkZ, key, sentTracker, priority, tier);
             } else {
                 if (DEBUG) {
                     logger.info("[EH] Chunk {},{} loaded from disk", chunkX, chunkZ);
@@ -415,9 +638,12 @@ public class FakeChunkService {
                 diskLoads.incrementAndGet();
                 try {
                     Object nmsChunk = nmsChunkAccess.getNMSChunk(chunk);
-                    sendChunkPacket(player, nmsChunk, key,
-                            sentTracker, FakeChunkLoadEvent.LoadSource.DISK);
+                    chunkResidencyManager.recordLoaded(world, chunkX, chunkZ, nmsChunk);
+                    snapshotAndSend(player, world, nmsChunk, key,
+                            sentTracker, FakeChunkLoadEvent.LoadSource.DISK, tier, release);
                 } catch (Exception e) {
+                    generatingChunks.remove(key);
+                    release.run();
                     logger.warn("[EH] Failed to get NMS chunk from Bukkit chunk: {}", e.getMessage());
                 }
             }
@@ -426,6 +652,7 @@ public class FakeChunkService {
                 generatingChunks.remove(key);
                 PlayerChunkState playerState = playerStateManager.getOrCreate(player.getUniqueId());
                 playerState.getChunkQueue().add(key);
+                release.run();
                 return null;
             }
             chunksGeneratedThisTick.incrementAndGet();
@@ -439,11 +666,128 @@ public class FakeChunkService {
                         chunkX, chunkZ, throwable.getMessage());
             }
             chunkGenerations.incrementAndGet();
-            generateChunkAndSend(player, world, chunkX, chunkZ, key, sentTracker);
+            release.run();
+            generateChunkAndSend(player, world, chunkX, chunkZ, key, sentTracker, priority, tier);
             return null;
         });
     }
 
+    /**
+     * Collects the sent chunks that have to be dropped: chunks beyond the
+     * unload radius, and chunks within the load radius that are no longer
+     * fake (they became real or left the world border). Chunks between the
+     * load and unload radii stay tracked. Chunks beyond the unload radius
+     * are queued for unloading on the client. Distances are measured from
+     * the player's cached center chunk, as this runs off the region thread.
+     */
+    private Set<Long> collectOutOfRange(PlayerChunkState state, Set<Long> chunkKeys, int loadDistance) {
+        long center = state.getCenterChunk();
+        if (center == Long.MIN_VALUE) {
+            return Set.of();
+        }
+        int margin = Math.min(MAX_UNLOAD_MARGIN,
+                Math.max(0, configService.get().performance().fakeChunks().unloadMargin()));
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
+        long loadSquared = (long) loadDistance * loadDistance;
+        long unloadSquared = (long) (loadDistance + margin) * (loadDistance + margin);
+
+        Set<Long> toRemove = new HashSet<>();
+        for (long key : state.getFakeChunks()) {
+            if (chunkKeys.contains(key)) {
+                if (state.getRetainedChunks().remove(key)) {
+                    resendsAvoided.incrementAndGet();
+                }
+                continue;
+            }
+
+            release(state, key, playerChunkX, playerChunkZ, loadSquared, unloadSquared, margin, toRemove);
+        }
+        droppedChunks.addAndGet(toRemove.size());
+        return toRemove;
+    }
+
+    /**
+     * Same as {@link #collectOutOfRange} for a view plan that only lists the
+     * chunks that entered and left the view: only the chunks that left and
+     * the retained ones are checked.
+     */
+    private Set<Long> collectLeaving(PlayerChunkState state, Collection<Long> added,
+            Collection<Long> removed, int loadDistance) {
+        long center = state.getCenterChunk();
+        if (center == Long.MIN_VALUE) {
+            return Set.of();
+        }
+        int margin = Math.min(MAX_UNLOAD_MARGIN,
+                Math.max(0, configService.get().performance().fakeChunks().unloadMargin()));
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
+        long loadSquared = (long) loadDistance * loadDistance;
+        long unloadSquared = (long) (loadDistance + margin) * (loadDistance + margin);
+
+        for (long key : added) {
+            if (state.getRetainedChunks().remove(key)) {
+                resendsAvoided.incrementAndGet();
+            }
+        }
+
+        Set<Long> toRemove = new HashSet<>();
+        for (long key : removed) {
+            if (state.getFakeChunks().contains(key)) {
+                release(state, key, playerChunkX, playerChunkZ, loadSquared, unloadSquared, margin, toRemove);
+            }
+        }
+        // Retained chunks fall out once the player is far enough from them
+        for (long key : state.getRetainedChunks()) {
+            if (!toRemove.contains(key)) {
+                release(state, key, playerChunkX, playerChunkZ, loadSquared, unloadSquared, margin, toRemove);
+            }
+        }
+        droppedChunks.addAndGet(toRemove.size());
+        return toRemove;
+    }
+
+    /**
+     * Keeps a chunk that left the view as retained while it is within the
+     * unload radius, otherwise marks it for removal.
+     */
+    private void release(PlayerChunkState state, long key, int playerChunkX, int playerChunkZ, long loadSquared,
+            long unloadSquared, int margin, Set<Long> toRemove) {
+        long dx = ChunkUtils.unpackX(key) - playerChunkX;
+        long dz = ChunkUtils.unpackZ(key) - playerChunkZ;
+        long distanceSquared = dx * dx + dz * dz;
+        if (margin > 0 && distanceSquared > loadSquared && distanceSquared <= unloadSquared) {
+            if (state.getRetainedChunks().add(key)) {
+                retainedChunks.incrementAndGet();
+            }
+            return;
+        }
+        toRemove.add(key);
+        if (distanceSquared > loadSquared) {
+            state.getUnloadQueue().add(key);
+        }
+    }
+
+    private void dropChunks(PlayerChunkState state, Set<Long> toRemove) {
+        state.getFakeChunks().removeAll(toRemove);
+        state.getRetainedChunks().removeAll(toRemove);
+        state.getCoarseChunks().removeAll(toRemove);
+        state.getOccludedChunks().removeAll(toRemove);
+        state.getSkylineChunks().removeAll(toRemove);
+        state.dropLightPackets(toRemove);
+    }
+
+    /**
+     * Checks whether the player's next view plan has to list the whole view:
+     * nothing was sent yet, or queued chunks were dropped since the last
+     * plan.
+     */
+    public boolean needsFullPlan(UUID playerId) {
+        return playerStateManager.get(playerId)
+                .map(state -> state.takeFullPlanNeeded() || state.getFakeChunkCount() == 0)
+                .orElse(true);
+    }
+
     /**
      * Gets the servers actual view distance from server.properties
      */
@@ -455,9 +799,13 @@ public class FakeChunkService {
      * Sends fake chunks to a player
      * Chunks are prioritized by distance (closer chunks first)
      * Uses progressive loading to avoid overwhelming the server
+     *
+     * @param loadDistance The view distance the chunk keys were computed for;
+     *                     sent chunks are kept up to this distance plus the
+     *                     unload margin
      */
-    public CompletableFuture<Integer> sendFakeChunks(Player player, Set<Long> chunkKeys, double borderCenterX,
-            double borderCenterZ, double borderSize) {
+    public CompletableFuture<Integer> sendFakeChunks(Player player, Set<Long> chunkKeys, int loadDistance,
+            double borderCenterX, double borderCenterZ, double borderSize) {
         if (!configService.get().performance().fakeChunks().enabled()) {
             return CompletableFuture.completedFuture(0);
         }
@@ -480,12 +828,10 @@ public class FakeChunkService {
         CompletableFuture<Integer> result = new CompletableFuture<>();
         UUID uuid = player.getUniqueId();
         PlayerChunkState state = playerStateManager.getOrCreate(uuid);
-        Set<Long> playerSentChunks = state.getFakeChunks();
 
-        // Remove chunks that are no longer in range from the sent set
-        Set<Long> toRemove = new HashSet<>(playerSentChunks);
-        toRemove.removeAll(chunkKeys);
-        playerSentChunks.removeAll(toRemove);
+        // Remove chunks that are no longer in range from the sent set, keeping the ones
+        // within the unload margin so a player pacing over a border does not resend them
+        dropChunks(state, collectOutOfRange(state, chunkKeys, loadDistance));
 
         chunkLoadStrategy.onPlayerUpdate(player, state);
 
@@ -494,8 +840,61 @@ public class FakeChunkService {
             return CompletableFuture.completedFuture(0);
         }
 
+        requestUnsent(player, state, chunkKeys, borderCenterX, borderCenterZ, borderSize);
+
+        result.complete(0);
+        return result;
+    }
+
+    /**
+     * Applies a view plan that only lists the chunks that entered and left
+     * the player's view since the previous plan. Chunks that left are
+     * dropped or retained like in {@link #sendFakeChunks}, and only the
+     * chunks that entered are requested.
+     *
+     * @param loadDistance The view distance the plan was computed for
+     */
+    public CompletableFuture<Integer> sendFakeChunkDelta(Player player, Collection<Long> added,
+            Collection<Long> removed, int loadDistance, double borderCenterX, double borderCenterZ,
+            double borderSize) {
+        if (!configService.get().performance().fakeChunks().enabled()
+                || !isFakeChunksEnabledForWorld(player.getWorld())) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        PlayerChunkState state = playerStateManager.getOrCreate(player.getUniqueId());
+        dropChunks(state, collectLeaving(state, added, removed, loadDistance));
+        // Chunks that left the view before being loaded are no longer wanted
+        if (!removed.isEmpty()) {
+            state.getChunkQueue().removeAll(new HashSet<>(removed));
+        }
+
+        chunkLoadStrategy.onPlayerUpdate(player, state);
+
+        if (chunkLoadStrategy.isWarmupActive(player, state)) {
+            chunkLoadStrategy.processWarmup(player, state, new HashSet<>(added));
+            return CompletableFuture.completedFuture(0);
+        }
+
+        requestUnsent(player, state, added, borderCenterX, borderCenterZ, borderSize);
+        return CompletableFuture.completedFuture(0);
+    }
+
+    /**
+     * Sends the given chunks the player does not have yet, straight from the
+     * packet cache when possible, and queues the rest for loading.
+     */
+    private void requestUnsent(Player player, PlayerChunkState state, Collection<Long> chunkKeys,
+            double borderCenterX, double borderCenterZ, double borderSize) {
+        Set<Long> playerSentChunks = state.getFakeChunks();
         Set<Long> toSend = new HashSet<>();
         List<Long> toGenerate = new ArrayList<>();
+        long center = state.getCenterChunk();
+        if (center == Long.MIN_VALUE) {
+            return;
+        }
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
 
         for (long key : chunkKeys) {
             if (playerSentChunks.contains(key)) {
@@ -509,13 +908,17 @@ public class FakeChunkService {
                 continue;
             }
 
-            if (packetChunkCacheService.get(chunkX, chunkZ) != null) {
+            // Cached columns are full detail and not obfuscated; everything else goes through the encoder
+            if (!antiXrayService.isEnabled() && packetChunkCacheService.get(chunkX, chunkZ) != null
+                    && levelOfDetailService.tierFor(playerChunkX, playerChunkZ, chunkX, chunkZ) == LodTier.FULL) {
                 toSend.add(key);
-            } else if (!generatingChunks.contains(key)) {
+            } else {
                 toGenerate.add(key);
             }
         }
 
+        hotspotService.recordVisit(player.getWorld(), playerChunkX, playerChunkZ);
+
         if (!toSend.isEmpty()) {
             if (DEBUG) {
                 logger.info("[EH] Sending {} cached chunks to {}", toSend.size(), player.getName());
@@ -535,35 +938,27 @@ public class FakeChunkService {
             chunkLoadStrategy.processQueue(player, state, toGenerate, generatingChunks);
             processChunkQueue(player, state.getChunkQueue());
         }
-
-        result.complete(0);
-        return result;
     }
 
     /**
      * Attempts to get a chunk from the servers memory cache or our own cache
      */
     private Object getChunkFromMemoryCache(World world, int chunkX, int chunkZ) {
-        boolean antiXrayEnabled = configService.get().performance().fakeChunks().antiXray().enabled();
-        if (!configService.get().performance().fakeChunks().enableMemoryCache() || antiXrayEnabled) {
+        if (!configService.get().performance().fakeChunks().enableMemoryCache()) {
             return null;
         }
 
-        long chunkKey = ChunkUtils.packChunkKey(chunkX, chunkZ);
-
-        synchronized (chunkMemoryCache) {
-            Object cached = chunkMemoryCache.get(chunkKey);
-            if (cached != null) {
-                memoryCacheHits.incrementAndGet();
-                return cached;
-            }
+        Object cached = chunkMemoryCache.get(world, chunkX, chunkZ);
+        if (cached != null) {
+            memoryCacheHits.incrementAndGet();
+            return cached;
         }
 
         try {
             Object chunk = nmsChunkAccess.getChunkIfLoaded(world, chunkX, chunkZ);
 
             if (chunk != null) {
-                cacheChunkInMemory(chunkKey, chunk);
+                cacheChunkInMemory(world, chunkX, chunkZ, chunk);
                 memoryCacheHits.incrementAndGet();
                 return chunk;
             }
@@ -579,14 +974,69 @@ public class FakeChunkService {
     /**
      * Caches a chunk in memory for reuse
      */
-    private void cacheChunkInMemory(long chunkKey, Object chunk) {
+    private void cacheChunkInMemory(World world, int chunkX, int chunkZ, Object chunk) {
         if (!configService.get().performance().fakeChunks().enableMemoryCache()) {
             return;
         }
 
-        synchronized (chunkMemoryCache) {
-            chunkMemoryCache.put(chunkKey, chunk);
+        chunkMemoryCache.put(world, chunkX, chunkZ, chunk);
+    }
+
+    /**
+     * Sends an approximation of a chunk that was never generated, built from
+     * the world generator without touching the world. Runs on the chunk
+     * processor.
+     *
+     * @return false if the world cannot be approximated and the chunk has to
+     *         be generated
+     */
+    private boolean approximateAndSend(Player player, World world, int chunkX, int chunkZ, long key,
+            Set<Long> sentTracker, LodTier tier) {
+        Object snapshot;
+        try {
+            snapshot = approximateChunkService.generate(world, chunkX, chunkZ);
+        } catch (Exception e) {
+            if (DEBUG) {
+                logger.warn("[EH] Failed to approximate chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
+            }
+            return false;
+        }
+        if (snapshot == null) {
+            return false;
+        }
+
+        if (DEBUG) {
+            logger.info("[EH] Approximated ungenerated chunk {},{}", chunkX, chunkZ);
+        }
+        sendChunkPacket(player, snapshot, key, sentTracker, FakeChunkLoadEvent.LoadSource.APPROXIMATED, tier);
+        return true;
+    }
+
+    /**
+     * Sends a skyline impostor of a chunk that was never generated and
+     * remembers it so the real chunk replaces it once the player comes
+     * closer. Runs on the chunk processor.
+     *
+     * @return false if the world cannot be approximated
+     */
+    private boolean skylineAndSend(Player player, World world, int chunkX, int chunkZ, long key,
+            Set<Long> sentTracker, LodTier tier) {
+        Object snapshot;
+        try {
+            snapshot = approximateChunkService.generateSkyline(world, chunkX, chunkZ);
+        } catch (Exception e) {
+            if (DEBUG) {
+                logger.warn("[EH] Failed to build skyline for chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
+            }
+            return false;
+        }
+        if (snapshot == null) {
+            return false;
         }
+
+        playerStateManager.getOrCreate(player.getUniqueId()).getSkylineChunks().add(key);
+        sendChunkPacket(player, snapshot, key, sentTracker, FakeChunkLoadEvent.LoadSource.SKYLINE, tier);
+        return true;
     }
 
     /**
@@ -594,10 +1044,12 @@ public class FakeChunkService {
      * This is the slowest method and should be the last resort
      */
     private void generateChunkAndSend(Player player, World world, int chunkX, int chunkZ,
-            long key, Set<Long> sentTracker) {
-        world.getChunkAtAsync(chunkX, chunkZ, true).thenAcceptAsync(chunk -> {
+            long key, Set<Long> sentTracker, ChunkLoadPriority priority, LodTier tier) {
+        Runnable release = holdResident(world, chunkX, chunkZ);
+        chunkLoadScheduler.load(world, chunkX, chunkZ, true, priority).thenAcceptAsync(chunk -> {
             if (!player.isOnline()) {
                 generatingChunks.remove(key);
+                release.run();
                 return;
             }
 
@@ -608,35 +1060,67 @@ public class FakeChunkService {
                     if (DEBUG) {
                         logger.info("[EH] Generated chunk {},{}", chunkX, chunkZ);
                     }
-                    long chunkKey = ChunkUtils.packChunkKey(chunkX, chunkZ);
-                    cacheChunkInMemory(chunkKey, nmsChunk);
-                    sendChunkPacket(player, nmsChunk, key, sentTracker,
-                            FakeChunkLoadEvent.LoadSource.GENERATED);
+                    // Horizon-only chunks are released after encoding; caching them would keep them reachable
+                    if (!chunkResidencyManager.isHorizonOnly(world, chunkX, chunkZ)) {
+                        cacheChunkInMemory(world, chunkX, chunkZ, nmsChunk);
+                    } else {
+                        chunkResidencyManager.recordLoaded(world, chunkX, chunkZ, nmsChunk);
+                    }
+                    snapshotAndSend(player, world, nmsChunk, key, sentTracker,
+                            FakeChunkLoadEvent.LoadSource.GENERATED, tier, release);
                 } else {
                     generatingChunks.remove(key);
+                    release.run();
                     if (DEBUG) {
                         logger.warn("[EH] Generated chunk {},{} is null", chunkX, chunkZ);
                     }
                 }
             } catch (Exception e) {
                 generatingChunks.remove(key);
+                release.run();
                 if (DEBUG) {
                     logger.warn("[EH] Failed to process generated chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
                 }
             }
         }, chunkProcessor).exceptionally(throwable -> {
             generatingChunks.remove(key);
+            release.run();
             logger.warn("[EH] Failed to generate chunk {},{}: {}", chunkX, chunkZ, throwable.getMessage());
             return null;
         });
     }
 
+    /**
+     * Snapshots a live chunk on its owning thread, then encodes and queues the
+     * snapshot on the chunk processor. The live chunk is not read again after
+     * the snapshot, so a horizon-only chunk is released right away.
+     */
+    private void snapshotAndSend(Player player, World world, Object nmsChunk, long key, Set<Long> sentTracker,
+            FakeChunkLoadEvent.LoadSource loadSource, LodTier tier, Runnable release) {
+        int chunkX = ChunkUtils.unpackX(key);
+        int chunkZ = ChunkUtils.unpackZ(key);
+
+        chunkSnapshotService.capture(world, chunkX, chunkZ, nmsChunk)
+                .whenComplete((snapshot, throwable) -> release.run())
+                .thenAcceptAsync(snapshot -> sendChunkPacket(player, snapshot, key, sentTracker, loadSource, tier),
+                        chunkProcessor)
+                .exceptionally(throwable -> {
+                    generatingChunks.remove(key);
+                    if (DEBUG) {
+                        logger.warn("[EH] Failed to snapshot chunk {},{}: {}", chunkX, chunkZ,
+                                throwable.getMessage());
+                    }
+                    return null;
+                });
+    }
+
     /**
      * Enqueues a chunk packet to be sent to the player
-     * Packets are created here in async thread and queued for sending
+     * Packets are created here in async thread from a chunk snapshot, reduced
+     * to the requested level of detail, cached per tier and queued for sending
      */
     private void sendChunkPacket(Player player, Object nmsChunk, long key, Set<Long> sentTracker,
-            FakeChunkLoadEvent.LoadSource loadSource) {
+            FakeChunkLoadEvent.LoadSource loadSource, LodTier tier) {
         int chunkX = ChunkUtils.unpackX(key);
         int chunkZ = ChunkUtils.unpackZ(key);
 
@@ -647,39 +1131,228 @@ public class FakeChunkService {
             return;
         }
 
-        if (configService.get().performance().fakeChunks().antiXray().enabled()) {
-            try {
-                nmsChunk = nmsChunkAccess.cloneChunk(nmsChunk);
-
-                boolean hideOres = configService.get().performance().fakeChunks().antiXray().hideOres();
-                boolean addFakeOres = configService.get().performance().fakeChunks().antiXray().addFakeOres();
-                double density = configService.get().performance().fakeChunks().antiXray().fakeOreDensity();
+        EncodedChunk encoded = encode(player.getWorld(), nmsChunk, chunkX, chunkZ, tier,
+                loadSource != FakeChunkLoadEvent.LoadSource.SKYLINE);
+        if (encoded == null) {
+            generatingChunks.remove(key);
+            return;
+        }
 
-                nmsChunkAccess.obfuscateChunk(nmsChunk, hideOres, addFakeOres, density);
+        // Impostors stand in for one player only until the real chunk replaces them
+        if (loadSource != FakeChunkLoadEvent.LoadSource.SKYLINE) {
+            // Only packets players receive count towards the coarse pass decision
+            progressiveRefinementService.recordEncoded(tier,
+                    nmsPacketAccess.getChunkDataSize(encoded.chunkPacket()));
+            encodedChunkCache.put(player.getWorld(), chunkX, chunkZ, tier, encoded);
+            try {
+                chunkTemplateCache.record(player.getWorld(), chunkX, chunkZ, tier, nmsChunk, encoded);
             } catch (Exception e) {
                 if (DEBUG) {
-                    logger.warn("[EH] Failed to obfuscate chunk: {}", e.getMessage());
+                    logger.warn("[EH] Failed to record template for chunk {},{}: {}", chunkX, chunkZ,
+                            e.getMessage());
                 }
             }
         }
+        enqueue(player, encoded, key, sentTracker);
+    }
+
+    /**
+     * Reduces a snapshot to the tier and encodes its packets.
+     *
+     * @param recordHeight Whether the snapshot shows the real terrain, so its
+     *                     surface can be recorded in the height grid
+     * @return The packets, or null if the chunk could not be encoded
+     */
+    private EncodedChunk encode(World world, Object nmsChunk, int chunkX, int chunkZ, LodTier tier,
+            boolean recordHeight) {
+        try {
+            if (recordHeight) {
+                terrainHeightGrid.record(world, chunkX, chunkZ, nmsChunkAccess.getSurfaceHeight(nmsChunk),
+                        nmsChunkAccess.getLowSurfaceHeight(nmsChunk));
+            }
+            verticalCullingService.apply(world, nmsChunk, tier);
+            levelOfDetailService.apply(nmsChunk, tier);
+        } catch (Exception e) {
+            if (DEBUG) {
+                logger.warn("[EH] Failed to reduce detail of chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
+            }
+        }
 
-        Object packet = null;
+        // Snapshots are private copies, so obfuscation never touches the live chunk
         try {
-            packet = nmsPacketAccess.createChunkPacket(nmsChunk);
+            antiXrayService.apply(nmsChunk);
+        } catch (Exception e) {
+            if (DEBUG) {
+                logger.warn("[EH] Failed to obfuscate chunk: {}", e.getMessage());
+            }
+        }
+
+        try {
+            paletteCompactionService.apply(nmsChunk);
+        } catch (Exception e) {
+            if (DEBUG) {
+                logger.warn("[EH] Failed to compact palettes of chunk {},{}: {}", chunkX, chunkZ, e.getMessage());
+            }
+        }
+
+        EncodedChunk encoded;
+        try {
+            encoded = lightDeliveryService.encode(nmsChunk);
         } catch (Throwable e) {
             if (DEBUG)
                 logger.error("[EH] Failed to create chunk packet", e);
-            generatingChunks.remove(key);
-            return;
+            return null;
         }
+        return encoded;
+    }
 
-        if (packet == null) {
+    /**
+     * Encodes a horizon chunk before anyone asks for it and keeps its packets
+     * in the encoded chunk cache for the given time, one per level-of-detail
+     * tier in use. The chunk is held as a horizon-only resident and released
+     * once it is snapshotted, so only the packets stay. Missing chunks are
+     * approximated where approximate generation applies, and generated into
+     * the world only when asked to.
+     *
+     * @return Future completed with true if packets were cached
+     */
+    public CompletableFuture<Boolean> warmChunk(World world, int chunkX, int chunkZ, boolean generate,
+            long ttlMillis) {
+        List<LodTier> tiers = levelOfDetailService.getActiveTiers();
+        Runnable release = holdResident(world, chunkX, chunkZ);
+        return chunkLoadScheduler.load(world, chunkX, chunkZ, false, ChunkLoadPriority.FAR_HORIZON)
+                .thenCompose(chunk -> {
+                    if (chunk != null && chunk.isLoaded()) {
+                        return warmLoaded(world, chunkX, chunkZ, chunk, tiers, ttlMillis, release);
+                    }
+                    release.run();
+
+                    List<LodTier> approximated = new ArrayList<>();
+                    for (LodTier tier : tiers) {
+                        if (approximateChunkService.appliesTo(tier)) {
+                            approximated.add(tier);
+                        }
+                    }
+                    if (!approximated.isEmpty()) {
+                        return CompletableFuture.supplyAsync(
+                                () -> warmApproximated(world, chunkX, chunkZ, approximated, ttlMillis),
+                                chunkProcessor);
+                    }
+                    if (!generate) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+
+                    Runnable releaseGenerated = holdResident(world, chunkX, chunkZ);
+                    return chunkLoadScheduler.load(world, chunkX, chunkZ, true, ChunkLoadPriority.FAR_HORIZON)
+                            .thenCompose(generated -> warmLoaded(world, chunkX, chunkZ, generated, tiers,
+                                    ttlMillis, releaseGenerated))
+                            .whenComplete((ignored, throwable) -> {
+                                if (throwable != null) {
+                                    releaseGenerated.run();
+                                }
+                            });
+                })
+                .exceptionally(throwable -> {
+                    release.run();
+                    if (DEBUG) {
+                        logger.warn("[EH] Failed to warm chunk {},{}: {}", chunkX, chunkZ, throwable.getMessage());
+                    }
+                    return false;
+                });
+    }
+
+    /**
+     * Takes a residency reference on a chunk about to be loaded and returns
+     * the action that gives it back. The action releases at most once, so
+     * every path of an asynchronous load can call it.
+     */
+    private Runnable holdResident(World world, int chunkX, int chunkZ) {
+        if (!chunkResidencyManager.track(world, chunkX, chunkZ)) {
+            return NOT_RESIDENT;
+        }
+        AtomicBoolean held = new AtomicBoolean(true);
+        return () -> {
+            if (held.compareAndSet(true, false)) {
+                chunkResidencyManager.release(world, chunkX, chunkZ);
+            }
+        };
+    }
+
+    private CompletableFuture<Boolean> warmLoaded(World world, int chunkX, int chunkZ, Chunk chunk,
+            List<LodTier> tiers, long ttlMillis, Runnable release) {
+        Object nmsChunk = chunk != null && chunk.isLoaded() ? nmsChunkAccess.getNMSChunk(chunk) : null;
+        if (nmsChunk == null) {
+            release.run();
+            return CompletableFuture.completedFuture(false);
+        }
+        chunkResidencyManager.recordLoaded(world, chunkX, chunkZ, nmsChunk);
+
+        // Reducing a snapshot is done in place, so every tier gets its own
+        List<CompletableFuture<Object>> snapshots = new ArrayList<>(tiers.size());
+        for (int i = 0; i < tiers.size(); i++) {
+            snapshots.add(chunkSnapshotService.capture(world, chunkX, chunkZ, nmsChunk));
+        }
+        CompletableFuture.allOf(snapshots.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, throwable) -> release.run());
+
+        List<CompletableFuture<Boolean>> warmed = new ArrayList<>(tiers.size());
+        for (int i = 0; i < tiers.size(); i++) {
+            LodTier tier = tiers.get(i);
+            warmed.add(snapshots.get(i).thenApplyAsync(
+                    snapshot -> warmTier(world, chunkX, chunkZ, snapshot, tier, ttlMillis), chunkProcessor));
+        }
+        return CompletableFuture.allOf(warmed.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> warmed.stream().anyMatch(CompletableFuture::join));
+    }
+
+    private boolean warmApproximated(World world, int chunkX, int chunkZ, List<LodTier> tiers, long ttlMillis) {
+        boolean cached = false;
+        for (LodTier tier : tiers) {
+            Object snapshot = approximateChunkService.generate(world, chunkX, chunkZ);
+            if (snapshot == null) {
+                return cached;
+            }
+            cached |= warmTier(world, chunkX, chunkZ, snapshot, tier, ttlMillis);
+        }
+        return cached;
+    }
+
+    private boolean warmTier(World world, int chunkX, int chunkZ, Object snapshot, LodTier tier, long ttlMillis) {
+        EncodedChunk encoded = encode(world, snapshot, chunkX, chunkZ, tier, true);
+        if (encoded == null) {
+            return false;
+        }
+        encodedChunkCache.putWarm(world, chunkX, chunkZ, tier, encoded, ttlMillis);
+        return true;
+    }
+
+    /**
+     * Queues already encoded chunk packets, firing the load event first
+     */
+    private void queueChunkPacket(Player player, EncodedChunk encoded, long key, Set<Long> sentTracker,
+            FakeChunkLoadEvent.LoadSource loadSource) {
+        int chunkX = ChunkUtils.unpackX(key);
+        int chunkZ = ChunkUtils.unpackZ(key);
+
+        boolean isCancelled = chunkEventDispatcher.fireLoadEventAndWait(player, chunkX, chunkZ, player.getWorld(),
+                loadSource);
+        if (isCancelled) {
             generatingChunks.remove(key);
             return;
         }
 
+        enqueue(player, encoded, key, sentTracker);
+    }
+
+    private void enqueue(Player player, EncodedChunk encoded, long key, Set<Long> sentTracker) {
+        int chunkX = ChunkUtils.unpackX(key);
+        int chunkZ = ChunkUtils.unpackZ(key);
+
         PlayerChunkState chunkState = playerStateManager.getOrCreate(player.getUniqueId());
-        chunkState.getPendingPackets().add(packet);
+        chunkState.getPendingPackets().add(encoded.chunkPacket());
+        if (encoded.hasDeferredLight()) {
+            chunkState.queueLightPacket(key, encoded.lightPacket());
+        }
 
         sentTracker.add(key);
         generatingChunks.remove(key);
@@ -706,21 +1379,16 @@ public class FakeChunkService {
             return;
         }
 
-        Set<Long> fakeChunks = state.getFakeChunks();
-
-        if (sendPackets && !fakeChunks.isEmpty()) {
-            Set<Long> chunksCopy = new java.util.HashSet<>(fakeChunks);
-            for (Long key : chunksCopy) {
-                int chunkX = ChunkUtils.unpackX(key);
-                int chunkZ = ChunkUtils.unpackZ(key);
-
-                chunkEventDispatcher.fireUnloadEvent(player, chunkX, chunkZ, player.getWorld(), reason);
-
-                sendUnloadPacket(player, chunkX, chunkZ);
-            }
+        if (sendPackets) {
+            Set<Long> chunks = new HashSet<>(state.getFakeChunks());
+            chunks.addAll(state.getUnloadQueue());
+            unloadChunks(player, state, chunks, reason);
         }
 
         playerStateManager.remove(playerId);
+        if (reason == FakeChunkUnloadEvent.UnloadReason.PLAYER_QUIT) {
+            playerStateManager.forgetReleased(playerId);
+        }
     }
 
     public void clearPlayerFakeChunks(Player player, boolean sendPackets) {
@@ -732,16 +1400,66 @@ public class FakeChunkService {
     }
 
     /**
-     * Sends an unload packet to the client for a specific chunk
+     * Sends the queued unloads of every player, up to
+     * MAX_UNLOADS_PER_TICK chunks each
      */
+    private void drainUnloadQueues() {
+        for (UUID playerId : playerStateManager.getAllPlayerIds()) {
+            PlayerChunkState state = playerStateManager.get(playerId).orElse(null);
+            if (state == null || state.getUnloadQueue().isEmpty()) {
+                continue;
+            }
+
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null || !player.isOnline()) {
+                continue;
+            }
+
+            List<Long> keys = new ArrayList<>();
+            Long key;
+            while (keys.size() < MAX_UNLOADS_PER_TICK && (key = state.getUnloadQueue().poll()) != null) {
+                // Skip chunks sent again since they were dropped
+                if (!state.getFakeChunks().contains(key)) {
+                    keys.add(key);
+                }
+            }
+            unloadChunks(player, state, keys, FakeChunkUnloadEvent.UnloadReason.DISTANCE);
+        }
+    }
+
     /**
-     * Sends an unload packet to the client for a specific chunk
+     * Unloads chunks from the client with one batched event and a single
+     * flush of all unload packets
      */
-    private void sendUnloadPacket(Player player, int chunkX, int chunkZ) {
+    private void unloadChunks(Player player, PlayerChunkState state, Collection<Long> keys,
+            FakeChunkUnloadEvent.UnloadReason reason) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        // Light still pending for these chunks would otherwise follow their unload
+        state.dropLightPackets(keys);
+
+        List<Object> packets = new ArrayList<>(keys.size());
+        List<ChunkCoordinate> chunks = new ArrayList<>(keys.size());
+        for (long key : keys) {
+            int chunkX = ChunkUtils.unpackX(key);
+            int chunkZ = ChunkUtils.unpackZ(key);
+            playerStateManager.markReleased(player.getUniqueId(), key);
+            packets.add(nmsPacketAccess.createUnloadPacket(chunkX, chunkZ));
+            chunks.add(new ChunkCoordinate(chunkX, chunkZ));
+        }
+
+        chunkEventDispatcher.fireBatchUnloadEvent(player, chunks, player.getWorld(), reason);
+
         try {
-            Object packet = nmsPacketAccess.createUnloadPacket(chunkX, chunkZ);
-            nmsPacketAccess.sendPacket(player, packet);
+            nmsPacketAccess.sendPackets(player, packets);
+            unloadsSent.addAndGet(packets.size());
+            unloadFlushes.incrementAndGet();
         } catch (Exception e) {
+            if (DEBUG) {
+                logger.warn("[EH] Failed to send {} unload packets to {}: {}", packets.size(), player.getName(),
+                        e.getMessage());
+            }
         }
     }
 
@@ -803,12 +1521,6 @@ public class FakeChunkService {
      */
     private final ExecutorService chunkProcessor;
 
-    /**
-     * Cache for NMS chunks already loaded in memory
-     * Reuses chunks without regenerating them
-     */
-    private final Map<Long, Object> chunkMemoryCache;
-
     /**
      * Checks if fake chunks are enabled for a specific world
      * 
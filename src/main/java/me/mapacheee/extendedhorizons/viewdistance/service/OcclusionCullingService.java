@@ -2,29 +2,97 @@ package me.mapacheee.extendedhorizons.viewdistance.service;
 
 import com.google.inject.Inject;
 import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
 import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.TerrainHeightGrid;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerChunkState;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
 
 import org.bukkit.World.Environment;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 public class OcclusionCullingService {
 
+    private static final int DEFAULT_MARGIN_BLOCKS = 8;
+    private static final int DEFAULT_BUCKET_SIZE = 8;
+    // Half a chunk, so diagonal rays cannot skip over a chunk
+    private static final double RAY_STEP = 8.0;
+    // Chunks this close are never treated as hidden
+    private static final double MIN_DISTANCE = 32.0;
+    private static final int MAX_SKY_LIGHT = 15;
+
     private final ConfigService configService;
+    private final TerrainHeightGrid terrainHeightGrid;
+
+    private final AtomicLong checks = new AtomicLong(0);
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong hidden = new AtomicLong(0);
+    private final AtomicLong revealed = new AtomicLong(0);
+    private final AtomicLong pauses = new AtomicLong(0);
+    private final AtomicLong resumes = new AtomicLong(0);
+
+    /**
+     * Players whose horizon is paused because they are underground.
+     */
+    private final Set<UUID> pausedPlayers = ConcurrentHashMap.newKeySet();
 
     @Inject
-    public OcclusionCullingService(ConfigService configService) {
+    public OcclusionCullingService(ConfigService configService, TerrainHeightGrid terrainHeightGrid) {
         this.configService = configService;
+        this.terrainHeightGrid = terrainHeightGrid;
     }
 
     /**
      * Checks if the player is occluded (underground or in a closed space)
      * based on configuration thresholds.
      *
+     * A player becomes occluded once the sky light drops below the threshold
+     * and stays occluded until it reaches the threshold plus the hysteresis,
+     * so walking along a cave mouth does not flip the state every step.
+     * While occluded the horizon is paused, not cleared.
+     *
      * @param player The player to check
-     * @return true if the player is occluded and fake chunks should be hidden
+     * @return true if the player is occluded and no new fake chunks should be
+     *         sent
      */
     public boolean isOccluded(Player player) {
+        boolean occluded = checkOccluded(player);
+        if (occluded) {
+            if (pausedPlayers.add(player.getUniqueId())) {
+                pauses.incrementAndGet();
+            }
+        } else if (pausedPlayers.remove(player.getUniqueId())) {
+            resumes.incrementAndGet();
+        }
+        return occluded;
+    }
+
+    /**
+     * Checks whether the horizon of a player is paused by the last occlusion
+     * check, without checking again.
+     */
+    public boolean isPaused(UUID playerId) {
+        return pausedPlayers.contains(playerId);
+    }
+
+    public void forget(UUID playerId) {
+        pausedPlayers.remove(playerId);
+    }
+
+    private boolean checkOccluded(Player player) {
         var config = configService.get().performance().occlusionCulling();
 
         if (config == null || !config.enabled()) {
@@ -42,6 +110,188 @@ public class OcclusionCullingService {
         }
 
         byte skyLight = player.getEyeLocation().getBlock().getLightFromSky();
+        if (pausedPlayers.contains(player.getUniqueId())) {
+            int resumeLevel = Math.min(MAX_SKY_LIGHT,
+                    config.skyLightThreshold() + Math.max(0, config.skyLightHysteresis()));
+            return skyLight < resumeLevel;
+        }
         return skyLight < config.skyLightThreshold();
     }
+
+    /**
+     * Checks whether chunk heights should be tracked for terrain occlusion.
+     */
+    public boolean isTerrainEnabled() {
+        MainConfig.PerformanceConfig.OcclusionCullingConfig.TerrainOcclusionConfig config = getTerrainConfig();
+        return config != null && config.enabled();
+    }
+
+    /**
+     * Checks if terrain between the player and a horizon chunk definitely
+     * hides the chunk.
+     *
+     * A ray is cast from the player's eyes to the top of the chunk over the
+     * coarse height grid; the chunk is hidden if a chunk in between rises
+     * above the ray by more than the configured margin. Chunks with unknown
+     * heights never hide anything. Chunks in between block the ray only up to
+     * their low surface height, so a lone tree or spire does not hide what is
+     * behind it, while the target is visible as soon as its top is. Results
+     * are reused while the player stays in the same position bucket.
+     *
+     * The eye position is the one sampled on the player's thread, so this
+     * can run on any thread; nothing is hidden until a sample exists.
+     */
+    public boolean isHidden(Player player, PlayerChunkState state, int chunkX, int chunkZ) {
+        MainConfig.PerformanceConfig.OcclusionCullingConfig.TerrainOcclusionConfig config = getTerrainConfig();
+        if (config == null || !config.enabled() || player.getWorld().getEnvironment() == Environment.NETHER) {
+            return false;
+        }
+
+        Vector eye = state.getEyePosition();
+        if (eye == null) {
+            return false;
+        }
+        syncBucket(state, eye, config);
+
+        long key = ChunkUtils.packChunkKey(chunkX, chunkZ);
+        Boolean cached = state.getOcclusionResults().get(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+
+        boolean result = castRay(player.getWorld(), eye, chunkX, chunkZ, marginOf(config));
+        state.getOcclusionResults().put(key, result);
+        checks.incrementAndGet();
+        if (result) {
+            hidden.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Re-checks the player's occluded chunks after the player moved to
+     * another position bucket.
+     *
+     * @return Chunks that came into sight and need their real tier
+     */
+    public List<Long> reveal(Player player, PlayerChunkState state) {
+        if (state.getOccludedChunks().isEmpty()) {
+            return List.of();
+        }
+
+        MainConfig.PerformanceConfig.OcclusionCullingConfig.TerrainOcclusionConfig config = getTerrainConfig();
+        if (config == null || !config.enabled()) {
+            List<Long> all = new ArrayList<>(state.getOccludedChunks());
+            state.getOccludedChunks().clear();
+            return all;
+        }
+
+        Vector eye = state.getEyePosition();
+        if (eye == null) {
+            return List.of();
+        }
+        syncBucket(state, eye, config);
+        if (!state.isOcclusionRecheck()) {
+            return List.of();
+        }
+        state.setOcclusionRecheck(false);
+
+        List<Long> visible = new ArrayList<>();
+        Iterator<Long> iterator = state.getOccludedChunks().iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next();
+            if (!isHidden(player, state, ChunkUtils.unpackX(key), ChunkUtils.unpackZ(key))) {
+                iterator.remove();
+                visible.add(key);
+            }
+        }
+        revealed.addAndGet(visible.size());
+        return visible;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("checks", checks.get());
+        stats.put("cache_hits", cacheHits.get());
+        stats.put("hidden", hidden.get());
+        stats.put("revealed", revealed.get());
+        stats.put("tracked_heights", (long) terrainHeightGrid.size());
+        stats.put("cave_pauses", pauses.get());
+        stats.put("cave_resumes", resumes.get());
+        stats.put("cave_paused_players", (long) pausedPlayers.size());
+        return stats;
+    }
+
+    /**
+     * Drops cached results once the player leaves their position bucket and
+     * flags the occluded chunks for a new check.
+     */
+    private void syncBucket(PlayerChunkState state, Vector eye,
+            MainConfig.PerformanceConfig.OcclusionCullingConfig.TerrainOcclusionConfig config) {
+        int size = config.positionBucketSize() > 0 ? config.positionBucketSize() : DEFAULT_BUCKET_SIZE;
+        long bucket = ((long) (Math.floorDiv(eye.getBlockX(), size) & 0x1FFFFF) << 42)
+                | ((long) (Math.floorDiv(eye.getBlockZ(), size) & 0x1FFFFF) << 21)
+                | (Math.floorDiv(eye.getBlockY(), size) & 0x1FFFFF);
+        if (state.getOcclusionBucket() == bucket) {
+            return;
+        }
+        state.getOcclusionResults().clear();
+        state.setOcclusionBucket(bucket);
+        state.setOcclusionRecheck(true);
+    }
+
+    private boolean castRay(World world, Vector eye, int chunkX, int chunkZ, int margin) {
+        int targetHeight = terrainHeightGrid.getTop(world, chunkX, chunkZ);
+        if (targetHeight == TerrainHeightGrid.UNKNOWN) {
+            return false;
+        }
+
+        double eyeX = eye.getX();
+        double eyeY = eye.getY();
+        double eyeZ = eye.getZ();
+        double dx = (chunkX << 4) + 8 - eyeX;
+        double dz = (chunkZ << 4) + 8 - eyeZ;
+        double distance = Math.sqrt(dx * dx + dz * dz);
+        if (distance < MIN_DISTANCE) {
+            return false;
+        }
+
+        int eyeChunkX = eye.getBlockX() >> 4;
+        int eyeChunkZ = eye.getBlockZ() >> 4;
+        double sightSlope = (targetHeight + margin - eyeY) / distance;
+        double stepX = dx / distance;
+        double stepZ = dz / distance;
+
+        int lastX = eyeChunkX;
+        int lastZ = eyeChunkZ;
+        for (double t = RAY_STEP; t < distance; t += RAY_STEP) {
+            int sampleX = (int) Math.floor(eyeX + stepX * t) >> 4;
+            int sampleZ = (int) Math.floor(eyeZ + stepZ * t) >> 4;
+            if (sampleX == lastX && sampleZ == lastZ) {
+                continue;
+            }
+            lastX = sampleX;
+            lastZ = sampleZ;
+            if (sampleX == chunkX && sampleZ == chunkZ) {
+                break;
+            }
+
+            int height = terrainHeightGrid.getLow(world, sampleX, sampleZ);
+            if (height != TerrainHeightGrid.UNKNOWN && height - eyeY > sightSlope * t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int marginOf(MainConfig.PerformanceConfig.OcclusionCullingConfig.TerrainOcclusionConfig config) {
+        return config.marginBlocks() >= 0 ? config.marginBlocks() : DEFAULT_MARGIN_BLOCKS;
+    }
+
+    private MainConfig.PerformanceConfig.OcclusionCullingConfig.TerrainOcclusionConfig getTerrainConfig() {
+        MainConfig.PerformanceConfig.OcclusionCullingConfig config = configService.get().performance()
+                .occlusionCulling();
+        return config != null ? config.terrain() : null;
+    }
 }
@@ -7,14 +7,21 @@ import me.mapacheee.extendedhorizons.shared.service.ConfigService;
 import me.mapacheee.extendedhorizons.shared.service.MessageService;
 import me.mapacheee.extendedhorizons.shared.storage.PlayerStorageService;
 import me.mapacheee.extendedhorizons.viewdistance.entity.PlayerView;
-import me.mapacheee.extendedhorizons.viewdistance.listener.PlayerMovementListener;
-
+import me.mapacheee.extendedhorizons.viewdistance.service.engine.NativeSendDistanceEngine;
+import me.mapacheee.extendedhorizons.viewdistance.service.engine.ViewDistanceEngine;
+import me.mapacheee.extendedhorizons.viewdistance.service.load.ClusteredViewPlanner;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.MovementSampler;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerStateManager;
+
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
 
 import java.util.*;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import me.mapacheee.extendedhorizons.shared.storage.PlayerData;
 import me.mapacheee.extendedhorizons.shared.config.MainConfig.WorldConfig;
 import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
@@ -37,7 +44,12 @@ public class ViewDistanceService {
     private final LuckPermsService luckPermsService;
     private final MessageService messageService;
     private final OcclusionCullingService occlusionCullingService;
-    private final PlayerMovementListener movementListener;
+    private final MovementSampler movementSampler;
+    private final NativeSendDistanceEngine nativeEngine;
+    private final ClusteredViewPlanner clusteredViewPlanner;
+    private final PlayerStateManager playerStateManager;
+    private final AtomicLong startedPlans = new AtomicLong(0);
+    private final AtomicLong supersededPlans = new AtomicLong(0);
 
     @Inject
     public ViewDistanceService(ConfigService configService,
@@ -48,7 +60,10 @@ public class ViewDistanceService {
             LuckPermsService luckPermsService,
             MessageService messageService,
             OcclusionCullingService occlusionCullingService,
-            PlayerMovementListener movementListener) {
+            MovementSampler movementSampler,
+            NativeSendDistanceEngine nativeEngine,
+            ClusteredViewPlanner clusteredViewPlanner,
+            PlayerStateManager playerStateManager) {
         this.configService = configService;
         this.storageService = storageService;
         this.chunkService = chunkService;
@@ -57,7 +72,10 @@ public class ViewDistanceService {
         this.luckPermsService = luckPermsService;
         this.messageService = messageService;
         this.occlusionCullingService = occlusionCullingService;
-        this.movementListener = movementListener;
+        this.movementSampler = movementSampler;
+        this.nativeEngine = nativeEngine;
+        this.clusteredViewPlanner = clusteredViewPlanner;
+        this.playerStateManager = playerStateManager;
     }
 
     /**
@@ -65,11 +83,15 @@ public class ViewDistanceService {
      */
     public void handlePlayerJoin(Player player) {
         fakeChunkService.onPlayerJoin(player);
+        movementSampler.start(player);
 
         if (!isPluginEnabledForWorld(player.getWorld())) {
             return;
         }
 
+        chunkService.requestRealView(player.getWorld(), player.getLocation().getBlockX() >> 4,
+                player.getLocation().getBlockZ() >> 4);
+
         storageService.getPlayerData(player.getUniqueId()).thenAccept(playerData -> {
             int fallbackDefault = configService.get().viewDistance().defaultDistance();
             int clientDistance = player.getClientViewDistance();
@@ -82,17 +104,22 @@ public class ViewDistanceService {
             PlayerView playerView = new PlayerView(player, clamped);
             playerViews.put(player.getUniqueId(), playerView);
 
-            packetService.ensureClientRadius(player, clamped);
-            packetService.ensureClientSimulationDistance(player, clamped);
+            if (isNativeEngine()) {
+                player.getScheduler().run(ExtendedHorizonsPlugin.getInstance(),
+                        (task) -> updatePlayerView(player), null);
+            } else {
+                packetService.ensureClientRadius(player, clamped);
+                packetService.ensureClientSimulationDistance(player, clamped);
 
-            player.getScheduler().runDelayed(ExtendedHorizonsPlugin.getInstance(),
-                    (task) -> {
-                        if (!player.isOnline())
-                            return;
+                player.getScheduler().runDelayed(ExtendedHorizonsPlugin.getInstance(),
+                        (task) -> {
+                            if (!player.isOnline())
+                                return;
 
-                        packetService.ensureClientRadius(player, clamped);
-                        packetService.ensureClientSimulationDistance(player, clamped);
-                    }, null, 5L);
+                            packetService.ensureClientRadius(player, clamped);
+                            packetService.ensureClientSimulationDistance(player, clamped);
+                        }, null, 5L);
+            }
 
             var msgCfg = configService.get().messages();
             if (msgCfg != null && msgCfg.welcomeMessage() != null && msgCfg.welcomeMessage().enabled()) {
@@ -108,8 +135,10 @@ public class ViewDistanceService {
                         if (!player.isOnline())
                             return;
 
-                        packetService.ensureClientRadius(player, clamped);
-                        packetService.ensureClientSimulationDistance(player, clamped);
+                        if (!isNativeEngine()) {
+                            packetService.ensureClientRadius(player, clamped);
+                            packetService.ensureClientSimulationDistance(player, clamped);
+                        }
                         updatePlayerView(player);
                     }, null, 70L);
         });
@@ -128,7 +157,10 @@ public class ViewDistanceService {
         fakeChunkService.clearPlayerFakeChunks(player, true,
                 FakeChunkUnloadEvent.UnloadReason.PLAYER_QUIT);
         packetService.cleanupPlayer(player);
-        movementListener.cleanupPlayer(player.getUniqueId());
+        nativeEngine.remove(player.getUniqueId());
+        occlusionCullingService.forget(player.getUniqueId());
+        movementSampler.stop(player.getUniqueId());
+        clusteredViewPlanner.forget(player.getUniqueId());
     }
 
     /**
@@ -156,8 +188,10 @@ public class ViewDistanceService {
         storageService.savePlayerData(
                 new PlayerData(player.getUniqueId(), clamped));
 
-        packetService.ensureClientRadius(player, clamped);
-        packetService.ensureClientSimulationDistance(player, clamped);
+        if (!isNativeEngine()) {
+            packetService.ensureClientRadius(player, clamped);
+            packetService.ensureClientSimulationDistance(player, clamped);
+        }
 
         updatePlayerView(player);
     }
@@ -166,23 +200,35 @@ public class ViewDistanceService {
      * Returns allowed maximum distance for this player after LuckPerms check.
      */
     public int getAllowedMax(Player player) {
-        String worldName = player.getWorld().getName();
-
-        Map<String, WorldConfig> worldSettings = configService
-                .get().worldSettings();
+        return getAllowedMax(player, player.getWorld());
+    }
 
-        int configMax;
-        if (worldSettings != null && worldSettings.containsKey(worldName)) {
-            configMax = worldSettings.get(worldName).maxDistance();
-        } else {
-            configMax = configService.get().viewDistance().maxDistance();
-        }
+    /**
+     * Returns allowed maximum distance for this player in a world after
+     * LuckPerms check, e.g. for a world the player is about to enter.
+     */
+    public int getAllowedMax(Player player, World world) {
+        int configMax = getWorldMaxDistance(world);
 
         return luckPermsService != null && luckPermsService.isEnabled()
                 ? Math.min(configMax, luckPermsService.resolveMaxDistance(player, configMax))
                 : configMax;
     }
 
+    /**
+     * Returns the maximum distance configured for a world, before permission
+     * limits.
+     */
+    public int getWorldMaxDistance(World world) {
+        Map<String, WorldConfig> worldSettings = configService
+                .get().worldSettings();
+
+        if (worldSettings != null && worldSettings.containsKey(world.getName())) {
+            return worldSettings.get(world.getName()).maxDistance();
+        }
+        return configService.get().viewDistance().maxDistance();
+    }
+
     private int clampDistance(Player player, int value) {
         int minViewDistance = org.bukkit.Bukkit.getServer().getViewDistance();
         int max = getAllowedMax(player);
@@ -198,6 +244,16 @@ public class ViewDistanceService {
     public void updatePlayerView(Player player) {
         if (!player.isOnline())
             return;
+
+        if (isNativeEngine()) {
+            updateNativeView(player);
+            return;
+        }
+
+        if (nativeEngine.isActive(player.getUniqueId())) {
+            nativeEngine.reset(player);
+        }
+
         if (!isPluginEnabledForWorld(player.getWorld())) {
             int serverDist = org.bukkit.Bukkit.getViewDistance();
             packetService.ensureClientRadius(player, serverDist);
@@ -206,11 +262,8 @@ public class ViewDistanceService {
             return;
         }
 
+        // Paused, not cleared: the client keeps its horizon and sends resume from the tracked set
         if (occlusionCullingService.isOccluded(player)) {
-            int serverDist = org.bukkit.Bukkit.getViewDistance();
-            packetService.ensureClientRadius(player, serverDist);
-            packetService.ensureClientSimulationDistance(player, serverDist);
-            fakeChunkService.clearPlayerFakeChunks(player);
             return;
         }
 
@@ -246,23 +299,13 @@ public class ViewDistanceService {
         double borderCenterZ = border.getCenter().getZ();
         double borderSize = border.getSize();
         int targetDistance = playerView.getTargetDistance();
+        long center = captureCenter(player);
+        long plan = playerView.nextPlan();
+        startedPlans.incrementAndGet();
 
         org.bukkit.Bukkit.getAsyncScheduler().runNow(ExtendedHorizonsPlugin.getInstance(),
-                (task) -> {
-                    if (!player.isOnline())
-                        return;
-
-                    Set<Long> allNeededChunks = chunkService.computeCircularKeys(player, targetDistance);
-                    ChunkClassification classification = classifyChunks(player, allNeededChunks, borderCenterX,
-                            borderCenterZ, borderSize);
-
-                    if (configService.get().performance().fakeChunks().enabled()
-                            && fakeChunkService.isFakeChunksEnabledForWorld(player.getWorld())
-                            && !classification.fakeChunks.isEmpty()) {
-                        fakeChunkService.sendFakeChunks(player, classification.fakeChunks, borderCenterX, borderCenterZ,
-                                borderSize);
-                    }
-                });
+                (task) -> planAndSend(player, playerView, plan, center, targetDistance, borderCenterX,
+                        borderCenterZ, borderSize));
     }
 
     /**
@@ -272,6 +315,11 @@ public class ViewDistanceService {
         if (!player.isOnline())
             return;
 
+        // Paper follows the player by itself in native mode
+        if (isNativeEngine()) {
+            return;
+        }
+
         if (!isPluginEnabledForWorld(player.getWorld())) {
             return;
         }
@@ -294,23 +342,145 @@ public class ViewDistanceService {
         double borderCenterX = border.getCenter().getX();
         double borderCenterZ = border.getCenter().getZ();
         double borderSize = border.getSize();
+        long center = captureCenter(player);
+        long plan = playerView.nextPlan();
+        startedPlans.incrementAndGet();
 
         org.bukkit.Bukkit.getAsyncScheduler().runNow(ExtendedHorizonsPlugin.getInstance(),
-                (task) -> {
-                    if (!player.isOnline())
-                        return;
-
-                    Set<Long> allNeededChunks = chunkService.computeCircularKeys(player, baseTarget);
-                    ChunkClassification classification = classifyChunks(player, allNeededChunks, borderCenterX,
-                            borderCenterZ, borderSize);
-
-                    if (configService.get().performance().fakeChunks().enabled()
-                            && fakeChunkService.isFakeChunksEnabledForWorld(player.getWorld())
-                            && !classification.fakeChunks.isEmpty()) {
-                        fakeChunkService.sendFakeChunks(player, classification.fakeChunks, borderCenterX, borderCenterZ,
-                                borderSize);
-                    }
-                });
+                (task) -> planAndSend(player, playerView, plan, center, baseTarget, borderCenterX,
+                        borderCenterZ, borderSize));
+    }
+
+    /**
+     * Reads the player's chunk on the player's region thread and caches it
+     * on the player's state, so the plan and the fake chunk tasks running
+     * off that thread never read the entity.
+     *
+     * @return The packed chunk key the plan is computed around
+     */
+    private long captureCenter(Player player) {
+        Location location = player.getLocation();
+        long center = ChunkUtils.packChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        playerStateManager.getOrCreate(player.getUniqueId()).setCenterChunk(center);
+        return center;
+    }
+
+    /**
+     * Applies the player's view distance through Paper's send view-distance.
+     * Permission limits and occlusion culling apply the same way as for fake
+     * chunks: underground the send distance is left as it is, so the horizon
+     * is neither purged on entering a cave nor resent on leaving it.
+     */
+    private void updateNativeView(Player player) {
+        if (!isPluginEnabledForWorld(player.getWorld())) {
+            nativeEngine.reset(player);
+            return;
+        }
+        if (occlusionCullingService.isOccluded(player)) {
+            return;
+        }
+
+        PlayerView playerView = playerViews.get(player.getUniqueId());
+        if (playerView == null)
+            return;
+
+        int clampedTarget = clampDistance(player, playerView.getTargetDistance());
+        if (clampedTarget != playerView.getTargetDistance()) {
+            playerView.setTargetDistance(clampedTarget);
+        }
+
+        nativeEngine.apply(player, clampedTarget);
+    }
+
+    /**
+     * Computes a view plan and applies it unless a newer plan replaced it.
+     * Plans of one player are computed and applied one at a time under the
+     * player's view, so a delta plan is always applied on top of the plan it
+     * was computed against.
+     *
+     * @param center The player's chunk, read on the player's region thread
+     */
+    private void planAndSend(Player player, PlayerView playerView, long plan, long center, int distance,
+            double borderCenterX, double borderCenterZ, double borderSize) {
+        if (!player.isOnline() || isSuperseded(playerView, plan))
+            return;
+
+        if (!configService.get().performance().fakeChunks().enabled()
+                || !fakeChunkService.isFakeChunksEnabledForWorld(player.getWorld()))
+            return;
+
+        synchronized (playerView) {
+            if (isSuperseded(playerView, plan))
+                return;
+
+            ClusteredViewPlanner.ViewPlan fakeChunks = planFakeChunks(player, center, distance, borderCenterX,
+                    borderCenterZ, borderSize);
+
+            if (isSuperseded(playerView, plan)) {
+                // This plan is never applied, so the next one cannot be a delta of it
+                clusteredViewPlanner.forget(player.getUniqueId());
+                return;
+            }
+
+            if (!fakeChunks.isEmpty()) {
+                sendPlan(player, fakeChunks, distance, borderCenterX, borderCenterZ, borderSize);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a newer plan replaced this one while it was waiting or
+     * being computed, and counts it if so.
+     */
+    private boolean isSuperseded(PlayerView playerView, long plan) {
+        if (playerView.isCurrentPlan(plan)) {
+            return false;
+        }
+        supersededPlans.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gets how many view plans were started and how many were dropped because
+     * a newer plan replaced them.
+     */
+    public Map<String, Long> getPlanStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("plans", startedPlans.get());
+        stats.put("superseded_plans", supersededPlans.get());
+        return stats;
+    }
+
+    /**
+     * Computes the fake chunks of a player's view. With the cluster planner
+     * enabled, the view is shared with nearby players and, once the player
+     * has received a full plan, only the change since the previous plan is
+     * returned.
+     */
+    private ClusteredViewPlanner.ViewPlan planFakeChunks(Player player, long center, int distance,
+            double borderCenterX, double borderCenterZ, double borderSize) {
+        int centerX = ChunkUtils.unpackX(center);
+        int centerZ = ChunkUtils.unpackZ(center);
+        if (clusteredViewPlanner.isEnabled()) {
+            boolean forceFull = fakeChunkService.needsFullPlan(player.getUniqueId());
+            return clusteredViewPlanner.plan(player.getUniqueId(), player.getWorld(), centerX, centerZ, distance,
+                    fakeChunkService.getServerViewDistance(), borderCenterX, borderCenterZ, borderSize, forceFull);
+        }
+
+        Set<Long> allNeededChunks = chunkService.computeCircularKeys(player.getWorld(), centerX, centerZ, distance);
+        return ClusteredViewPlanner.ViewPlan.full(classifyChunks(centerX, centerZ, allNeededChunks, borderCenterX,
+                borderCenterZ, borderSize).fakeChunks);
+    }
+
+    private void sendPlan(Player player, ClusteredViewPlanner.ViewPlan plan, int distance, double borderCenterX,
+            double borderCenterZ, double borderSize) {
+        if (plan.full()) {
+            fakeChunkService.sendFakeChunks(player, plan.chunks(), distance, borderCenterX, borderCenterZ,
+                    borderSize);
+        } else {
+            fakeChunkService.sendFakeChunkDelta(player, plan.added(), plan.removed(), distance, borderCenterX,
+                    borderCenterZ, borderSize);
+        }
     }
 
     /**
@@ -318,11 +488,9 @@ public class ViewDistanceService {
      * server view-distance)
      * Also filters out chunks outside the world border.
      */
-    private ChunkClassification classifyChunks(Player player, Set<Long> allChunks, double borderCenterX,
-            double borderCenterZ, double borderSize) {
+    private ChunkClassification classifyChunks(int playerChunkX, int playerChunkZ, Set<Long> allChunks,
+            double borderCenterX, double borderCenterZ, double borderSize) {
         int serverViewDistance = fakeChunkService.getServerViewDistance();
-        int playerChunkX = player.getLocation().getBlockX() >> 4;
-        int playerChunkZ = player.getLocation().getBlockZ() >> 4;
 
         Set<Long> realChunks = new HashSet<>();
         Set<Long> fakeChunks = new HashSet<>();
@@ -369,7 +537,7 @@ public class ViewDistanceService {
     /**
      * Checks if the plugin is enabled for the specific world
      */
-    private boolean isPluginEnabledForWorld(org.bukkit.World world) {
+    public boolean isPluginEnabledForWorld(org.bukkit.World world) {
         String worldName = world.getName();
         var worldSettings = configService.get().worldSettings();
 
@@ -380,6 +548,18 @@ public class ViewDistanceService {
         return configService.get().performance().fakeChunks().enabled();
     }
 
+    /**
+     * Gets the engine configured to deliver chunks beyond the server
+     * view-distance.
+     */
+    public ViewDistanceEngine getEngine() {
+        return ViewDistanceEngine.fromConfig(configService.get().viewDistance().engine());
+    }
+
+    public boolean isNativeEngine() {
+        return getEngine() == ViewDistanceEngine.PAPER_NATIVE;
+    }
+
     public PlayerView getPlayerView(UUID uuid) {
         return playerViews.get(uuid);
     }
@@ -0,0 +1,216 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.cache;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.bukkit.World;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of loaded NMS chunks reused by the fake chunk pipeline.
+ *
+ * Entries are keyed by world and chunk and follow the server chunk
+ * lifecycle: an entry is dropped as soon as the server unloads its chunk, so
+ * the cache never keeps an unloaded chunk reachable. Chunks are held through
+ * soft (or weak) references, letting the garbage collector reclaim them under
+ * memory pressure even while they are cached.
+ */
+@Service
+public class ChunkMemoryCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Reference<?>, CacheKey> keysByReference = new HashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private long heldBytes = 0;
+    private final AtomicLong unloadEvictions = new AtomicLong(0);
+    private final AtomicLong capacityEvictions = new AtomicLong(0);
+    private final AtomicLong collectedByGc = new AtomicLong(0);
+
+    private record CacheKey(UUID worldId, long chunkKey) {
+    }
+
+    private record Entry(Reference<Object> reference, long bytes) {
+    }
+
+    @Inject
+    public ChunkMemoryCache(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    @OnDisable
+    public void shutdown() {
+        clear();
+    }
+
+    /**
+     * Gets a cached chunk, or null if it is not cached or was reclaimed.
+     */
+    public synchronized Object get(World world, int chunkX, int chunkZ) {
+        drainCollected();
+
+        CacheKey key = new CacheKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ));
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        Object chunk = entry.reference().get();
+        if (chunk == null) {
+            removeEntry(key);
+            collectedByGc.incrementAndGet();
+        }
+        return chunk;
+    }
+
+    /**
+     * Caches a loaded chunk, evicting the least recently used entries when the
+     * configured size is exceeded.
+     */
+    public synchronized void put(World world, int chunkX, int chunkZ, Object chunk) {
+        drainCollected();
+
+        CacheKey key = new CacheKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ));
+        removeEntry(key);
+
+        Reference<Object> reference = useWeakReferences()
+                ? new WeakReference<>(chunk, collected)
+                : new SoftReference<>(chunk, collected);
+        long bytes = nmsChunkAccess.estimateMemoryUsage(chunk);
+
+        entries.put(key, new Entry(reference, bytes));
+        keysByReference.put(reference, key);
+        heldBytes += bytes;
+
+        int maxEntries = getMaxEntries();
+        Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            Map.Entry<CacheKey, Entry> eldest = iterator.next();
+            iterator.remove();
+            forget(eldest.getValue());
+            capacityEvictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops a chunk the server is unloading.
+     */
+    public synchronized void invalidate(World world, int chunkX, int chunkZ) {
+        if (removeEntry(new CacheKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ)))) {
+            unloadEvictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops every chunk of a world that is being unloaded.
+     */
+    public synchronized void invalidateWorld(World world) {
+        UUID worldId = world.getUID();
+        Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<CacheKey, Entry> entry = iterator.next();
+            if (entry.getKey().worldId().equals(worldId)) {
+                iterator.remove();
+                forget(entry.getValue());
+                unloadEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByReference.clear();
+        heldBytes = 0;
+    }
+
+    public synchronized int size() {
+        drainCollected();
+        return entries.size();
+    }
+
+    /**
+     * Gets the estimated heap held by cached chunks, in bytes.
+     */
+    public synchronized long getHeldBytes() {
+        drainCollected();
+        return heldBytes;
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        drainCollected();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) entries.size());
+        stats.put("held_kb", heldBytes / 1024);
+        stats.put("unload_evictions", unloadEvictions.get());
+        stats.put("capacity_evictions", capacityEvictions.get());
+        stats.put("collected_by_gc", collectedByGc.get());
+        return stats;
+    }
+
+    private boolean removeEntry(CacheKey key) {
+        Entry removed = entries.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        forget(removed);
+        return true;
+    }
+
+    private void forget(Entry entry) {
+        keysByReference.remove(entry.reference());
+        heldBytes -= entry.bytes();
+    }
+
+    /**
+     * Removes entries whose chunk was reclaimed by the garbage collector.
+     */
+    private void drainCollected() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            CacheKey key = keysByReference.get(reference);
+            if (key == null) {
+                continue;
+            }
+
+            Entry entry = entries.get(key);
+            if (entry != null && entry.reference() == reference) {
+                entries.remove(key);
+                forget(entry);
+                collectedByGc.incrementAndGet();
+            } else {
+                keysByReference.remove(reference);
+            }
+        }
+    }
+
+    private boolean useWeakReferences() {
+        MainConfig.PerformanceConfig.FakeChunksConfig config = configService.get().performance().fakeChunks();
+        return config.memoryCacheReferences() != null
+                && config.memoryCacheReferences().equalsIgnoreCase("weak");
+    }
+
+    private int getMaxEntries() {
+        int configured = configService.get().performance().fakeChunks().maxMemoryCacheSize();
+        return configured > 0 ? configured : DEFAULT_MAX_ENTRIES;
+    }
+}
@@ -0,0 +1,198 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.cache;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.EncodedChunk;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LodTier;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared packet templates for empty and uniform horizon chunks.
+ *
+ * Chunks whose every section holds a single block, such as void and sky
+ * chunks, encode to the same packet apart from their coordinates. The first
+ * time such a chunk is encoded, its packet body is kept as a template and the
+ * chunk is mapped to it. Later requests for the chunk build the packet from
+ * the template with the coordinates patched in, skipping both the chunk load
+ * and the encoding.
+ *
+ * Mappings expire after the packet cache TTL and are dropped when their chunk
+ * is unloaded with unsaved changes. Chunks loaded on the server are never
+ * served from a template, since they can change at any time; they are cheap
+ * to read from memory anyway.
+ */
+@Service
+public class ChunkTemplateCache {
+
+    private static final int DEFAULT_MAX_TEMPLATES = 64;
+    private static final int DEFAULT_MAX_CHUNKS = 100_000;
+    private static final int DEFAULT_TTL_SECONDS = 30;
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+    private final NMSPacketAccess nmsPacketAccess;
+
+    private final LinkedHashMap<Long, byte[]> templates = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<ChunkRef, Mapping> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong recorded = new AtomicLong(0);
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+    private final AtomicLong expirations = new AtomicLong(0);
+
+    private record ChunkRef(UUID worldId, long chunkKey, LodTier tier) {
+    }
+
+    private record Mapping(long templateId, long expiresAt) {
+    }
+
+    @Inject
+    public ChunkTemplateCache(ConfigService configService, NMSChunkAccess nmsChunkAccess,
+            NMSPacketAccess nmsPacketAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+        this.nmsPacketAccess = nmsPacketAccess;
+    }
+
+    @OnDisable
+    public synchronized void clear() {
+        templates.clear();
+        chunks.clear();
+    }
+
+    /**
+     * Builds the packets of a chunk from its template, or returns null if the
+     * chunk is not mapped to one.
+     */
+    public EncodedChunk instantiate(World world, int chunkX, int chunkZ, LodTier tier) {
+        if (world.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+
+        byte[] body;
+        synchronized (this) {
+            ChunkRef ref = new ChunkRef(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ), tier);
+            Mapping mapping = chunks.get(ref);
+            if (mapping == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() > mapping.expiresAt()) {
+                chunks.remove(ref);
+                expirations.incrementAndGet();
+                return null;
+            }
+            body = templates.get(mapping.templateId());
+        }
+        if (body == null) {
+            return null;
+        }
+
+        Object packet = nmsPacketAccess.createChunkPacketFromTemplate(body, chunkX, chunkZ);
+        if (packet == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return new EncodedChunk(packet, null);
+    }
+
+    /**
+     * Maps a freshly encoded chunk to a template if it is uniform: no block
+     * entities and a single block in each section.
+     */
+    public void record(World world, int chunkX, int chunkZ, LodTier tier, Object snapshot, EncodedChunk encoded) {
+        MainConfig.PerformanceConfig.FakeChunksConfig.TemplatesConfig config = getConfig();
+        if (config == null || !config.enabled() || encoded.hasDeferredLight()
+                || !nmsChunkAccess.isUniform(snapshot)) {
+            return;
+        }
+
+        byte[] body = nmsPacketAccess.encodeChunkTemplate(encoded.chunkPacket());
+        if (body == null) {
+            return;
+        }
+        long templateId = hash(body);
+
+        synchronized (this) {
+            byte[] existing = templates.get(templateId);
+            if (existing == null) {
+                templates.put(templateId, body);
+                trim(templates, config.maxTemplates() > 0 ? config.maxTemplates() : DEFAULT_MAX_TEMPLATES);
+            } else if (!Arrays.equals(existing, body)) {
+                // Hash collision: leave the chunk to the normal pipeline
+                return;
+            }
+
+            chunks.put(new ChunkRef(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ), tier),
+                    new Mapping(templateId, System.currentTimeMillis() + getTtlMillis()));
+            trim(chunks, config.maxChunks() > 0 ? config.maxChunks() : DEFAULT_MAX_CHUNKS);
+        }
+        recorded.incrementAndGet();
+    }
+
+    /**
+     * Drops every tier mapping of a chunk whose contents changed.
+     */
+    public synchronized void invalidate(World world, int chunkX, int chunkZ) {
+        UUID worldId = world.getUID();
+        long chunkKey = ChunkUtils.packChunkKey(chunkX, chunkZ);
+        for (LodTier tier : LodTier.values()) {
+            if (chunks.remove(new ChunkRef(worldId, chunkKey, tier)) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void invalidateWorld(World world) {
+        UUID worldId = world.getUID();
+        chunks.keySet().removeIf(ref -> ref.worldId().equals(worldId));
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("templates", (long) templates.size());
+        stats.put("mapped_chunks", (long) chunks.size());
+        stats.put("recorded", recorded.get());
+        stats.put("hits", hits.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    private static void trim(LinkedHashMap<?, ?> map, int maxEntries) {
+        Iterator<?> iterator = map.keySet().iterator();
+        while (map.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static long hash(byte[] bytes) {
+        long hash = 1125899906842597L;
+        for (byte value : bytes) {
+            hash = 31 * hash + value;
+        }
+        return hash;
+    }
+
+    private long getTtlMillis() {
+        int ttl = configService.get().performance().fakeChunks().packetCacheTtlSeconds();
+        return (ttl > 0 ? ttl : DEFAULT_TTL_SECONDS) * 1000L;
+    }
+
+    private MainConfig.PerformanceConfig.FakeChunksConfig.TemplatesConfig getConfig() {
+        return configService.get().performance().fakeChunks().templates();
+    }
+}
@@ -0,0 +1,211 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.cache;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.EncodedChunk;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LightDeliveryService;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LodTier;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
+import org.bukkit.World;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of encoded horizon chunk packets, one variant per level-of-detail
+ * tier.
+ *
+ * Chunk packets are immutable once built, so cached packets can be queued
+ * for any number of players. Entries expire after the packet cache TTL so
+ * terrain changes eventually reach distant viewers. Packets are keyed by the
+ * light delivery mode they were built for, so switching it on reload never
+ * serves a packet without its light.
+ *
+ * Packets encoded ahead of time for hotspots are kept apart with their own
+ * lifetime, so they neither push out packets players are using nor expire
+ * before the next warm pass refreshes them. That section is bounded by both
+ * its entry count and the bytes its packets carry.
+ */
+@Service
+public class EncodedChunkCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 2000;
+    private static final int DEFAULT_TTL_SECONDS = 30;
+    private static final int MAX_WARM_ENTRIES = 4096;
+    private static final long MAX_WARM_BYTES = 64L * 1024 * 1024;
+
+    private final ConfigService configService;
+    private final LightDeliveryService lightDeliveryService;
+    private final NMSPacketAccess nmsPacketAccess;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<CacheKey, Entry> warmEntries = new LinkedHashMap<>(16, 0.75f, false);
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong warmHits = new AtomicLong(0);
+    private long warmBytes;
+
+    private record CacheKey(UUID worldId, long chunkKey, LodTier tier, boolean deferredLight) {
+    }
+
+    private record Entry(EncodedChunk encoded, long expiresAt, long bytes) {
+    }
+
+    @Inject
+    public EncodedChunkCache(ConfigService configService, LightDeliveryService lightDeliveryService,
+            NMSPacketAccess nmsPacketAccess) {
+        this.configService = configService;
+        this.lightDeliveryService = lightDeliveryService;
+        this.nmsPacketAccess = nmsPacketAccess;
+    }
+
+    @OnDisable
+    public synchronized void clear() {
+        entries.clear();
+        warmEntries.clear();
+        warmBytes = 0;
+    }
+
+    /**
+     * Gets the encoded packets of a chunk for a tier, or null if none are cached.
+     */
+    public synchronized EncodedChunk get(World world, int chunkX, int chunkZ, LodTier tier) {
+        CacheKey key = keyOf(world, chunkX, chunkZ, tier);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && now > entry.expiresAt()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.encoded();
+        }
+
+        Entry warm = warmEntries.get(key);
+        if (warm != null && now > warm.expiresAt()) {
+            removeWarm(key);
+            warm = null;
+        }
+        if (warm != null) {
+            hits.incrementAndGet();
+            warmHits.incrementAndGet();
+            return warm.encoded();
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public synchronized void put(World world, int chunkX, int chunkZ, LodTier tier, EncodedChunk encoded) {
+        CacheKey key = keyOf(world, chunkX, chunkZ, tier);
+        entries.put(key, new Entry(encoded, System.currentTimeMillis() + getTtlMillis(), 0));
+
+        int maxEntries = getMaxEntries();
+        Iterator<CacheKey> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Keeps packets encoded ahead of any request, e.g. for a hotspot, for the
+     * given time. The oldest warm packets are dropped first once the warm
+     * section is full or holds too many bytes.
+     */
+    public synchronized void putWarm(World world, int chunkX, int chunkZ, LodTier tier, EncodedChunk encoded,
+            long ttlMillis) {
+        CacheKey key = keyOf(world, chunkX, chunkZ, tier);
+        // Re-inserted so a refreshed packet moves to the young end
+        removeWarm(key);
+        long bytes = sizeOf(encoded);
+        warmEntries.put(key, new Entry(encoded, System.currentTimeMillis() + ttlMillis, bytes));
+        warmBytes += bytes;
+
+        Iterator<Entry> iterator = warmEntries.values().iterator();
+        while ((warmEntries.size() > MAX_WARM_ENTRIES || warmBytes > MAX_WARM_BYTES) && iterator.hasNext()) {
+            warmBytes -= iterator.next().bytes();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops every tier of a chunk.
+     */
+    public synchronized void invalidate(World world, int chunkX, int chunkZ) {
+        UUID worldId = world.getUID();
+        long chunkKey = ChunkUtils.packChunkKey(chunkX, chunkZ);
+        for (LodTier tier : LodTier.values()) {
+            for (boolean deferredLight : new boolean[] { false, true }) {
+                CacheKey key = new CacheKey(worldId, chunkKey, tier, deferredLight);
+                entries.remove(key);
+                removeWarm(key);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size() + warmEntries.size();
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("size", (long) entries.size());
+        stats.put("warm_size", (long) warmEntries.size());
+        stats.put("warm_kb", warmBytes / 1024);
+        stats.put("warm_hits", warmHits.get());
+        return stats;
+    }
+
+    private void removeWarm(CacheKey key) {
+        Entry removed = warmEntries.remove(key);
+        if (removed != null) {
+            warmBytes -= removed.bytes();
+        }
+    }
+
+    /**
+     * Gets the bytes a client receives for an encoded chunk.
+     */
+    private long sizeOf(EncodedChunk encoded) {
+        long bytes = Math.max(0, nmsPacketAccess.getChunkDataSize(encoded.chunkPacket()));
+        if (encoded.hasDeferredLight()) {
+            bytes += Math.max(0, nmsPacketAccess.getPacketSize(encoded.lightPacket()));
+        }
+        return bytes;
+    }
+
+    private CacheKey keyOf(World world, int chunkX, int chunkZ, LodTier tier) {
+        return new CacheKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ), tier,
+                lightDeliveryService.isDeferred());
+    }
+
+    private int getMaxEntries() {
+        MainConfig.PerformanceConfig.FakeChunksConfig.LodConfig config = configService.get().performance()
+                .fakeChunks().lod();
+        if (config == null || config.encodedCacheSize() <= 0) {
+            return DEFAULT_MAX_ENTRIES;
+        }
+        return config.encodedCacheSize();
+    }
+
+    private long getTtlMillis() {
+        int ttl = configService.get().performance().fakeChunks().packetCacheTtlSeconds();
+        return (ttl > 0 ? ttl : DEFAULT_TTL_SECONDS) * 1000L;
+    }
+}
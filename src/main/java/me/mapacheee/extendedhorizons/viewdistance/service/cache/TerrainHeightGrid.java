@@ -0,0 +1,106 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.cache;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import org.bukkit.World;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Coarse height grid of the terrain: for each chunk seen so far, the top of
+ * its highest motion-blocking column and a low percentile of its surface.
+ *
+ * Heights are recorded whenever the server loads a chunk or the plugin
+ * encodes one, and feed the terrain occlusion pass: the top height decides
+ * whether a chunk can be seen at all, while the low height is what a chunk
+ * in between is sure to block, so a single tree or spire does not hide the
+ * land behind it. The grid is shared by all players of a world and keeps the
+ * most recently recorded chunks.
+ */
+@Service
+public class TerrainHeightGrid {
+
+    /**
+     * Returned for chunks whose height is not known yet.
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_MAX_CHUNKS = 200_000;
+
+    private final ConfigService configService;
+
+    private final LinkedHashMap<ChunkRef, Heights> heights = new LinkedHashMap<>(16, 0.75f, true);
+
+    private record ChunkRef(UUID worldId, long chunkKey) {
+    }
+
+    private record Heights(short top, short low) {
+    }
+
+    @Inject
+    public TerrainHeightGrid(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    @OnDisable
+    public synchronized void clear() {
+        heights.clear();
+    }
+
+    /**
+     * Gets the recorded top height of a chunk, or {@link #UNKNOWN}.
+     */
+    public synchronized int getTop(World world, int chunkX, int chunkZ) {
+        Heights entry = heights.get(new ChunkRef(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ)));
+        return entry != null ? entry.top() : UNKNOWN;
+    }
+
+    /**
+     * Gets the recorded low surface height of a chunk, or {@link #UNKNOWN}.
+     */
+    public synchronized int getLow(World world, int chunkX, int chunkZ) {
+        Heights entry = heights.get(new ChunkRef(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ)));
+        return entry != null ? entry.low() : UNKNOWN;
+    }
+
+    public synchronized void record(World world, int chunkX, int chunkZ, int top, int low) {
+        if (top == UNKNOWN || low == UNKNOWN) {
+            return;
+        }
+
+        heights.put(new ChunkRef(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ)),
+                new Heights((short) top, (short) low));
+
+        int maxChunks = getMaxChunks();
+        Iterator<ChunkRef> iterator = heights.keySet().iterator();
+        while (heights.size() > maxChunks && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public synchronized void invalidateWorld(World world) {
+        UUID worldId = world.getUID();
+        heights.keySet().removeIf(ref -> ref.worldId().equals(worldId));
+    }
+
+    public synchronized int size() {
+        return heights.size();
+    }
+
+    private int getMaxChunks() {
+        MainConfig.PerformanceConfig.OcclusionCullingConfig config = configService.get().performance()
+                .occlusionCulling();
+        if (config == null || config.terrain() == null || config.terrain().maxTrackedChunks() <= 0) {
+            return DEFAULT_MAX_CHUNKS;
+        }
+        return config.terrain().maxTrackedChunks();
+    }
+}
@@ -0,0 +1,107 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnEnable;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies anti-xray obfuscation to horizon snapshots before encoding.
+ *
+ * Obfuscation is deterministic per chunk, so the result lands in the encoded
+ * chunk cache once and is shared by every player viewing the chunk. Fake ores
+ * are seeded with a random secret generated once per server and kept in
+ * {@code anti-xray.secret}, so they cannot be predicted from the world seed.
+ */
+@Service
+public class AntiXrayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AntiXrayService.class);
+
+    private static final String SECRET_FILE_NAME = "anti-xray.secret";
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private long secret;
+
+    private final AtomicLong obfuscatedChunks = new AtomicLong(0);
+    private final AtomicLong changedBlocks = new AtomicLong(0);
+    private final AtomicLong obfuscationNanos = new AtomicLong(0);
+
+    @Inject
+    public AntiXrayService(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    @OnEnable
+    public void loadSecret() {
+        Path file = ExtendedHorizonsPlugin.getInstance().getDataFolder().toPath().resolve(SECRET_FILE_NAME);
+        try {
+            if (Files.exists(file)) {
+                secret = Long.parseUnsignedLong(Files.readString(file).trim(), 16);
+                return;
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("[EH] Failed to read the anti-xray secret, generating a new one: {}", e.getMessage());
+        }
+
+        secret = new SecureRandom().nextLong();
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, Long.toHexString(secret));
+        } catch (IOException e) {
+            // Still random, but fake ores change after a restart
+            logger.warn("[EH] Failed to save the anti-xray secret: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        MainConfig.PerformanceConfig.FakeChunksConfig.AntiXrayConfig config = getConfig();
+        return config != null && config.enabled();
+    }
+
+    /**
+     * Obfuscates a snapshot in place if anti-xray is enabled.
+     */
+    public void apply(Object snapshot) {
+        MainConfig.PerformanceConfig.FakeChunksConfig.AntiXrayConfig config = getConfig();
+        if (config == null || !config.enabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long changed = nmsChunkAccess.obfuscateChunk(snapshot, config.hideOres(), config.addFakeOres(),
+                config.fakeOreDensity(), secret);
+        obfuscationNanos.addAndGet(System.nanoTime() - start);
+        obfuscatedChunks.incrementAndGet();
+        changedBlocks.addAndGet(changed);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long chunks = obfuscatedChunks.get();
+        stats.put("obfuscated_chunks", chunks);
+        stats.put("changed_blocks", changedBlocks.get());
+        stats.put("avg_micros", chunks > 0 ? obfuscationNanos.get() / chunks / 1000 : 0);
+        return stats;
+    }
+
+    private MainConfig.PerformanceConfig.FakeChunksConfig.AntiXrayConfig getConfig() {
+        return configService.get().performance().fakeChunks().antiXray();
+    }
+}
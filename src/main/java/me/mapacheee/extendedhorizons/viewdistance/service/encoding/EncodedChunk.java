@@ -0,0 +1,15 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+/**
+ * Packets that deliver one horizon chunk to a client.
+ *
+ * @param chunkPacket The chunk packet, with or without light
+ * @param lightPacket Light sent after the chunk at lower priority, or null
+ *                    when the light travels inside the chunk packet
+ */
+public record EncodedChunk(Object chunkPacket, Object lightPacket) {
+
+    public boolean hasDeferredLight() {
+        return lightPacket != null;
+    }
+}
@@ -0,0 +1,100 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
+import me.mapacheee.extendedhorizons.viewdistance.service.snapshot.ChunkSnapshotService;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures how many bytes the horizon encoding saves on real terrain.
+ *
+ * Loaded chunks around a player are snapshotted and serialized the way the
+ * horizon sends them, then again after block entity data is stripped. The
+ * light arrays left out by exact light masks are added back to get the size
+ * the chunks would have with every light section marked.
+ */
+@Service
+public class EncodingBenchmarkService {
+
+    public static final int MAX_RADIUS = 16;
+
+    // Nibble array plus its length prefix
+    private static final int LIGHT_ARRAY_BYTES = 2048 + 2;
+
+    private final NMSChunkAccess nmsChunkAccess;
+    private final NMSPacketAccess nmsPacketAccess;
+    private final ChunkSnapshotService chunkSnapshotService;
+
+    @Inject
+    public EncodingBenchmarkService(NMSChunkAccess nmsChunkAccess, NMSPacketAccess nmsPacketAccess,
+            ChunkSnapshotService chunkSnapshotService) {
+        this.nmsChunkAccess = nmsChunkAccess;
+        this.nmsPacketAccess = nmsPacketAccess;
+        this.chunkSnapshotService = chunkSnapshotService;
+    }
+
+    /**
+     * Runs the benchmark over the loaded chunks within a radius of the player.
+     *
+     * @return Future completed with the measured totals
+     */
+    public CompletableFuture<Map<String, Long>> run(Player player, int radius) {
+        World world = player.getWorld();
+        int centerX = player.getLocation().getBlockX() >> 4;
+        int centerZ = player.getLocation().getBlockZ() >> 4;
+        int clamped = Math.max(1, Math.min(radius, MAX_RADIUS));
+
+        List<CompletableFuture<Object>> snapshots = new ArrayList<>();
+        for (int x = centerX - clamped; x <= centerX + clamped; x++) {
+            for (int z = centerZ - clamped; z <= centerZ + clamped; z++) {
+                Object chunk = nmsChunkAccess.getChunkIfLoaded(world, x, z);
+                if (chunk != null) {
+                    snapshots.add(chunkSnapshotService.capture(world, x, z, chunk));
+                }
+            }
+        }
+
+        return CompletableFuture.allOf(snapshots.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> measure(snapshots));
+    }
+
+    private Map<String, Long> measure(List<CompletableFuture<Object>> snapshots) {
+        long chunks = 0;
+        long fullMaskBytes = 0;
+        long exactMaskBytes = 0;
+        long strippedBytes = 0;
+
+        for (CompletableFuture<Object> future : snapshots) {
+            Object snapshot = future.join();
+            int exact = nmsPacketAccess.getSerializedSize(nmsPacketAccess.createChunkPacket(snapshot));
+            if (exact < 0) {
+                continue;
+            }
+
+            nmsChunkAccess.stripBlockEntityData(snapshot);
+            int stripped = nmsPacketAccess.getSerializedSize(nmsPacketAccess.createChunkPacket(snapshot));
+
+            chunks++;
+            exactMaskBytes += exact;
+            fullMaskBytes += exact + (long) nmsChunkAccess.getOmittedLightSections(snapshot) * LIGHT_ARRAY_BYTES;
+            strippedBytes += stripped;
+        }
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("chunks", chunks);
+        stats.put("full_masks_kb", fullMaskBytes / 1024);
+        stats.put("exact_masks_kb", exactMaskBytes / 1024);
+        stats.put("stripped_block_entities_kb", strippedBytes / 1024);
+        stats.put("saved_percent", fullMaskBytes == 0 ? 0L : (fullMaskBytes - strippedBytes) * 100 / fullMaskBytes);
+        return stats;
+    }
+}
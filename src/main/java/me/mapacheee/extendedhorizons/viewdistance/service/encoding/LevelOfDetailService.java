@@ -0,0 +1,141 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the level-of-detail tier of a horizon chunk from its distance to the
+ * player and lowers the detail of chunk snapshots accordingly.
+ */
+@Service
+public class LevelOfDetailService {
+
+    private static final int DEFAULT_SURFACE_BAND = 1;
+    private static final double DEFAULT_UNIFORM_THRESHOLD = 0.9;
+    private static final double DEFAULT_COARSE_UNIFORM_THRESHOLD = 0.75;
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final Map<LodTier, AtomicLong> chunks = new EnumMap<>(LodTier.class);
+    private final Map<LodTier, AtomicLong> simplifiedSections = new EnumMap<>(LodTier.class);
+    private final AtomicLong strippedBlockEntityBytes = new AtomicLong(0);
+
+    @Inject
+    public LevelOfDetailService(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+        for (LodTier tier : LodTier.values()) {
+            chunks.put(tier, new AtomicLong());
+            simplifiedSections.put(tier, new AtomicLong());
+        }
+    }
+
+    /**
+     * Gets the tier a chunk should be sent with.
+     */
+    public LodTier tierFor(int playerChunkX, int playerChunkZ, int chunkX, int chunkZ) {
+        MainConfig.PerformanceConfig.FakeChunksConfig.LodConfig config = getConfig();
+        if (config == null || !config.enabled()) {
+            return LodTier.FULL;
+        }
+
+        int dx = chunkX - playerChunkX;
+        int dz = chunkZ - playerChunkZ;
+        int distanceSquared = dx * dx + dz * dz;
+
+        if (config.minimalFromDistance() > 0
+                && distanceSquared >= config.minimalFromDistance() * config.minimalFromDistance()) {
+            return LodTier.MINIMAL;
+        }
+        if (config.reducedFromDistance() > 0
+                && distanceSquared >= config.reducedFromDistance() * config.reducedFromDistance()) {
+            return LodTier.REDUCED;
+        }
+        return LodTier.FULL;
+    }
+
+    /**
+     * Gets the tiers {@link #tierFor} can currently return, nearest first.
+     */
+    public List<LodTier> getActiveTiers() {
+        MainConfig.PerformanceConfig.FakeChunksConfig.LodConfig config = getConfig();
+        if (config == null || !config.enabled()) {
+            return List.of(LodTier.FULL);
+        }
+
+        List<LodTier> tiers = new ArrayList<>(3);
+        tiers.add(LodTier.FULL);
+        if (config.reducedFromDistance() > 0) {
+            tiers.add(LodTier.REDUCED);
+        }
+        if (config.minimalFromDistance() > 0) {
+            tiers.add(LodTier.MINIMAL);
+        }
+        return tiers;
+    }
+
+    /**
+     * Lowers the detail of a snapshot in place to match the tier.
+     */
+    public void apply(Object snapshot, LodTier tier) {
+        chunks.get(tier).incrementAndGet();
+        if (tier == LodTier.FULL) {
+            return;
+        }
+
+        MainConfig.PerformanceConfig.FakeChunksConfig.LodConfig config = getConfig();
+        if (config == null || config.stripBlockEntityData()) {
+            strippedBlockEntityBytes.addAndGet(nmsChunkAccess.stripBlockEntityData(snapshot));
+        }
+
+        if (tier == LodTier.COARSE) {
+            MainConfig.PerformanceConfig.FakeChunksConfig.RefinementConfig refinement = configService.get()
+                    .performance().fakeChunks().refinement();
+            double coarseThreshold = refinement != null && refinement.coarseUniformThreshold() > 0
+                    ? refinement.coarseUniformThreshold()
+                    : DEFAULT_COARSE_UNIFORM_THRESHOLD;
+            // Surface only: everything below the surface collapses and the surface sections merge
+            // their solid blocks at the coarse threshold
+            simplifiedSections.get(tier).addAndGet(nmsChunkAccess.reduceDetail(snapshot, 0, coarseThreshold));
+            return;
+        }
+
+        int surfaceBand = config != null && config.surfaceBand() >= 0 ? config.surfaceBand() : DEFAULT_SURFACE_BAND;
+        double uniformThreshold = 1.0;
+        if (tier == LodTier.MINIMAL) {
+            uniformThreshold = config != null && config.uniformThreshold() > 0
+                    ? config.uniformThreshold()
+                    : DEFAULT_UNIFORM_THRESHOLD;
+        }
+
+        int simplified = nmsChunkAccess.reduceDetail(snapshot, surfaceBand, uniformThreshold);
+        simplifiedSections.get(tier).addAndGet(simplified);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (LodTier tier : LodTier.values()) {
+            stats.put(tier.metricPrefix() + "_chunks", chunks.get(tier).get());
+            if (tier != LodTier.FULL) {
+                stats.put(tier.metricPrefix() + "_simplified_sections", simplifiedSections.get(tier).get());
+            }
+        }
+        stats.put("stripped_block_entity_kb", strippedBlockEntityBytes.get() / 1024);
+        return stats;
+    }
+
+    private MainConfig.PerformanceConfig.FakeChunksConfig.LodConfig getConfig() {
+        return configService.get().performance().fakeChunks().lod();
+    }
+}
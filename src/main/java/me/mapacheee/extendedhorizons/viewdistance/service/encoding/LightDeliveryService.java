@@ -0,0 +1,86 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how the light of a horizon chunk reaches the client.
+ *
+ * In {@code inline} mode light travels inside the chunk packet as usual. In
+ * {@code deferred} mode the chunk packet carries geometry only, which the
+ * client renders with uniform sky light, and the real light follows in a
+ * separate light update packet once every queued chunk has been sent.
+ */
+@Service
+public class LightDeliveryService {
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+    private final NMSPacketAccess nmsPacketAccess;
+
+    private final AtomicLong inlineChunks = new AtomicLong(0);
+    private final AtomicLong deferredChunks = new AtomicLong(0);
+    private final AtomicLong omittedLightArrays = new AtomicLong(0);
+
+    @Inject
+    public LightDeliveryService(ConfigService configService, NMSChunkAccess nmsChunkAccess,
+            NMSPacketAccess nmsPacketAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+        this.nmsPacketAccess = nmsPacketAccess;
+    }
+
+    /**
+     * Encodes a snapshot into the packets that deliver it.
+     *
+     * @return The encoded chunk, or null if the chunk type is not supported
+     */
+    public EncodedChunk encode(Object snapshot) {
+        omittedLightArrays.addAndGet(nmsChunkAccess.getOmittedLightSections(snapshot));
+
+        if (isDeferred()) {
+            Object chunkPacket = nmsPacketAccess.createChunkPacketWithoutLight(snapshot);
+            Object lightPacket = nmsPacketAccess.createLightPacket(snapshot);
+            if (chunkPacket == null) {
+                return null;
+            }
+            deferredChunks.incrementAndGet();
+            return new EncodedChunk(chunkPacket, lightPacket);
+        }
+
+        Object chunkPacket = nmsPacketAccess.createChunkPacket(snapshot);
+        if (chunkPacket == null) {
+            return null;
+        }
+        inlineChunks.incrementAndGet();
+        return new EncodedChunk(chunkPacket, null);
+    }
+
+    /**
+     * Checks whether chunk packets are currently built without their light.
+     */
+    public boolean isDeferred() {
+        MainConfig.PerformanceConfig.FakeChunksConfig.LightConfig config = getConfig();
+        return config != null && "deferred".equalsIgnoreCase(config.mode());
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("inline_chunks", inlineChunks.get());
+        stats.put("deferred_chunks", deferredChunks.get());
+        stats.put("omitted_light_arrays", omittedLightArrays.get());
+        return stats;
+    }
+
+    private MainConfig.PerformanceConfig.FakeChunksConfig.LightConfig getConfig() {
+        return configService.get().performance().fakeChunks().light();
+    }
+}
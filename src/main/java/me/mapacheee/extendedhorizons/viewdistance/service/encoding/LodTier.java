@@ -0,0 +1,40 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+/**
+ * Level-of-detail tiers for horizon chunks, from nearest to farthest.
+ */
+public enum LodTier {
+
+    /**
+     * Sent exactly as the server has it.
+     */
+    FULL,
+
+    /**
+     * Sections buried well below the surface are filled with their most common
+     * block and fully uniform sections collapse to a single-value palette.
+     */
+    REDUCED,
+
+    /**
+     * Like {@link #REDUCED}, and around the surface the solid blocks of a
+     * section dominated by one solid block are merged into it, keeping the
+     * top block of each column.
+     */
+    MINIMAL,
+
+    /**
+     * First pass of progressive refinement: every section below the surface
+     * collapses to its most common block and the surface sections are merged
+     * like {@link #MINIMAL}, with a lower threshold.
+     * Chunks sent this way are upgraded to their real tier later.
+     */
+    COARSE;
+
+    /**
+     * Key prefix used when reporting metrics for this tier.
+     */
+    public String metricPrefix() {
+        return name().toLowerCase();
+    }
+}
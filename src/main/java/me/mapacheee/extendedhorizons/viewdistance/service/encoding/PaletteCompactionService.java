@@ -0,0 +1,55 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-compacts section palettes of horizon snapshots right before encoding.
+ *
+ * Runs after level of detail and anti-xray, which both rewrite sections and
+ * can leave palettes with unused entries or more bits per entry than the
+ * remaining blocks need.
+ */
+@Service
+public class PaletteCompactionService {
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final AtomicLong compactedChunks = new AtomicLong(0);
+    private final AtomicLong savedBytes = new AtomicLong(0);
+
+    @Inject
+    public PaletteCompactionService(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    /**
+     * Compacts a snapshot in place if compaction is enabled.
+     */
+    public void apply(Object snapshot) {
+        if (!configService.get().performance().fakeChunks().compactPalettes()) {
+            return;
+        }
+
+        long saved = nmsChunkAccess.compactPalettes(snapshot);
+        if (saved > 0) {
+            compactedChunks.incrementAndGet();
+            savedBytes.addAndGet(saved);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("compacted_chunks", compactedChunks.get());
+        stats.put("saved_kb", savedBytes.get() / 1024);
+        return stats;
+    }
+}
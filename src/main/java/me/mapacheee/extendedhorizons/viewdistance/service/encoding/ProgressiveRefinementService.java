@@ -0,0 +1,228 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerChunkState;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-pass delivery of the horizon.
+ *
+ * New horizon chunks are first sent in the {@link LodTier#COARSE} tier so the
+ * player sees a complete horizon quickly. Once the player's load queue has
+ * drained and few packets are waiting, coarse chunks are sent again in their
+ * real tier, nearest and in-view chunks first.
+ *
+ * A chunk sent coarse costs its coarse bytes on top of its real tier, so the
+ * coarse pass is only used while coarse packets stay well below the size of
+ * the tier they stand in for, measured on the packets encoded for players so
+ * far. Packets encoded ahead of time for hotspots and skyline impostors are
+ * not counted, since they are not what a player's first pass would send.
+ */
+@Service
+public class ProgressiveRefinementService {
+
+    private static final int DEFAULT_MAX_PENDING_PACKETS = 4;
+    private static final double IN_VIEW_COSINE = 0.5;
+    // Coarse packets must stay below this share of their real tier's size to be worth the extra send
+    private static final double MAX_COARSE_SIZE_RATIO = 0.5;
+    // Encodes per tier measured before the size comparison is trusted
+    private static final long MIN_SIZE_SAMPLES = 32;
+    // While the coarse pass is skipped, one chunk in this many is still sent coarse to keep measuring
+    private static final long PROBE_INTERVAL = 64;
+
+    private final ConfigService configService;
+
+    private final AtomicLong coarseSent = new AtomicLong(0);
+    private final AtomicLong refined = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong skippedCoarse = new AtomicLong(0);
+    private final AtomicLong coarseProbes = new AtomicLong(0);
+    private final Map<LodTier, AtomicLong> encodedBytes = new EnumMap<>(LodTier.class);
+    private final Map<LodTier, AtomicLong> encodedChunks = new EnumMap<>(LodTier.class);
+
+    @Inject
+    public ProgressiveRefinementService(ConfigService configService) {
+        this.configService = configService;
+        for (LodTier tier : LodTier.values()) {
+            encodedBytes.put(tier, new AtomicLong());
+            encodedChunks.put(tier, new AtomicLong());
+        }
+    }
+
+    public boolean isEnabled() {
+        MainConfig.PerformanceConfig.FakeChunksConfig.RefinementConfig config = getConfig();
+        return config != null && config.enabled();
+    }
+
+    /**
+     * Gets the tier a chunk is first sent with. Chunks whose real tier is
+     * already minimal gain little from a coarse pass and are sent directly,
+     * as are chunks whose coarse packet would not be much smaller.
+     */
+    public LodTier firstPassTier(LodTier target) {
+        if (!isEnabled() || target.ordinal() >= LodTier.MINIMAL.ordinal()) {
+            return target;
+        }
+        if (!isCoarseWorthwhile(target) && coarseProbes.incrementAndGet() % PROBE_INTERVAL != 0) {
+            skippedCoarse.incrementAndGet();
+            return target;
+        }
+        return LodTier.COARSE;
+    }
+
+    /**
+     * Records the size of a chunk packet encoded in a tier for a player.
+     */
+    public void recordEncoded(LodTier tier, int bytes) {
+        if (bytes < 0) {
+            return;
+        }
+        encodedBytes.get(tier).addAndGet(bytes);
+        encodedChunks.get(tier).incrementAndGet();
+    }
+
+    /**
+     * Remembers that a chunk is being sent coarse and needs an upgrade.
+     */
+    public void markCoarse(PlayerChunkState state, long chunkKey) {
+        if (state.getCoarseChunks().add(chunkKey)) {
+            coarseSent.incrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether the player has bandwidth to spare for upgrades: nothing
+     * left to load for the first pass and only a few packets waiting.
+     */
+    public boolean hasSpareCapacity(PlayerChunkState state) {
+        if (state.getCoarseChunks().isEmpty() || !state.getChunkQueue().isEmpty()) {
+            return false;
+        }
+
+        MainConfig.PerformanceConfig.FakeChunksConfig.RefinementConfig config = getConfig();
+        int maxPending = config != null && config.maxPendingPackets() > 0
+                ? config.maxPendingPackets()
+                : DEFAULT_MAX_PENDING_PACKETS;
+        return state.getPendingPacketCount() < maxPending;
+    }
+
+    /**
+     * Picks the next coarse chunks to upgrade and removes them from the
+     * player's coarse set. Chunks in front of the player count as half as far
+     * away, so the visible part of the horizon sharpens first. Position and
+     * direction come from the player's state, sampled on the region thread.
+     *
+     * @param inFlight     Chunks whose first pass is still being loaded
+     * @param defaultLimit Batch size used when none is configured
+     */
+    public List<Long> nextRefinements(PlayerChunkState state, Set<Long> inFlight, int defaultLimit) {
+        MainConfig.PerformanceConfig.FakeChunksConfig.RefinementConfig config = getConfig();
+        int limit = config != null && config.chunksPerCycle() > 0 ? config.chunksPerCycle() : defaultLimit;
+
+        long center = state.getCenterChunk();
+        if (center == Long.MIN_VALUE) {
+            return List.of();
+        }
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
+        Vector sampled = state.getViewDirection();
+        Vector direction = sampled != null ? sampled.clone().setY(0) : new Vector();
+        boolean hasDirection = direction.lengthSquared() > 1.0E-6;
+        if (hasDirection) {
+            direction.normalize();
+        }
+
+        List<long[]> candidates = new ArrayList<>();
+        Iterator<Long> iterator = state.getCoarseChunks().iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next();
+            if (inFlight.contains(key)) {
+                continue;
+            }
+            if (!state.getFakeChunks().contains(key)) {
+                iterator.remove();
+                dropped.incrementAndGet();
+                continue;
+            }
+
+            int dx = ChunkUtils.unpackX(key) - playerChunkX;
+            int dz = ChunkUtils.unpackZ(key) - playerChunkZ;
+            long score = (long) dx * dx + (long) dz * dz;
+            if (hasDirection && score > 0) {
+                double cosine = (dx * direction.getX() + dz * direction.getZ()) / Math.sqrt(score);
+                if (cosine >= IN_VIEW_COSINE) {
+                    score /= 4;
+                }
+            }
+            candidates.add(new long[] { key, score });
+        }
+
+        candidates.sort(Comparator.comparingLong(candidate -> candidate[1]));
+
+        List<Long> selected = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (long[] candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            if (state.getCoarseChunks().remove(candidate[0])) {
+                selected.add(candidate[0]);
+            }
+        }
+        refined.addAndGet(selected.size());
+        return selected;
+    }
+
+    /**
+     * Puts back a chunk picked for an upgrade that could not be sent yet.
+     */
+    public void requeue(PlayerChunkState state, long chunkKey) {
+        if (state.getCoarseChunks().add(chunkKey)) {
+            refined.decrementAndGet();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("coarse_sent", coarseSent.get());
+        stats.put("refined", refined.get());
+        stats.put("dropped", dropped.get());
+        stats.put("skipped_coarse", skippedCoarse.get());
+        for (LodTier tier : LodTier.values()) {
+            stats.put("avg_" + tier.metricPrefix() + "_bytes", averageBytes(tier));
+        }
+        // Bytes the coarse pass added on top of the real tier for chunks refined so far
+        stats.put("coarse_overhead_kb", refined.get() * averageBytes(LodTier.COARSE) / 1024);
+        return stats;
+    }
+
+    private boolean isCoarseWorthwhile(LodTier target) {
+        if (encodedChunks.get(LodTier.COARSE).get() < MIN_SIZE_SAMPLES
+                || encodedChunks.get(target).get() < MIN_SIZE_SAMPLES) {
+            return true;
+        }
+        return averageBytes(LodTier.COARSE) <= averageBytes(target) * MAX_COARSE_SIZE_RATIO;
+    }
+
+    private long averageBytes(LodTier tier) {
+        long count = encodedChunks.get(tier).get();
+        return count > 0 ? encodedBytes.get(tier).get() / count : 0;
+    }
+
+    private MainConfig.PerformanceConfig.FakeChunksConfig.RefinementConfig getConfig() {
+        return configService.get().performance().fakeChunks().refinement();
+    }
+}
@@ -0,0 +1,92 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.encoding;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.bukkit.World;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the parts of horizon chunks that are never visible from far away:
+ * deep sections well below the surface and empty air high above it.
+ *
+ * Settings come from the world's entry in world-settings when present, and
+ * from the fake-chunks defaults otherwise. Culling applies from a configured
+ * level-of-detail tier onward, so the result stays a pure function of world
+ * and tier and can share the per-tier encoded cache.
+ */
+@Service
+public class VerticalCullingService {
+
+    private static final int DEFAULT_SECTIONS_BELOW = 1;
+    private static final int DEFAULT_SECTIONS_ABOVE = 1;
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final AtomicLong culledChunks = new AtomicLong(0);
+    private final AtomicLong culledSections = new AtomicLong(0);
+
+    @Inject
+    public VerticalCullingService(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    /**
+     * Culls a snapshot in place if the world's settings apply to the tier.
+     */
+    public void apply(World world, Object snapshot, LodTier tier) {
+        MainConfig.VerticalCullingConfig config = resolve(world);
+        if (config == null || !config.enabled()) {
+            return;
+        }
+
+        if (tier.ordinal() < parseTier(config.fromTier()).ordinal()) {
+            return;
+        }
+
+        int below = config.sectionsBelowSurface() >= 0 ? config.sectionsBelowSurface() : DEFAULT_SECTIONS_BELOW;
+        int above = config.sectionsAboveSurface() >= 0 ? config.sectionsAboveSurface() : DEFAULT_SECTIONS_ABOVE;
+
+        int culled = nmsChunkAccess.cullVerticalSections(snapshot, below, above);
+        if (culled > 0) {
+            culledChunks.incrementAndGet();
+            culledSections.addAndGet(culled);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("culled_chunks", culledChunks.get());
+        stats.put("culled_sections", culledSections.get());
+        return stats;
+    }
+
+    private MainConfig.VerticalCullingConfig resolve(World world) {
+        Map<String, MainConfig.WorldConfig> worldSettings = configService.get().worldSettings();
+        if (worldSettings != null) {
+            MainConfig.WorldConfig worldConfig = worldSettings.get(world.getName());
+            if (worldConfig != null && worldConfig.verticalCulling() != null) {
+                return worldConfig.verticalCulling();
+            }
+        }
+        return configService.get().performance().fakeChunks().verticalCulling();
+    }
+
+    private static LodTier parseTier(String value) {
+        if (value != null) {
+            for (LodTier tier : LodTier.values()) {
+                if (tier.name().equalsIgnoreCase(value.trim())) {
+                    return tier;
+                }
+            }
+        }
+        return LodTier.REDUCED;
+    }
+}
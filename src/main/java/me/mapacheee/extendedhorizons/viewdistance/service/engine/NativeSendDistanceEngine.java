@@ -0,0 +1,244 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.engine;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import com.thewinterframework.service.annotation.lifecycle.OnEnable;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extends view distance through Paper's own chunk sender.
+ *
+ * Instead of building chunk packets, this engine raises the player's load and
+ * send view-distance and lets Paper's chunk system prioritise, batch and
+ * unload the chunks. Permission limits and occlusion are decided by the
+ * caller; the bandwidth saver is applied here by growing the distance one ring
+ * at a time, only as far as the per-player bandwidth budget allows each
+ * second. Shrinking is always applied immediately.
+ */
+@Service
+public class NativeSendDistanceEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(NativeSendDistanceEngine.class);
+    private static final boolean DEBUG = false;
+
+    private static final int MIN_PAPER_VIEW_DISTANCE = 2;
+    private static final int MAX_PAPER_VIEW_DISTANCE = 32;
+
+    private final ConfigService configService;
+    private final Map<UUID, NativeView> views = new ConcurrentHashMap<>();
+    private final AtomicLong distanceChanges = new AtomicLong(0);
+    private final AtomicLong budgetedChunks = new AtomicLong(0);
+
+    private ScheduledTask rampTask;
+
+    private static final class NativeView {
+        volatile int target;
+        volatile int applied;
+
+        NativeView(int applied) {
+            this.target = applied;
+            this.applied = applied;
+        }
+    }
+
+    @Inject
+    public NativeSendDistanceEngine(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    @OnEnable
+    public void start() {
+        this.rampTask = Bukkit.getAsyncScheduler()
+                .runAtFixedRate(ExtendedHorizonsPlugin.getInstance(), (task) -> {
+                    try {
+                        ramp();
+                    } catch (Throwable t) {
+                        logger.error("[EH] Error in native view-distance ramp", t);
+                    }
+                }, 1L, 1L, TimeUnit.SECONDS);
+    }
+
+    @OnDisable
+    public void stop() {
+        if (rampTask != null) {
+            rampTask.cancel();
+            rampTask = null;
+        }
+
+        for (UUID playerId : views.keySet()) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null && player.isOnline()) {
+                reset(player);
+            }
+        }
+        views.clear();
+    }
+
+    /**
+     * Sets the distance Paper should send to a player. The caller is expected
+     * to have applied permission limits already.
+     *
+     * @param player         The player
+     * @param targetDistance The view distance the player should end up with
+     */
+    public void apply(Player player, int targetDistance) {
+        int target = clamp(targetDistance);
+        NativeView view = views.computeIfAbsent(player.getUniqueId(),
+                id -> new NativeView(clamp(Bukkit.getViewDistance())));
+        view.target = target;
+
+        if (target < view.applied || !isBandwidthLimited()) {
+            if (view.applied != target) {
+                view.applied = target;
+                push(player, target);
+            }
+        }
+    }
+
+    /**
+     * Hands the player back to the world's own view-distances.
+     */
+    public void reset(Player player) {
+        if (views.remove(player.getUniqueId()) == null) {
+            return;
+        }
+
+        World world = player.getWorld();
+        int viewDistance = world.getViewDistance();
+        int sendDistance = world.getSendViewDistance();
+        player.getScheduler().run(ExtendedHorizonsPlugin.getInstance(), (task) -> {
+            player.setSendViewDistance(clamp(sendDistance));
+            player.setViewDistance(clamp(viewDistance));
+        }, null);
+        distanceChanges.incrementAndGet();
+    }
+
+    /**
+     * Forgets a player that left the server.
+     */
+    public void remove(UUID playerId) {
+        views.remove(playerId);
+    }
+
+    public boolean isActive(UUID playerId) {
+        return views.containsKey(playerId);
+    }
+
+    /**
+     * Grows each player's applied distance toward its target, one ring at a
+     * time, while the ring fits in the player's bandwidth budget for the next
+     * second.
+     */
+    private void ramp() {
+        long chunksPerSecond = getChunksPerSecond();
+
+        for (Map.Entry<UUID, NativeView> entry : views.entrySet()) {
+            NativeView view = entry.getValue();
+            if (view.applied >= view.target) {
+                continue;
+            }
+
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player == null || !player.isOnline()) {
+                views.remove(entry.getKey());
+                continue;
+            }
+
+            long budget = chunksPerSecond;
+            int applied = view.applied;
+            while (applied < view.target) {
+                int ring = ringChunks(applied + 1);
+                // Always allow one ring so a tiny budget still makes progress
+                if (ring > budget && applied != view.applied) {
+                    break;
+                }
+                budget -= ring;
+                budgetedChunks.addAndGet(ring);
+                applied++;
+            }
+
+            view.applied = applied;
+            push(player, applied);
+
+            if (DEBUG) {
+                logger.info("[EH] Native send distance for {} raised to {} (target {})",
+                        player.getName(), applied, view.target);
+            }
+        }
+    }
+
+    private void push(Player player, int distance) {
+        distanceChanges.incrementAndGet();
+        player.getScheduler().run(ExtendedHorizonsPlugin.getInstance(), (task) -> {
+            if (distance >= player.getSendViewDistance()) {
+                player.setViewDistance(distance);
+                player.setSendViewDistance(distance);
+            } else {
+                player.setSendViewDistance(distance);
+                player.setViewDistance(distance);
+            }
+        }, null);
+    }
+
+    /**
+     * Number of chunks added when a circular view grows from radius - 1 to
+     * radius.
+     */
+    private static int ringChunks(int radius) {
+        return (int) Math.ceil(Math.PI * (2 * radius - 1));
+    }
+
+    private static int clamp(int distance) {
+        return Math.max(MIN_PAPER_VIEW_DISTANCE, Math.min(MAX_PAPER_VIEW_DISTANCE, distance));
+    }
+
+    private boolean isBandwidthLimited() {
+        MainConfig.BandwidthSaverConfig config = configService.get().bandwidthSaver();
+        return config != null && config.enabled() && config.maxBandwidthPerPlayer() > 0;
+    }
+
+    private long getChunksPerSecond() {
+        if (!isBandwidthLimited()) {
+            return Long.MAX_VALUE;
+        }
+
+        MainConfig.BandwidthSaverConfig config = configService.get().bandwidthSaver();
+        int packetSize = config.estimatedPacketSize() > 0 ? config.estimatedPacketSize() : 40000;
+        return Math.max(1L, config.maxBandwidthPerPlayer() * 1024L / packetSize);
+    }
+
+    public Map<String, Long> getStats() {
+        long ramping = 0;
+        long distanceSum = 0;
+        for (NativeView view : views.values()) {
+            if (view.applied < view.target) {
+                ramping++;
+            }
+            distanceSum += view.applied;
+        }
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("players", (long) views.size());
+        stats.put("ramping", ramping);
+        stats.put("average_distance", views.isEmpty() ? 0L : distanceSum / views.size());
+        stats.put("distance_changes", distanceChanges.get());
+        stats.put("budgeted_chunks", budgetedChunks.get());
+        return stats;
+    }
+}
@@ -0,0 +1,36 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.engine;
+
+/**
+ * Selects how chunks beyond the server view-distance reach the client.
+ */
+public enum ViewDistanceEngine {
+
+    /**
+     * The plugin loads and sends horizon chunks itself and keeps them on the
+     * client by cancelling unload packets.
+     */
+    FAKE_CHUNKS,
+
+    /**
+     * Paper's chunk system sends the chunks through the per-player send
+     * view-distance; the plugin only decides the distance.
+     */
+    PAPER_NATIVE;
+
+    /**
+     * Parses the configured engine name, falling back to {@link #FAKE_CHUNKS}.
+     */
+    public static ViewDistanceEngine fromConfig(String value) {
+        if (value == null) {
+            return FAKE_CHUNKS;
+        }
+
+        String normalized = value.trim().replace('-', '_').toUpperCase();
+        for (ViewDistanceEngine engine : values()) {
+            if (engine.name().equals(normalized)) {
+                return engine;
+            }
+        }
+        return FAKE_CHUNKS;
+    }
+}
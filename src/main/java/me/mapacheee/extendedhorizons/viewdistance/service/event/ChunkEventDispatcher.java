@@ -3,6 +3,8 @@ package me.mapacheee.extendedhorizons.viewdistance.service.event;
 import com.google.inject.Inject;
 import com.thewinterframework.service.annotation.Service;
 import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.api.event.FakeChunkBatchLoadEvent.ChunkCoordinate;
+import me.mapacheee.extendedhorizons.api.event.FakeChunkBatchUnloadEvent;
 import me.mapacheee.extendedhorizons.api.event.FakeChunkLoadEvent;
 import me.mapacheee.extendedhorizons.api.event.FakeChunkUnloadEvent;
 import org.bukkit.Bukkit;
@@ -11,6 +13,7 @@ import org.bukkit.entity.Player;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -88,6 +91,38 @@ public class ChunkEventDispatcher {
         });
     }
 
+    /**
+     * Fires one FakeChunkBatchUnloadEvent for a group of chunks in a single
+     * main thread task. Per-chunk FakeChunkUnloadEvents are fired in the same
+     * task, and only while some plugin listens for them.
+     *
+     * @param player The player
+     * @param chunks The unloaded chunks
+     * @param world  The world
+     * @param reason The reason for unload
+     */
+    public void fireBatchUnloadEvent(Player player, List<ChunkCoordinate> chunks, World world,
+            FakeChunkUnloadEvent.UnloadReason reason) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(ExtendedHorizonsPlugin.getInstance(), () -> {
+            try {
+                Bukkit.getPluginManager().callEvent(new FakeChunkBatchUnloadEvent(player, chunks, world, reason));
+
+                if (FakeChunkUnloadEvent.getHandlerList().getRegisteredListeners().length > 0) {
+                    for (ChunkCoordinate chunk : chunks) {
+                        Bukkit.getPluginManager().callEvent(
+                                new FakeChunkUnloadEvent(player, chunk.getX(), chunk.getZ(), world, reason));
+                    }
+                }
+            } catch (Throwable t) {
+                logger.error("[EH] Error firing FakeChunkBatchUnloadEvent", t);
+            }
+        });
+    }
+
     /**
      * Optimized version for firing load event where we want to know cancellation
      * status
@@ -0,0 +1,33 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.load;
+
+/**
+ * Priority classes for chunk loads requested by the plugin.
+ * Lower ordinal means higher priority; classes are dispatched in declaration
+ * order.
+ */
+public enum ChunkLoadPriority {
+
+    /**
+     * Chunks a player is standing in or about to stand in (join, teleport).
+     * Loaded with Paper's urgent priority and never delayed.
+     */
+    REAL_VIEW,
+
+    /**
+     * Horizon chunks in the first band beyond the server view-distance.
+     */
+    NEAR_HORIZON,
+
+    /**
+     * Remaining horizon chunks. Only dispatched when nothing more important is
+     * waiting.
+     */
+    FAR_HORIZON;
+
+    /**
+     * Key prefix used when reporting metrics for this class.
+     */
+    public String metricPrefix() {
+        return name().toLowerCase();
+    }
+}
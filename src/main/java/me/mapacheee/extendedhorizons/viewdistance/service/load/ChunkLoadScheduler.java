@@ -0,0 +1,276 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.load;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import com.thewinterframework.service.annotation.lifecycle.OnEnable;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches chunk loads to the server in priority classes.
+ *
+ * Real-view loads are handed to Paper immediately with urgent priority and
+ * block every horizon dispatch while they are pending. Near-horizon loads go
+ * next, and far-horizon loads are only dispatched once no near-horizon load is
+ * waiting. Horizon loads share a bounded in-flight budget so a login rush
+ * cannot flood the chunk system with distant terrain.
+ *
+ * Requests for a chunk that is already queued or loading share the pending
+ * load, so players standing close to each other load each chunk once.
+ */
+@Service
+public class ChunkLoadScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkLoadScheduler.class);
+    private static final boolean DEBUG = false;
+
+    private static final int DEFAULT_NEAR_HORIZON_BAND = 8;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    private final ConfigService configService;
+
+    private final Map<ChunkLoadPriority, Queue<LoadRequest>> queues = new EnumMap<>(ChunkLoadPriority.class);
+    private final Map<ChunkLoadPriority, AtomicInteger> inFlight = new EnumMap<>(ChunkLoadPriority.class);
+    private final Map<ChunkLoadPriority, AtomicLong> completed = new EnumMap<>(ChunkLoadPriority.class);
+    private final Map<RequestKey, LoadRequest> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sharedLoads = new AtomicLong(0);
+
+    private ScheduledTask dispatchTask;
+
+    private record RequestKey(UUID worldId, int chunkX, int chunkZ, boolean generate) {
+    }
+
+    private static final class LoadRequest {
+        final RequestKey key;
+        final World world;
+        final int chunkX;
+        final int chunkZ;
+        final boolean generate;
+        final ChunkLoadPriority priority;
+        final CompletableFuture<Chunk> future = new CompletableFuture<>();
+
+        LoadRequest(World world, int chunkX, int chunkZ, boolean generate, ChunkLoadPriority priority) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.generate = generate;
+            this.priority = priority;
+            this.key = new RequestKey(world.getUID(), chunkX, chunkZ, generate);
+        }
+    }
+
+    @Inject
+    public ChunkLoadScheduler(ConfigService configService) {
+        this.configService = configService;
+        for (ChunkLoadPriority priority : ChunkLoadPriority.values()) {
+            queues.put(priority, new ConcurrentLinkedQueue<>());
+            inFlight.put(priority, new AtomicInteger());
+            completed.put(priority, new AtomicLong());
+        }
+    }
+
+    @OnEnable
+    public void start() {
+        this.dispatchTask = Bukkit.getAsyncScheduler()
+                .runAtFixedRate(ExtendedHorizonsPlugin.getInstance(), (task) -> dispatch(),
+                        50L, 50L, TimeUnit.MILLISECONDS);
+    }
+
+    @OnDisable
+    public void stop() {
+        if (dispatchTask != null) {
+            dispatchTask.cancel();
+            dispatchTask = null;
+        }
+
+        for (Queue<LoadRequest> queue : queues.values()) {
+            LoadRequest request;
+            while ((request = queue.poll()) != null) {
+                request.future.cancel(false);
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Requests a chunk load in the given priority class.
+     *
+     * @param world    The world containing the chunk
+     * @param chunkX   Chunk X coordinate
+     * @param chunkZ   Chunk Z coordinate
+     * @param generate Whether the chunk may be generated if it does not exist
+     * @param priority The priority class of the load
+     * @return Future completed with the chunk (or null) once the server loaded it
+     */
+    public CompletableFuture<Chunk> load(World world, int chunkX, int chunkZ, boolean generate,
+            ChunkLoadPriority priority) {
+        if (!isEnabled()) {
+            return world.getChunkAtAsync(chunkX, chunkZ, generate);
+        }
+
+        LoadRequest request = new LoadRequest(world, chunkX, chunkZ, generate, priority);
+        // A pending load of a lower class is not shared, so it cannot hold the new request back
+        LoadRequest existing = pending.merge(request.key, request,
+                (current, added) -> current.priority.compareTo(added.priority) <= 0 ? current : added);
+        if (existing != request) {
+            sharedLoads.incrementAndGet();
+            return existing.future;
+        }
+
+        queues.get(priority).add(request);
+        dispatch();
+        return request.future;
+    }
+
+    /**
+     * Classifies a horizon chunk as near or far based on its distance to the
+     * player's chunk.
+     */
+    public ChunkLoadPriority classifyHorizon(int playerChunkX, int playerChunkZ, int chunkX, int chunkZ) {
+        int nearRadius = Bukkit.getViewDistance() + getNearHorizonBand();
+        int dx = chunkX - playerChunkX;
+        int dz = chunkZ - playerChunkZ;
+        double nearRadiusSquared = (nearRadius + 0.5) * (nearRadius + 0.5);
+        return dx * dx + dz * dz <= nearRadiusSquared
+                ? ChunkLoadPriority.NEAR_HORIZON
+                : ChunkLoadPriority.FAR_HORIZON;
+    }
+
+    /**
+     * Hands queued requests to the server, highest class first.
+     * Horizon classes are held back while real-view loads are pending.
+     */
+    private synchronized void dispatch() {
+        Queue<LoadRequest> realQueue = queues.get(ChunkLoadPriority.REAL_VIEW);
+        LoadRequest request;
+        while ((request = realQueue.poll()) != null) {
+            submit(request);
+        }
+
+        if (inFlight.get(ChunkLoadPriority.REAL_VIEW).get() > 0) {
+            return;
+        }
+
+        int budget = getMaxInFlight()
+                - inFlight.get(ChunkLoadPriority.NEAR_HORIZON).get()
+                - inFlight.get(ChunkLoadPriority.FAR_HORIZON).get();
+
+        Queue<LoadRequest> nearQueue = queues.get(ChunkLoadPriority.NEAR_HORIZON);
+        while (budget > 0 && (request = nearQueue.poll()) != null) {
+            submit(request);
+            budget--;
+        }
+
+        if (!nearQueue.isEmpty()) {
+            return;
+        }
+
+        Queue<LoadRequest> farQueue = queues.get(ChunkLoadPriority.FAR_HORIZON);
+        while (budget > 0 && (request = farQueue.poll()) != null) {
+            submit(request);
+            budget--;
+        }
+    }
+
+    private void submit(LoadRequest request) {
+        AtomicInteger counter = inFlight.get(request.priority);
+        counter.incrementAndGet();
+
+        boolean urgent = request.priority == ChunkLoadPriority.REAL_VIEW;
+        CompletableFuture<Chunk> load;
+        try {
+            load = request.world.getChunkAtAsync(request.chunkX, request.chunkZ, request.generate, urgent);
+        } catch (Throwable t) {
+            counter.decrementAndGet();
+            pending.remove(request.key, request);
+            request.future.completeExceptionally(t);
+            return;
+        }
+
+        load.whenComplete((chunk, throwable) -> {
+            counter.decrementAndGet();
+            completed.get(request.priority).incrementAndGet();
+            pending.remove(request.key, request);
+
+            if (throwable != null) {
+                request.future.completeExceptionally(throwable);
+            } else {
+                request.future.complete(chunk);
+            }
+
+            if (DEBUG) {
+                logger.info("[EH] {} load of {},{} finished", request.priority, request.chunkX, request.chunkZ);
+            }
+
+            dispatch();
+        });
+    }
+
+    /**
+     * Gets the number of horizon loads waiting for dispatch.
+     */
+    public int getQueuedHorizonLoads() {
+        return queues.get(ChunkLoadPriority.NEAR_HORIZON).size()
+                + queues.get(ChunkLoadPriority.FAR_HORIZON).size();
+    }
+
+    /**
+     * Gets the number of loads waiting for dispatch in a priority class.
+     */
+    public int getQueueDepth(ChunkLoadPriority priority) {
+        return queues.get(priority).size();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (ChunkLoadPriority priority : ChunkLoadPriority.values()) {
+            String prefix = priority.metricPrefix();
+            stats.put(prefix + "_queued", (long) queues.get(priority).size());
+            stats.put(prefix + "_in_flight", (long) inFlight.get(priority).get());
+            stats.put(prefix + "_completed", completed.get(priority).get());
+        }
+        stats.put("shared_loads", sharedLoads.get());
+        return stats;
+    }
+
+    private boolean isEnabled() {
+        MainConfig.PerformanceConfig.LoadPriorityConfig config = configService.get().performance().loadPriority();
+        return config != null && config.enabled();
+    }
+
+    private int getNearHorizonBand() {
+        MainConfig.PerformanceConfig.LoadPriorityConfig config = configService.get().performance().loadPriority();
+        if (config == null || config.nearHorizonBand() < 0) {
+            return DEFAULT_NEAR_HORIZON_BAND;
+        }
+        return config.nearHorizonBand();
+    }
+
+    private int getMaxInFlight() {
+        MainConfig.PerformanceConfig.LoadPriorityConfig config = configService.get().performance().loadPriority();
+        if (config == null || config.maxInFlightLoads() <= 0) {
+            return DEFAULT_MAX_IN_FLIGHT;
+        }
+        return config.maxInFlightLoads();
+    }
+}
@@ -0,0 +1,201 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.load;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks server chunks that are loaded only so they can be serialized as
+ * horizon chunks.
+ *
+ * A chunk becomes resident when a horizon load finds it unloaded, and every
+ * horizon load of the same chunk holds a reference to it. Once loaded, the
+ * chunk is held with a plugin chunk ticket so the server does not unload it
+ * under an encode in progress. When the last reference is released after
+ * encoding, the ticket is removed and the chunk goes back to the server's
+ * normal unloading instead of lingering until the next regular unload pass.
+ * Chunks that were already loaded by the server are never touched.
+ */
+@Service
+public class ChunkResidencyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkResidencyManager.class);
+    private static final boolean DEBUG = false;
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final Map<ResidentKey, Resident> resident = new ConcurrentHashMap<>();
+    private final AtomicLong tracked = new AtomicLong(0);
+    private final AtomicLong released = new AtomicLong(0);
+    private final AtomicLong keptInView = new AtomicLong(0);
+
+    private record ResidentKey(UUID worldId, long chunkKey) {
+    }
+
+    private static final class Resident {
+        int references;
+        long bytes;
+        boolean ticketed;
+    }
+
+    @Inject
+    public ChunkResidencyManager(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    @OnDisable
+    public void shutdown() {
+        resident.clear();
+    }
+
+    /**
+     * Starts tracking a chunk about to be loaded for horizon serialization,
+     * or adds a reference if another horizon load already tracks it. Chunks
+     * that are already loaded by the server are ignored.
+     *
+     * @return true if the chunk is now tracked as horizon-only
+     */
+    public boolean track(World world, int chunkX, int chunkZ) {
+        ResidentKey key = new ResidentKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ));
+        boolean[] added = new boolean[1];
+        Resident entry = resident.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.references++;
+                return existing;
+            }
+            if (world.isChunkLoaded(chunkX, chunkZ)) {
+                return null;
+            }
+            Resident created = new Resident();
+            created.references = 1;
+            added[0] = true;
+            return created;
+        });
+        if (added[0]) {
+            tracked.incrementAndGet();
+        }
+        return entry != null;
+    }
+
+    /**
+     * Records the estimated heap size of a tracked chunk once it is loaded and
+     * holds it with a plugin ticket until the last reference is released.
+     */
+    public void recordLoaded(World world, int chunkX, int chunkZ, Object nmsChunk) {
+        ResidentKey key = new ResidentKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ));
+        boolean[] ticket = new boolean[1];
+        resident.computeIfPresent(key, (k, entry) -> {
+            entry.bytes = nmsChunkAccess.estimateMemoryUsage(nmsChunk);
+            if (!entry.ticketed && isReleaseEnabled()) {
+                entry.ticketed = true;
+                ticket[0] = true;
+            }
+            return entry;
+        });
+
+        if (ticket[0]) {
+            // Ticket changes for a chunk run in order on its region
+            Bukkit.getRegionScheduler().execute(ExtendedHorizonsPlugin.getInstance(), world, chunkX, chunkZ,
+                    () -> world.addPluginChunkTicket(chunkX, chunkZ, ExtendedHorizonsPlugin.getInstance()));
+        }
+    }
+
+    /**
+     * Checks whether a chunk is currently held only for horizon serialization.
+     */
+    public boolean isHorizonOnly(World world, int chunkX, int chunkZ) {
+        return resident.containsKey(new ResidentKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ)));
+    }
+
+    /**
+     * Drops one reference to a chunk after its packet was encoded (or the load
+     * failed). When the last reference goes, the plugin ticket is removed so
+     * the server can unload the chunk.
+     */
+    public void release(World world, int chunkX, int chunkZ) {
+        ResidentKey key = new ResidentKey(world.getUID(), ChunkUtils.packChunkKey(chunkX, chunkZ));
+        boolean[] ticketed = new boolean[1];
+        boolean[] last = new boolean[1];
+        resident.computeIfPresent(key, (k, entry) -> {
+            if (--entry.references > 0) {
+                return entry;
+            }
+            last[0] = true;
+            ticketed[0] = entry.ticketed;
+            return null;
+        });
+
+        if (!last[0] || !ticketed[0]) {
+            return;
+        }
+
+        Bukkit.getRegionScheduler().execute(ExtendedHorizonsPlugin.getInstance(), world, chunkX, chunkZ, () -> {
+            world.removePluginChunkTicket(chunkX, chunkZ, ExtendedHorizonsPlugin.getInstance());
+            released.incrementAndGet();
+
+            // Still loaded afterwards if a player sees it through the real view
+            if (!world.getPlayersSeeingChunk(chunkX, chunkZ).isEmpty()) {
+                keptInView.incrementAndGet();
+            }
+
+            if (DEBUG) {
+                logger.info("[EH] Released horizon-only chunk {},{} in {}", chunkX, chunkZ, world.getName());
+            }
+        });
+    }
+
+    /**
+     * Gets the number of chunks currently loaded only for horizons.
+     */
+    public int getResidentChunks() {
+        return resident.size();
+    }
+
+    /**
+     * Gets the estimated heap held by horizon-only chunks, in bytes.
+     */
+    public long getResidentBytes() {
+        long total = 0;
+        for (Resident entry : resident.values()) {
+            total += entry.bytes;
+        }
+        return total;
+    }
+
+    public double getResidentMemoryMB() {
+        return getResidentBytes() / (1024.0 * 1024.0);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("resident_chunks", (long) getResidentChunks());
+        stats.put("resident_kb", getResidentBytes() / 1024);
+        stats.put("tracked", tracked.get());
+        stats.put("released", released.get());
+        stats.put("kept_in_view", keptInView.get());
+        return stats;
+    }
+
+    private boolean isReleaseEnabled() {
+        MainConfig.PerformanceConfig.ChunkResidencyConfig config = configService.get().performance()
+                .chunkResidency();
+        return config == null || config.releaseAfterEncode();
+    }
+}
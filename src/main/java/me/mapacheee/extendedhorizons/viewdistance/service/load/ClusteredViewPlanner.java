@@ -0,0 +1,414 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.load;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plans the horizons of players standing close to each other together and
+ * derives each update from the previous one.
+ *
+ * Players are grouped by proximity: a cluster is anchored where its first
+ * player stood, and any player of the same world whose whole horizon fits in
+ * the cluster's union circle joins it, whatever their view distance. The
+ * union, with the world border already applied, is built once per cluster and
+ * a joining or teleporting player's full horizon is filtered from it.
+ *
+ * After that, a player's plan only carries what changed: when the player
+ * moves, the chunks entering and leaving the horizon ring are computed row by
+ * row from the old and new rings, so the work is proportional to the move and
+ * not to the horizon. A full plan is still made every
+ * {@link #FULL_RESYNC_PLANS} plans so chunks that failed to arrive are
+ * requested again.
+ */
+@Service
+public class ClusteredViewPlanner {
+
+    private static final int DEFAULT_CLUSTER_RADIUS = 4;
+    private static final int MAX_CLUSTERS = 64;
+    private static final long IDLE_EXPIRY_MS = 10_000;
+    private static final int FULL_RESYNC_PLANS = 20;
+
+    private final ConfigService configService;
+
+    private final List<Cluster> clusters = new ArrayList<>();
+    private final Map<UUID, MemberPlan> members = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> halfWidths = new ConcurrentHashMap<>();
+    private final AtomicLong fullPlans = new AtomicLong(0);
+    private final AtomicLong deltaPlans = new AtomicLong(0);
+    private final AtomicLong deltaChunks = new AtomicLong(0);
+    private final AtomicLong unionBuilds = new AtomicLong(0);
+    private final AtomicLong unionReuses = new AtomicLong(0);
+
+    /**
+     * The chunks of a player's horizon plan.
+     *
+     * @param full    Whether {@code chunks} holds the whole horizon; if not,
+     *                only {@code added} and {@code removed} are set
+     * @param chunks  Every fake chunk of the horizon, for full plans
+     * @param added   Chunks that entered the horizon since the previous plan
+     * @param removed Chunks that left the horizon since the previous plan
+     */
+    public record ViewPlan(boolean full, Set<Long> chunks, List<Long> added, List<Long> removed) {
+
+        public static ViewPlan full(Set<Long> chunks) {
+            return new ViewPlan(true, chunks, List.of(), List.of());
+        }
+
+        public boolean isEmpty() {
+            return full ? chunks.isEmpty() : added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private record Border(double centerX, double centerZ, double size) {
+    }
+
+    private static final class Cluster {
+        final UUID worldId;
+        final int anchorX;
+        final int anchorZ;
+        final int unionRadius;
+        final Border border;
+        final long[] union;
+        final Set<UUID> players = new HashSet<>();
+        long lastUsed = System.currentTimeMillis();
+
+        Cluster(UUID worldId, int anchorX, int anchorZ, int unionRadius, Border border, long[] union) {
+            this.worldId = worldId;
+            this.anchorX = anchorX;
+            this.anchorZ = anchorZ;
+            this.unionRadius = unionRadius;
+            this.border = border;
+            this.union = union;
+        }
+
+        boolean fits(UUID worldId, int centerX, int centerZ, int radius, Border border) {
+            if (!this.worldId.equals(worldId) || !this.border.equals(border)) {
+                return false;
+            }
+            long dx = centerX - anchorX;
+            long dz = centerZ - anchorZ;
+            // The horizon circle has to lie inside the union circle
+            double reach = Math.sqrt(dx * dx + dz * dz) + radius + 0.5;
+            return reach <= unionRadius + 0.5;
+        }
+    }
+
+    private static final class MemberPlan {
+        final UUID worldId;
+        final int centerX;
+        final int centerZ;
+        final int radius;
+        final int serverViewDistance;
+        final Border border;
+        final int plansSinceFull;
+        final Cluster cluster;
+
+        MemberPlan(UUID worldId, int centerX, int centerZ, int radius, int serverViewDistance, Border border,
+                int plansSinceFull, Cluster cluster) {
+            this.worldId = worldId;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.radius = radius;
+            this.serverViewDistance = serverViewDistance;
+            this.border = border;
+            this.plansSinceFull = plansSinceFull;
+            this.cluster = cluster;
+        }
+
+        boolean sameShape(UUID worldId, int radius, int serverViewDistance, Border border) {
+            return this.worldId.equals(worldId) && this.radius == radius
+                    && this.serverViewDistance == serverViewDistance && this.border.equals(border);
+        }
+    }
+
+    @Inject
+    public ClusteredViewPlanner(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    @OnDisable
+    public synchronized void clear() {
+        clusters.clear();
+        members.clear();
+    }
+
+    public boolean isEnabled() {
+        MainConfig.PerformanceConfig.ViewClusteringConfig config = configService.get().performance().viewClustering();
+        return config != null && config.enabled();
+    }
+
+    /**
+     * Plans the fake chunks (beyond the server view-distance and within the
+     * world border) of a player in the given chunk.
+     *
+     * @param forceFull Makes a full plan even if a delta would do, e.g. when
+     *                  the player's sent chunks were cleared
+     */
+    public ViewPlan plan(UUID playerId, World world, int centerX, int centerZ, int radius, int serverViewDistance,
+            double borderCenterX, double borderCenterZ, double borderSize, boolean forceFull) {
+        Border border = new Border(borderCenterX, borderCenterZ, borderSize);
+        MemberPlan previous = members.get(playerId);
+        Cluster cluster = joinCluster(playerId, previous, world.getUID(), centerX, centerZ, radius, border);
+
+        boolean delta = !forceFull && previous != null
+                && previous.plansSinceFull < FULL_RESYNC_PLANS
+                && previous.sameShape(world.getUID(), radius, serverViewDistance, border)
+                && Math.abs(centerX - previous.centerX) <= radius
+                && Math.abs(centerZ - previous.centerZ) <= radius;
+
+        if (delta) {
+            List<Long> added = new ArrayList<>();
+            List<Long> removed = new ArrayList<>();
+            if (centerX != previous.centerX || centerZ != previous.centerZ) {
+                diffRings(previous.centerX, previous.centerZ, centerX, centerZ, radius, serverViewDistance, border,
+                        added, removed);
+            }
+            members.put(playerId, new MemberPlan(world.getUID(), centerX, centerZ, radius, serverViewDistance,
+                    border, previous.plansSinceFull + 1, cluster));
+            deltaPlans.incrementAndGet();
+            deltaChunks.addAndGet(added.size() + removed.size());
+            return new ViewPlan(false, null, added, removed);
+        }
+
+        members.put(playerId, new MemberPlan(world.getUID(), centerX, centerZ, radius, serverViewDistance, border,
+                0, cluster));
+        fullPlans.incrementAndGet();
+        return ViewPlan.full(filterUnion(cluster, centerX, centerZ, radius, serverViewDistance));
+    }
+
+    /**
+     * Forgets a player's previous plan, so the next plan is a full one.
+     */
+    public synchronized void forget(UUID playerId) {
+        MemberPlan previous = members.remove(playerId);
+        if (previous != null) {
+            previous.cluster.players.remove(playerId);
+        }
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        long deltas = deltaPlans.get();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("clusters", (long) clusters.size());
+        stats.put("clustered_players", (long) members.size());
+        stats.put("full_plans", fullPlans.get());
+        stats.put("delta_plans", deltas);
+        stats.put("avg_delta_chunks", deltas > 0 ? deltaChunks.get() / deltas : 0);
+        stats.put("union_builds", unionBuilds.get());
+        stats.put("union_reuses", unionReuses.get());
+        return stats;
+    }
+
+    /**
+     * Keeps the player in their cluster while their horizon still fits in it,
+     * otherwise moves them to a cluster it fits in or starts a new one around
+     * them.
+     */
+    private synchronized Cluster joinCluster(UUID playerId, MemberPlan previous, UUID worldId, int centerX,
+            int centerZ, int radius, Border border) {
+        long now = System.currentTimeMillis();
+        if (previous != null && previous.cluster.fits(worldId, centerX, centerZ, radius, border)
+                && clusters.contains(previous.cluster)) {
+            previous.cluster.lastUsed = now;
+            return previous.cluster;
+        }
+        if (previous != null) {
+            previous.cluster.players.remove(playerId);
+        }
+
+        Cluster joined = null;
+        for (Cluster cluster : clusters) {
+            if (cluster.fits(worldId, centerX, centerZ, radius, border)) {
+                joined = cluster;
+                unionReuses.incrementAndGet();
+                break;
+            }
+        }
+
+        if (joined == null) {
+            evictIdle(now);
+            int unionRadius = radius + getClusterRadius();
+            joined = new Cluster(worldId, centerX, centerZ, unionRadius, border,
+                    buildUnion(centerX, centerZ, unionRadius, border));
+            clusters.add(joined);
+            unionBuilds.incrementAndGet();
+        }
+
+        joined.players.add(playerId);
+        joined.lastUsed = now;
+        return joined;
+    }
+
+    /**
+     * Collects every chunk of the union circle that lies within the world
+     * border.
+     */
+    private long[] buildUnion(int anchorX, int anchorZ, int unionRadius, Border border) {
+        int[] widths = halfWidths(unionRadius);
+        int count = 0;
+        long[] keys = new long[(2 * unionRadius + 1) * (2 * unionRadius + 1)];
+        for (int dz = -unionRadius; dz <= unionRadius; dz++) {
+            int width = widths[Math.abs(dz)];
+            int z = anchorZ + dz;
+            for (int x = anchorX - width; x <= anchorX + width; x++) {
+                if (ChunkUtils.isChunkWithinWorldBorder(border.centerX(), border.centerZ(), border.size(), x, z)) {
+                    keys[count++] = ChunkUtils.packChunkKey(x, z);
+                }
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    private Set<Long> filterUnion(Cluster cluster, int centerX, int centerZ, int radius, int serverViewDistance) {
+        double radiusSquared = (radius + 0.5) * (radius + 0.5);
+        double serverRadiusSquared = (serverViewDistance + 0.5) * (serverViewDistance + 0.5);
+
+        Set<Long> fakeChunks = new HashSet<>();
+        for (long chunkKey : cluster.union) {
+            long dx = ChunkUtils.unpackX(chunkKey) - centerX;
+            long dz = ChunkUtils.unpackZ(chunkKey) - centerZ;
+            long distanceSquared = dx * dx + dz * dz;
+            if (distanceSquared <= radiusSquared && distanceSquared > serverRadiusSquared) {
+                fakeChunks.add(chunkKey);
+            }
+        }
+        return fakeChunks;
+    }
+
+    /**
+     * Computes the chunks entering and leaving the horizon ring when its
+     * center moves, one row at a time. Each row of a ring is at most two
+     * intervals, so a row costs a few comparisons plus the chunks it yields.
+     */
+    private void diffRings(int oldX, int oldZ, int newX, int newZ, int radius, int serverViewDistance,
+            Border border, List<Long> added, List<Long> removed) {
+        int[] outer = halfWidths(radius);
+        int[] inner = halfWidths(serverViewDistance);
+        int[] oldRow = new int[4];
+        int[] newRow = new int[4];
+
+        int minZ = Math.min(oldZ, newZ) - radius;
+        int maxZ = Math.max(oldZ, newZ) + radius;
+        for (int z = minZ; z <= maxZ; z++) {
+            int oldCount = ringRow(outer, inner, radius, serverViewDistance, oldX, z - oldZ, oldRow);
+            int newCount = ringRow(outer, inner, radius, serverViewDistance, newX, z - newZ, newRow);
+            subtract(z, newRow, newCount, oldRow, oldCount, border, added);
+            subtract(z, oldRow, oldCount, newRow, newCount, null, removed);
+        }
+    }
+
+    /**
+     * Writes the x intervals of one ring row as start/end pairs, in
+     * ascending order, and returns how many values were written.
+     */
+    private static int ringRow(int[] outer, int[] inner, int radius, int serverViewDistance, int centerX, int dz,
+            int[] out) {
+        int distance = Math.abs(dz);
+        if (distance > radius) {
+            return 0;
+        }
+
+        int outerWidth = outer[distance];
+        if (distance > serverViewDistance) {
+            out[0] = centerX - outerWidth;
+            out[1] = centerX + outerWidth;
+            return 2;
+        }
+
+        int innerWidth = inner[distance];
+        if (innerWidth >= outerWidth) {
+            return 0;
+        }
+        out[0] = centerX - outerWidth;
+        out[1] = centerX - innerWidth - 1;
+        out[2] = centerX + innerWidth + 1;
+        out[3] = centerX + outerWidth;
+        return 4;
+    }
+
+    /**
+     * Adds the chunks of row {@code z} covered by {@code from} but not by
+     * {@code minus}. Chunks outside the border are skipped when one is given.
+     */
+    private static void subtract(int z, int[] from, int fromCount, int[] minus, int minusCount, Border border,
+            List<Long> out) {
+        for (int i = 0; i < fromCount; i += 2) {
+            int start = from[i];
+            int end = from[i + 1];
+            for (int j = 0; j < minusCount && start <= end; j += 2) {
+                int minusStart = minus[j];
+                int minusEnd = minus[j + 1];
+                if (minusEnd < start || minusStart > end) {
+                    continue;
+                }
+                if (minusStart > start) {
+                    emit(z, start, minusStart - 1, border, out);
+                }
+                start = minusEnd + 1;
+            }
+            if (start <= end) {
+                emit(z, start, end, border, out);
+            }
+        }
+    }
+
+    private static void emit(int z, int startX, int endX, Border border, List<Long> out) {
+        for (int x = startX; x <= endX; x++) {
+            if (border == null
+                    || ChunkUtils.isChunkWithinWorldBorder(border.centerX(), border.centerZ(), border.size(), x, z)) {
+                out.add(ChunkUtils.packChunkKey(x, z));
+            }
+        }
+    }
+
+    /**
+     * Gets, for each row distance from the center, the largest x distance
+     * still inside a circle of the given radius.
+     */
+    private int[] halfWidths(int radius) {
+        return halfWidths.computeIfAbsent(radius, r -> {
+            double radiusSquared = (r + 0.5) * (r + 0.5);
+            int[] widths = new int[r + 1];
+            for (int dz = 0; dz <= r; dz++) {
+                widths[dz] = (int) Math.floor(Math.sqrt(radiusSquared - (double) dz * dz));
+            }
+            return widths;
+        });
+    }
+
+    private void evictIdle(long now) {
+        long cutoff = now - IDLE_EXPIRY_MS;
+        Iterator<Cluster> iterator = clusters.iterator();
+        while (iterator.hasNext()) {
+            Cluster cluster = iterator.next();
+            if (cluster.players.isEmpty() && (cluster.lastUsed < cutoff || clusters.size() >= MAX_CLUSTERS)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private int getClusterRadius() {
+        MainConfig.PerformanceConfig.ViewClusteringConfig config = configService.get().performance().viewClustering();
+        if (config == null || config.clusterRadius() <= 0) {
+            return DEFAULT_CLUSTER_RADIUS;
+        }
+        return config.clusterRadius();
+    }
+}
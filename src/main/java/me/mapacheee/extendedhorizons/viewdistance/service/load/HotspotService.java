@@ -0,0 +1,441 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.load;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.thewinterframework.service.annotation.Service;
+import com.thewinterframework.service.annotation.lifecycle.OnDisable;
+import com.thewinterframework.service.annotation.lifecycle.OnEnable;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.FakeChunkService;
+import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learns where players keep standing and arriving and warms the horizon
+ * around those places ahead of the next visit.
+ *
+ * Player positions, sampled at every view plan, and teleport destinations are
+ * counted per world in cells of {@code 2^CELL_SHIFT} chunks. Heat decays
+ * exponentially with a configurable half-life, so places nobody visits any
+ * more fade out, and the heatmap is saved to {@code hotspots.yml} so it
+ * survives restarts. Shortly after startup and then periodically, while the
+ * server has headroom, the horizon ring a player standing in each of the
+ * hottest cells would see is encoded through the normal horizon pipeline,
+ * closest chunks first, and the packets are kept in the encoded chunk cache
+ * until the pass after next, so they outlive the chunks themselves. Missing
+ * chunks are approximated where approximate generation applies and are only
+ * generated into the world when configured to.
+ */
+@Service
+public class HotspotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotspotService.class);
+    private static final boolean DEBUG = false;
+
+    private static final String FILE_NAME = "hotspots.yml";
+    private static final int CELL_SHIFT = 3;
+    private static final int MAX_TRACKED_CELLS = 4096;
+    // Cells colder than this are forgotten when the heatmap is pruned
+    private static final double MIN_HEAT = 0.5;
+    private static final double DEFAULT_HALF_LIFE_HOURS = 24.0;
+    private static final int DEFAULT_WARM_CELLS = 8;
+    private static final int DEFAULT_WARM_INTERVAL_MINUTES = 10;
+    private static final long STARTUP_WARM_DELAY_SECONDS = 60;
+    // Chunks requested per warm pass across all cells; the warm cache holds no more
+    private static final int MAX_WARM_CHUNKS_PER_PASS = 2048;
+
+    private final ConfigService configService;
+    private final Provider<FakeChunkService> fakeChunkServiceProvider;
+    private final Provider<ViewDistanceService> viewDistanceServiceProvider;
+
+    private final Map<CellKey, Heat> cells = new HashMap<>();
+    private List<Hotspot> warmSet = List.of();
+    private ScheduledTask warmTask;
+
+    private final AtomicLong recordedVisits = new AtomicLong(0);
+    private final AtomicLong warmPasses = new AtomicLong(0);
+    private final AtomicLong skippedPasses = new AtomicLong(0);
+    private final AtomicLong warmRequests = new AtomicLong(0);
+    private final AtomicLong warmedChunks = new AtomicLong(0);
+
+    private record CellKey(String world, int cellX, int cellZ) {
+    }
+
+    private record ChunkKey(String world, long chunkKey) {
+    }
+
+    private static final class Heat {
+        double value;
+        long updatedAt;
+
+        Heat(double value, long updatedAt) {
+            this.value = value;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    /**
+     * A cell of the heatmap with its heat at the time it was read.
+     *
+     * @param world Name of the world
+     * @param cellX Cell X coordinate, in cells of {@code 2^CELL_SHIFT} chunks
+     * @param cellZ Cell Z coordinate
+     * @param heat  Decayed number of player visits
+     */
+    public record Hotspot(String world, int cellX, int cellZ, double heat) {
+
+        public int centerBlockX() {
+            return ((cellX << CELL_SHIFT) + (1 << (CELL_SHIFT - 1))) << 4;
+        }
+
+        public int centerBlockZ() {
+            return ((cellZ << CELL_SHIFT) + (1 << (CELL_SHIFT - 1))) << 4;
+        }
+    }
+
+    @Inject
+    public HotspotService(ConfigService configService, Provider<FakeChunkService> fakeChunkServiceProvider,
+            Provider<ViewDistanceService> viewDistanceServiceProvider) {
+        this.configService = configService;
+        this.fakeChunkServiceProvider = fakeChunkServiceProvider;
+        this.viewDistanceServiceProvider = viewDistanceServiceProvider;
+    }
+
+    @OnEnable
+    public void start() {
+        load();
+
+        long intervalSeconds = TimeUnit.MINUTES.toSeconds(getWarmIntervalMinutes());
+        this.warmTask = Bukkit.getAsyncScheduler().runAtFixedRate(ExtendedHorizonsPlugin.getInstance(),
+                (task) -> {
+                    warm();
+                    save();
+                }, STARTUP_WARM_DELAY_SECONDS, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @OnDisable
+    public void stop() {
+        if (warmTask != null) {
+            warmTask.cancel();
+            warmTask = null;
+        }
+        save();
+    }
+
+    public boolean isEnabled() {
+        MainConfig.PerformanceConfig.HotspotsConfig config = configService.get().performance().hotspots();
+        return config != null && config.enabled();
+    }
+
+    /**
+     * Counts a visit of a chunk: a player standing in it for a view plan, or
+     * a teleport landing in it.
+     */
+    public void recordVisit(World world, int chunkX, int chunkZ) {
+        if (!isEnabled()) {
+            return;
+        }
+        recordedVisits.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        CellKey cellKey = new CellKey(world.getName(), chunkX >> CELL_SHIFT, chunkZ >> CELL_SHIFT);
+        synchronized (this) {
+            Heat heat = cells.get(cellKey);
+            if (heat == null) {
+                cells.put(cellKey, new Heat(1, now));
+            } else {
+                heat.value = decay(heat.value, heat.updatedAt, now) + 1;
+                heat.updatedAt = now;
+            }
+            if (cells.size() > MAX_TRACKED_CELLS) {
+                prune(now);
+            }
+        }
+    }
+
+    /**
+     * Gets the hottest cells, hottest first.
+     */
+    public synchronized List<Hotspot> getHottest(int limit) {
+        long now = System.currentTimeMillis();
+        List<Hotspot> hotspots = new ArrayList<>(cells.size());
+        for (Map.Entry<CellKey, Heat> entry : cells.entrySet()) {
+            CellKey key = entry.getKey();
+            double heat = decay(entry.getValue().value, entry.getValue().updatedAt, now);
+            hotspots.add(new Hotspot(key.world(), key.cellX(), key.cellZ(), heat));
+        }
+        hotspots.sort((a, b) -> Double.compare(b.heat(), a.heat()));
+        return hotspots.size() > limit ? new ArrayList<>(hotspots.subList(0, limit)) : hotspots;
+    }
+
+    /**
+     * Gets the cells requested by the last warm pass.
+     */
+    public synchronized List<Hotspot> getWarmSet() {
+        return warmSet;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("tracked_cells", (long) cells.size());
+            stats.put("warm_cells", (long) warmSet.size());
+        }
+        stats.put("recorded_visits", recordedVisits.get());
+        stats.put("warm_passes", warmPasses.get());
+        stats.put("skipped_passes", skippedPasses.get());
+        stats.put("warm_requests", warmRequests.get());
+        stats.put("warmed_chunks", warmedChunks.get());
+        return stats;
+    }
+
+    /**
+     * Encodes the horizon around the hottest cells, unless the server is busy.
+     */
+    private void warm() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (Bukkit.getAverageTickTime() > configService.get().performance().maxMsptForLoading()) {
+            skippedPasses.incrementAndGet();
+            return;
+        }
+
+        List<Hotspot> hottest = getHottest(getWarmCells());
+        synchronized (this) {
+            warmSet = List.copyOf(hottest);
+        }
+        warmPasses.incrementAndGet();
+
+        MainConfig.PerformanceConfig.HotspotsConfig config = configService.get().performance().hotspots();
+        boolean generate = config.generateMissing();
+        // Packets stay until the pass after next, so a skipped pass does not leave the cell cold
+        long ttlMillis = TimeUnit.MINUTES.toMillis(getWarmIntervalMinutes()) * 2;
+        FakeChunkService fakeChunkService = fakeChunkServiceProvider.get();
+        int serverViewDistance = fakeChunkService.getServerViewDistance();
+        int budget = MAX_WARM_CHUNKS_PER_PASS;
+        Set<ChunkKey> requested = new HashSet<>();
+        for (Hotspot hotspot : hottest) {
+            World world = Bukkit.getWorld(hotspot.world());
+            if (world == null || !fakeChunkService.isFakeChunksEnabledForWorld(world)) {
+                continue;
+            }
+
+            int radius = getWarmRadius(world);
+            int centerX = hotspot.centerBlockX() >> 4;
+            int centerZ = hotspot.centerBlockZ() >> 4;
+            for (long key : horizonRing(centerX, centerZ, serverViewDistance, radius)) {
+                if (budget <= 0) {
+                    break;
+                }
+                int x = ChunkUtils.unpackX(key);
+                int z = ChunkUtils.unpackZ(key);
+                // Rings of neighbouring hotspots overlap
+                if (!ChunkUtils.isChunkWithinWorldBorder(world, x, z)
+                        || !requested.add(new ChunkKey(world.getName(), key))) {
+                    continue;
+                }
+                warmChunk(fakeChunkService, world, x, z, generate, ttlMillis);
+                budget--;
+            }
+        }
+
+        if (DEBUG) {
+            logger.info("[EH] Warming {} hotspot cells", hottest.size());
+        }
+    }
+
+    private void warmChunk(FakeChunkService fakeChunkService, World world, int chunkX, int chunkZ,
+            boolean generate, long ttlMillis) {
+        warmRequests.incrementAndGet();
+        fakeChunkService.warmChunk(world, chunkX, chunkZ, generate, ttlMillis)
+                .thenAccept(cached -> {
+                    if (cached) {
+                        warmedChunks.incrementAndGet();
+                    }
+                });
+    }
+
+    /**
+     * Gets the horizon chunks a player standing in the center chunk sees,
+     * beyond the server's own view distance, closest first.
+     */
+    private List<Long> horizonRing(int centerX, int centerZ, int serverViewDistance, int radius) {
+        double innerSquared = (serverViewDistance + 0.5) * (serverViewDistance + 0.5);
+        double outerSquared = (radius + 0.5) * (radius + 0.5);
+        List<Long> ring = new ArrayList<>();
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                int distanceSquared = dx * dx + dz * dz;
+                if (distanceSquared > innerSquared && distanceSquared <= outerSquared) {
+                    ring.add(ChunkUtils.packChunkKey(centerX + dx, centerZ + dz));
+                }
+            }
+        }
+        ring.sort(Comparator.comparingLong(key -> {
+            long dx = ChunkUtils.unpackX(key) - centerX;
+            long dz = ChunkUtils.unpackZ(key) - centerZ;
+            return dx * dx + dz * dz;
+        }));
+        return ring;
+    }
+
+    /**
+     * Drops cold cells, then the coldest ones until the heatmap fits.
+     */
+    private void prune(long now) {
+        List<Map.Entry<CellKey, Heat>> entries = new ArrayList<>(cells.size());
+        for (Map.Entry<CellKey, Heat> entry : cells.entrySet()) {
+            entry.getValue().value = decay(entry.getValue().value, entry.getValue().updatedAt, now);
+            entry.getValue().updatedAt = now;
+            entries.add(entry);
+        }
+        entries.sort((a, b) -> Double.compare(a.getValue().value, b.getValue().value));
+
+        int excess = cells.size() - MAX_TRACKED_CELLS * 3 / 4;
+        for (Map.Entry<CellKey, Heat> entry : entries) {
+            if (excess <= 0 && entry.getValue().value >= MIN_HEAT) {
+                break;
+            }
+            cells.remove(entry.getKey());
+            excess--;
+        }
+    }
+
+    private double decay(double value, long updatedAt, long now) {
+        long elapsed = now - updatedAt;
+        if (elapsed <= 0) {
+            return value;
+        }
+        double halfLifeMs = getHalfLifeHours() * TimeUnit.HOURS.toMillis(1);
+        return value * Math.pow(0.5, elapsed / halfLifeMs);
+    }
+
+    private synchronized void load() {
+        File file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        // World names may contain dots, so paths use a separator they cannot contain
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.options().pathSeparator('/');
+        try {
+            yaml.load(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            logger.warn("[EH] Failed to load horizon hotspots: {}", e.getMessage());
+            return;
+        }
+
+        long savedAt = yaml.getLong("saved-at", System.currentTimeMillis());
+        ConfigurationSection worlds = yaml.getConfigurationSection("worlds");
+        if (worlds == null) {
+            return;
+        }
+
+        for (String worldName : worlds.getKeys(false)) {
+            ConfigurationSection section = worlds.getConfigurationSection(worldName);
+            if (section == null) {
+                continue;
+            }
+            for (String cell : section.getKeys(false)) {
+                String[] parts = cell.split("_");
+                if (parts.length != 2) {
+                    continue;
+                }
+                try {
+                    cells.put(new CellKey(worldName, Integer.parseInt(parts[0]), Integer.parseInt(parts[1])),
+                            new Heat(section.getDouble(cell), savedAt));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        prune(System.currentTimeMillis());
+        logger.info("[EH] Loaded {} horizon hotspots", cells.size());
+    }
+
+    private void save() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.options().pathSeparator('/');
+        synchronized (this) {
+            prune(now);
+            yaml.set("saved-at", now);
+            for (Map.Entry<CellKey, Heat> entry : cells.entrySet()) {
+                CellKey key = entry.getKey();
+                yaml.set("worlds/" + key.world() + "/" + key.cellX() + "_" + key.cellZ(), entry.getValue().value);
+            }
+        }
+
+        try {
+            yaml.save(getFile());
+        } catch (IOException e) {
+            logger.warn("[EH] Failed to save horizon hotspots: {}", e.getMessage());
+        }
+    }
+
+    private File getFile() {
+        return new File(ExtendedHorizonsPlugin.getInstance().getDataFolder(), FILE_NAME);
+    }
+
+    private double getHalfLifeHours() {
+        MainConfig.PerformanceConfig.HotspotsConfig config = configService.get().performance().hotspots();
+        if (config == null || config.halfLifeHours() <= 0) {
+            return DEFAULT_HALF_LIFE_HOURS;
+        }
+        return config.halfLifeHours();
+    }
+
+    private int getWarmCells() {
+        MainConfig.PerformanceConfig.HotspotsConfig config = configService.get().performance().hotspots();
+        if (config == null || config.warmCells() <= 0) {
+            return DEFAULT_WARM_CELLS;
+        }
+        return config.warmCells();
+    }
+
+    /**
+     * Gets the distance players see in a world by default, within the
+     * world's limit.
+     */
+    private int getWarmRadius(World world) {
+        return Math.min(configService.get().viewDistance().defaultDistance(),
+                viewDistanceServiceProvider.get().getWorldMaxDistance(world));
+    }
+
+    private int getWarmIntervalMinutes() {
+        MainConfig.PerformanceConfig.HotspotsConfig config = configService.get().performance().hotspots();
+        if (config == null || config.warmIntervalMinutes() <= 0) {
+            return DEFAULT_WARM_INTERVAL_MINUTES;
+        }
+        return config.warmIntervalMinutes();
+    }
+}
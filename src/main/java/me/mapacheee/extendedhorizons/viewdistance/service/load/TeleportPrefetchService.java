@@ -0,0 +1,272 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.load;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.entity.PlayerView;
+import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import me.mapacheee.extendedhorizons.viewdistance.service.cache.ChunkMemoryCache;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts loading the horizon around a teleport destination before the player
+ * arrives.
+ *
+ * The near-horizon ring around the destination is requested from the load
+ * scheduler with near-horizon priority as soon as the teleport is known,
+ * either from the teleport event or from another plugin announcing it through
+ * the API. Loaded chunks go to the memory cache, and the player's own loads on
+ * arrival share the requests that are still pending, so the horizon fills
+ * right away instead of starting from a cold queue after the warmup.
+ */
+@Service
+public class TeleportPrefetchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TeleportPrefetchService.class);
+    private static final boolean DEBUG = false;
+
+    private static final int DEFAULT_NEAR_HORIZON_BAND = 8;
+    private static final int DEFAULT_MAX_CHUNKS = 256;
+    // A prefetched destination counts for an arrival this long after it was announced
+    private static final long PREFETCH_EXPIRY_MS = 10_000;
+
+    private final ConfigService configService;
+    private final ChunkLoadScheduler chunkLoadScheduler;
+    private final ChunkMemoryCache chunkMemoryCache;
+    private final NMSChunkAccess nmsChunkAccess;
+    private final ViewDistanceService viewDistanceService;
+
+    private final Map<UUID, Destination> destinations = new ConcurrentHashMap<>();
+    private final AtomicLong prefetches = new AtomicLong(0);
+    private final AtomicLong requestedChunks = new AtomicLong(0);
+    private final AtomicLong loadedChunks = new AtomicLong(0);
+    private final AtomicLong arrivals = new AtomicLong(0);
+
+    private static final class Destination {
+        final UUID worldId;
+        final int chunkX;
+        final int chunkZ;
+        final long time = System.currentTimeMillis();
+        volatile boolean arrived;
+
+        Destination(UUID worldId, int chunkX, int chunkZ) {
+            this.worldId = worldId;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        boolean isExpired(long now) {
+            return now - time > PREFETCH_EXPIRY_MS;
+        }
+
+        boolean matches(UUID worldId, int chunkX, int chunkZ) {
+            return this.worldId.equals(worldId)
+                    && Math.abs(this.chunkX - chunkX) <= 1
+                    && Math.abs(this.chunkZ - chunkZ) <= 1;
+        }
+    }
+
+    @Inject
+    public TeleportPrefetchService(ConfigService configService,
+            ChunkLoadScheduler chunkLoadScheduler,
+            ChunkMemoryCache chunkMemoryCache,
+            NMSChunkAccess nmsChunkAccess,
+            ViewDistanceService viewDistanceService) {
+        this.configService = configService;
+        this.chunkLoadScheduler = chunkLoadScheduler;
+        this.chunkMemoryCache = chunkMemoryCache;
+        this.nmsChunkAccess = nmsChunkAccess;
+        this.viewDistanceService = viewDistanceService;
+    }
+
+    public boolean isEnabled() {
+        MainConfig.PerformanceConfig.TeleportPrefetchConfig config = configService.get().performance()
+                .teleportPrefetch();
+        return config != null && config.enabled() && configService.get().performance().fakeChunks().enabled();
+    }
+
+    /**
+     * Requests the near-horizon ring around a destination the player is about
+     * to teleport to. A destination already prefetched for the player is not
+     * requested again, and neither is one inside the player's current real
+     * view, whose horizon is mostly loaded already. The ring follows the
+     * destination world's settings and limits.
+     */
+    public void prefetch(Player player, Location destination) {
+        World world = destination.getWorld();
+        if (!isEnabled() || world == null || !viewDistanceService.isPluginEnabledForWorld(world)) {
+            return;
+        }
+
+        int centerX = destination.getBlockX() >> 4;
+        int centerZ = destination.getBlockZ() >> 4;
+        int serverViewDistance = world.getViewDistance();
+        if (player.getWorld().equals(world)) {
+            Location location = player.getLocation();
+            int dx = Math.abs((location.getBlockX() >> 4) - centerX);
+            int dz = Math.abs((location.getBlockZ() >> 4) - centerZ);
+            if (Math.max(dx, dz) <= serverViewDistance) {
+                return;
+            }
+        }
+        long now = System.currentTimeMillis();
+
+        Destination previous = destinations.get(player.getUniqueId());
+        if (previous != null && !previous.isExpired(now) && previous.matches(world.getUID(), centerX, centerZ)) {
+            return;
+        }
+        destinations.put(player.getUniqueId(), new Destination(world.getUID(), centerX, centerZ));
+
+        int outer = Math.min(serverViewDistance + getNearHorizonBand(),
+                viewDistanceService.getAllowedMax(player, world));
+        PlayerView view = viewDistanceService.getPlayerView(player.getUniqueId());
+        if (view != null) {
+            outer = Math.min(outer, view.getTargetDistance());
+        }
+        if (outer <= serverViewDistance) {
+            return;
+        }
+
+        List<Long> ring = collectRing(world, centerX, centerZ, serverViewDistance, outer);
+        prefetches.incrementAndGet();
+        requestedChunks.addAndGet(ring.size());
+
+        boolean cacheChunks = configService.get().performance().fakeChunks().enableMemoryCache();
+        for (long key : ring) {
+            int chunkX = ChunkUtils.unpackX(key);
+            int chunkZ = ChunkUtils.unpackZ(key);
+            chunkLoadScheduler.load(world, chunkX, chunkZ, false, ChunkLoadPriority.NEAR_HORIZON)
+                    .thenAccept(chunk -> {
+                        if (chunk == null || !chunk.isLoaded()) {
+                            return;
+                        }
+                        loadedChunks.incrementAndGet();
+                        if (cacheChunks) {
+                            Object nmsChunk = nmsChunkAccess.getNMSChunk(chunk);
+                            if (nmsChunk != null) {
+                                chunkMemoryCache.put(world, chunkX, chunkZ, nmsChunk);
+                            }
+                        }
+                    })
+                    .exceptionally(throwable -> {
+                        if (DEBUG) {
+                            logger.warn("[EH] Failed to prefetch chunk {},{}: {}", chunkX, chunkZ,
+                                    throwable.getMessage());
+                        }
+                        return null;
+                    });
+        }
+
+        if (DEBUG) {
+            logger.info("[EH] Prefetching {} horizon chunks around {},{} for {}", ring.size(), centerX, centerZ,
+                    player.getName());
+        }
+    }
+
+    /**
+     * Checks whether the horizon around the player's current position was
+     * prefetched for a teleport that just happened.
+     */
+    public boolean isPrefetchedArrival(Player player) {
+        Destination destination = destinations.get(player.getUniqueId());
+        if (destination == null || destination.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+
+        Location location = player.getLocation();
+        return destination.matches(player.getWorld().getUID(), location.getBlockX() >> 4,
+                location.getBlockZ() >> 4);
+    }
+
+    /**
+     * Counts a prefetched arrival whose warmup was skipped, once per
+     * destination.
+     */
+    public void recordArrival(Player player) {
+        Destination destination = destinations.get(player.getUniqueId());
+        if (destination != null && !destination.arrived) {
+            destination.arrived = true;
+            arrivals.incrementAndGet();
+        }
+    }
+
+    public void forget(UUID playerId) {
+        destinations.remove(playerId);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("prefetches", prefetches.get());
+        stats.put("requested_chunks", requestedChunks.get());
+        stats.put("loaded_chunks", loadedChunks.get());
+        stats.put("prefetched_arrivals", arrivals.get());
+        return stats;
+    }
+
+    /**
+     * Collects the unloaded chunks between the server view-distance and the
+     * outer radius, closest first, capped at the configured maximum.
+     */
+    private List<Long> collectRing(World world, int centerX, int centerZ, int serverViewDistance, int outer) {
+        double innerSquared = (serverViewDistance + 0.5) * (serverViewDistance + 0.5);
+        double outerSquared = (outer + 0.5) * (outer + 0.5);
+
+        List<Long> ring = new ArrayList<>();
+        for (int x = centerX - outer; x <= centerX + outer; x++) {
+            for (int z = centerZ - outer; z <= centerZ + outer; z++) {
+                int dx = x - centerX;
+                int dz = z - centerZ;
+                double distanceSquared = dx * dx + dz * dz;
+                if (distanceSquared <= innerSquared || distanceSquared > outerSquared) {
+                    continue;
+                }
+                if (!ChunkUtils.isChunkWithinWorldBorder(world, x, z) || world.isChunkLoaded(x, z)) {
+                    continue;
+                }
+                ring.add(ChunkUtils.packChunkKey(x, z));
+            }
+        }
+
+        ring.sort((a, b) -> Long.compare(distanceSquared(a, centerX, centerZ), distanceSquared(b, centerX, centerZ)));
+        int maxChunks = getMaxChunks();
+        return ring.size() > maxChunks ? new ArrayList<>(ring.subList(0, maxChunks)) : ring;
+    }
+
+    private static long distanceSquared(long key, int centerX, int centerZ) {
+        long dx = ChunkUtils.unpackX(key) - centerX;
+        long dz = ChunkUtils.unpackZ(key) - centerZ;
+        return dx * dx + dz * dz;
+    }
+
+    private int getNearHorizonBand() {
+        MainConfig.PerformanceConfig.LoadPriorityConfig config = configService.get().performance().loadPriority();
+        if (config == null || config.nearHorizonBand() < 0) {
+            return DEFAULT_NEAR_HORIZON_BAND;
+        }
+        return config.nearHorizonBand();
+    }
+
+    private int getMaxChunks() {
+        MainConfig.PerformanceConfig.TeleportPrefetchConfig config = configService.get().performance()
+                .teleportPrefetch();
+        if (config == null || config.maxChunks() <= 0) {
+            return DEFAULT_MAX_CHUNKS;
+        }
+        return config.maxChunks();
+    }
+}
@@ -15,6 +15,12 @@ public interface NMSChunkAccess {
      */
     boolean isChunkLoaded(Object chunk);
 
+    /**
+     * Checks whether a live chunk has changes that were not written to disk
+     * yet.
+     */
+    boolean isUnsaved(Object chunk);
+
     /**
      * Gets a ChunkAccess from a Bukkit Chunk.
      * 
@@ -23,12 +29,130 @@ public interface NMSChunkAccess {
     Object getNMSChunk(org.bukkit.Chunk chunk);
 
     /**
-     * Clones a chunk (shallow copy of sections for obfuscation).
+     * Copies a chunk's palettes, heightmaps, block entities and light into a
+     * detached snapshot. Must be called on the thread that owns the chunk; the
+     * result can then be obfuscated and encoded on any thread. Block entities
+     * are saved on the owning thread and loaded back on the first read.
+     *
+     * @return The snapshot object, or null if the chunk is not supported.
+     */
+    Object snapshotChunk(Object chunk);
+
+    /**
+     * Lowers the detail of a snapshot for distant rendering. Sections lying
+     * entirely more than {@code surfaceBandSections} sections below the lowest
+     * surface point are filled with their most common block. In the other
+     * sections, when one solid block covers at least {@code uniformThreshold}
+     * of the solid blocks, the solid blocks below the top block of each column
+     * are merged into it; air, fluids and the top blocks are kept, so the
+     * surface keeps its shape. A threshold of 1.0 leaves them alone. Only call
+     * this on snapshots.
+     *
+     * @return Number of sections that were simplified.
+     */
+    int reduceDetail(Object chunk, int surfaceBandSections, double uniformThreshold);
+
+    /**
+     * Culls the sections of a snapshot that lie outside a vertical band around
+     * the surface. Sections more than {@code sectionsBelowSurface} sections
+     * below the lowest surface point become single-state sections of their
+     * most common block; air sections more than {@code sectionsAboveSurface}
+     * above the highest point stay empty. Light for culled sections is removed
+     * from the snapshot's light masks. Only call this on snapshots.
+     *
+     * @return Number of sections that were culled.
+     */
+    int cullVerticalSections(Object chunk, int sectionsBelowSurface, int sectionsAboveSurface);
+
+    /**
+     * Rebuilds the block palette of every section of a snapshot from the
+     * blocks it actually contains, using the smallest palette type and bits
+     * per entry that fit. Blocks are unchanged. Only call this on snapshots.
+     *
+     * @return Bytes saved in the serialized sections.
+     */
+    long compactPalettes(Object chunk);
+
+    /**
+     * Generates an approximate snapshot of a chunk that does not exist yet:
+     * terrain shape, biomes and surface only, without features, structures or
+     * light. Nothing is added to the world or saved. Safe to call from any
+     * thread.
+     *
+     * @return The snapshot, or null if the world's generator is not supported.
+     */
+    Object generateApproximateChunk(World world, int x, int z);
+
+    /**
+     * Builds a skyline impostor of a chunk that does not exist yet: flat
+     * surface columns from the generator's base height and biome, sampled on
+     * a coarse grid. Far cheaper than {@link #generateApproximateChunk}.
+     * Nothing is added to the world or saved. Safe to call from any thread.
+     *
+     * @param samplesPerAxis Height samples along each chunk axis
+     * @return The snapshot, or null if the world's generator is not supported.
+     */
+    Object generateSkylineChunk(World world, int x, int z, int samplesPerAxis);
+
+    /**
+     * Gets the Y just above the highest motion-blocking block of a chunk or
+     * snapshot.
+     *
+     * @return The surface height, or Integer.MIN_VALUE if the chunk is not
+     *         supported.
+     */
+    int getSurfaceHeight(Object chunk);
+
+    /**
+     * Gets the Y just above the motion-blocking surface that all but the
+     * lowest tenth of a chunk's columns reach.
+     *
+     * @return The surface height, or Integer.MIN_VALUE if the chunk is not
+     *         supported.
+     */
+    int getLowSurfaceHeight(Object chunk);
+
+    /**
+     * Checks whether a snapshot is uniform: it has no block entities and each
+     * of its sections holds a single block. Such chunks tend to encode the
+     * same way across a world.
+     */
+    boolean isUniform(Object chunk);
+
+    /**
+     * Gets how many light arrays the exact light masks left out when the
+     * snapshot was captured: sky light of the topmost fully lit sections,
+     * which the client derives on its own.
+     *
+     * @return Number of omitted light arrays, or 0 if the chunk is not a
+     *         snapshot.
+     */
+    int getOmittedLightSections(Object chunk);
+
+    /**
+     * Replaces the block entities of a snapshot with blank ones of the same
+     * type, so the client still creates and renders them (chests, banners,
+     * signs) but receives none of their data. Only call this on snapshots.
+     *
+     * @return Estimated bytes of block entity data removed.
+     */
+    long stripBlockEntityData(Object chunk);
+
+    /**
+     * Estimates the heap held by a chunk's block, biome and light data.
+     *
+     * @return Estimated size in bytes, or 0 if the chunk is not supported.
      */
-    Object cloneChunk(Object chunk);
+    long estimateMemoryUsage(Object chunk);
 
     /**
-     * Applies anti-xray obfuscation to a chunk.
+     * Applies anti-xray obfuscation to a snapshot in place. The fake ores
+     * depend on the chunk contents and position, the world seed and the given
+     * server secret, so re-encoding a chunk gives the same fake ores while
+     * knowing the world seed is not enough to tell them from real ones. Only
+     * call this on snapshots.
+     *
+     * @return The number of blocks changed.
      */
-    void obfuscateChunk(Object chunk, boolean hideOres, boolean addFakeOres, double density);
+    long obfuscateChunk(Object chunk, boolean hideOres, boolean addFakeOres, double density, long secret);
 }
@@ -2,6 +2,8 @@ package me.mapacheee.extendedhorizons.viewdistance.service.nms;
 
 import org.bukkit.entity.Player;
 
+import java.util.List;
+
 public interface NMSPacketAccess {
     /**
      * Creates a ClientboundLevelChunkWithLightPacket from a chunk.
@@ -10,6 +12,37 @@ public interface NMSPacketAccess {
      */
     Object createChunkPacket(Object chunk);
 
+    /**
+     * Creates a ClientboundLevelChunkWithLightPacket that carries the chunk's
+     * blocks but no light. Meant to be followed by {@link #createLightPacket}.
+     *
+     * @return The NMS packet object.
+     */
+    Object createChunkPacketWithoutLight(Object chunk);
+
+    /**
+     * Creates a ClientboundLightUpdatePacket with the light of a chunk. For
+     * snapshots this is the light captured with the snapshot.
+     *
+     * @return The NMS packet object.
+     */
+    Object createLightPacket(Object chunk);
+
+    /**
+     * Serializes a chunk packet without its coordinates, so chunks with the
+     * same contents share the same bytes.
+     *
+     * @return The template bytes, or null if the packet is not a chunk packet.
+     */
+    byte[] encodeChunkTemplate(Object chunkPacket);
+
+    /**
+     * Creates a chunk packet for the given coordinates from template bytes.
+     *
+     * @return The NMS packet object.
+     */
+    Object createChunkPacketFromTemplate(byte[] template, int x, int z);
+
     /**
      * Creates a ClientboundForgetLevelChunkPacket.
      * 
@@ -24,11 +57,35 @@ public interface NMSPacketAccess {
      */
     void sendPacket(Player player, Object packet);
 
+    /**
+     * Sends several packets to a player, written together and flushed once
+     * instead of once per packet.
+     *
+     * @param packets The NMS packet objects.
+     */
+    void sendPackets(Player player, List<Object> packets);
+
     /**
      * Gets the estimated size of a packet in bytes.
      */
     int getPacketSize(Object packet);
 
+    /**
+     * Serializes a chunk or light packet to measure its exact uncompressed
+     * size. Much slower than {@link #getPacketSize}; meant for diagnostics.
+     *
+     * @return Size in bytes, or -1 if the packet type is not supported.
+     */
+    int getSerializedSize(Object packet);
+
+    /**
+     * Gets the size of the block and biome data carried by a chunk packet,
+     * without serializing it.
+     *
+     * @return Size in bytes, or -1 if the packet is not a chunk packet.
+     */
+    int getChunkDataSize(Object packet);
+
     /**
      * Creates a ClientboundSetChunkCacheRadiusPacket.
      * 
@@ -0,0 +1,156 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
+
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Anti-xray obfuscation of snapshot sections.
+ *
+ * Sections are checked against their palette first, so sections without
+ * ores or host blocks are skipped without reading a single block. Fake ores
+ * are placed by jumping straight to the sampled positions instead of rolling
+ * for every block. The random source is seeded from the world seed, a
+ * per-server secret and the section position, so a chunk is obfuscated the
+ * same way every time it is encoded, yet a client that knows the world seed
+ * cannot replay the fake ores and filter them out.
+ */
+final class AntiXray_v1_21_R1 {
+
+    private static final Map<Block, BlockState> HIDDEN = new IdentityHashMap<>();
+
+    static {
+        hide(Blocks.STONE, Blocks.DIAMOND_ORE, Blocks.GOLD_ORE, Blocks.IRON_ORE, Blocks.EMERALD_ORE,
+                Blocks.COPPER_ORE, Blocks.LAPIS_ORE, Blocks.REDSTONE_ORE, Blocks.COAL_ORE);
+        hide(Blocks.DEEPSLATE, Blocks.DEEPSLATE_DIAMOND_ORE, Blocks.DEEPSLATE_GOLD_ORE, Blocks.DEEPSLATE_IRON_ORE,
+                Blocks.DEEPSLATE_EMERALD_ORE, Blocks.DEEPSLATE_COPPER_ORE, Blocks.DEEPSLATE_LAPIS_ORE,
+                Blocks.DEEPSLATE_REDSTONE_ORE, Blocks.DEEPSLATE_COAL_ORE);
+        hide(Blocks.NETHERRACK, Blocks.NETHER_QUARTZ_ORE, Blocks.NETHER_GOLD_ORE, Blocks.ANCIENT_DEBRIS);
+    }
+
+    private AntiXray_v1_21_R1() {
+    }
+
+    private static void hide(Block replacement, Block... ores) {
+        for (Block ore : ores) {
+            HIDDEN.put(ore, replacement.defaultBlockState());
+        }
+    }
+
+    /**
+     * Obfuscates the sections of a snapshot in place.
+     *
+     * @return The number of blocks changed
+     */
+    static long obfuscate(LevelChunk chunk, boolean hideOres, boolean addFakeOres, double density, long secret) {
+        boolean placeFakes = addFakeOres && density > 0;
+        if (!hideOres && !placeFakes)
+            return 0;
+
+        ChunkPos pos = chunk.getPos();
+        long worldSeed = new SplittableRandom(chunk.getLevel().getSeed() ^ secret).nextLong();
+        long chunkSeed = worldSeed ^ (pos.toLong() * 0x9E3779B97F4A7C15L);
+        double logMiss = density < 1 ? Math.log(1 - density) : 0;
+
+        long changed = 0;
+        LevelChunkSection[] sections = chunk.getSections();
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
+            if (section == null || section.hasOnlyAir())
+                continue;
+
+            PalettedContainer<BlockState> states = section.getStates();
+            if (hideOres && states.maybeHas(state -> HIDDEN.containsKey(state.getBlock()))) {
+                changed += hideOres(states);
+            }
+            if (placeFakes && states.maybeHas(state -> isHost(state.getBlock()))) {
+                changed += placeFakeOres(states, new SplittableRandom(chunkSeed + i), density, logMiss);
+            }
+        }
+        return changed;
+    }
+
+    private static int hideOres(PalettedContainer<BlockState> states) {
+        int changed = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BlockState replacement = HIDDEN.get(states.get(x, y, z).getBlock());
+                    if (replacement != null) {
+                        states.getAndSetUnchecked(x, y, z, replacement);
+                        changed++;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gives every host block a {@code density} chance of turning into an
+     * ore. The gap to the next sampled block follows a geometric
+     * distribution, so only the sampled blocks are visited.
+     */
+    private static int placeFakeOres(PalettedContainer<BlockState> states, SplittableRandom random,
+            double density, double logMiss) {
+        int changed = 0;
+        long index = nextGap(random, density, logMiss);
+        while (index < 4096) {
+            int x = (int) index & 15;
+            int z = (int) (index >> 4) & 15;
+            int y = (int) (index >> 8);
+
+            Block block = states.get(x, y, z).getBlock();
+            if (isHost(block)) {
+                states.getAndSetUnchecked(x, y, z, randomOre(block, random).defaultBlockState());
+                changed++;
+            }
+            index += 1 + nextGap(random, density, logMiss);
+        }
+        return changed;
+    }
+
+    private static long nextGap(SplittableRandom random, double density, double logMiss) {
+        if (density >= 1)
+            return 0;
+        // 1 - nextDouble() is in (0, 1], keeping the logarithm finite
+        return (long) Math.min(4096, Math.log(1 - random.nextDouble()) / logMiss);
+    }
+
+    private static boolean isHost(Block block) {
+        return block == Blocks.STONE || block == Blocks.DEEPSLATE || block == Blocks.NETHERRACK
+                || block == Blocks.END_STONE;
+    }
+
+    private static Block randomOre(Block context, SplittableRandom random) {
+        if (context == Blocks.NETHERRACK) {
+            return random.nextBoolean() ? Blocks.NETHER_QUARTZ_ORE : Blocks.NETHER_GOLD_ORE;
+        } else if (context == Blocks.DEEPSLATE) {
+            double r = random.nextDouble();
+            if (r < 0.1)
+                return Blocks.DEEPSLATE_DIAMOND_ORE;
+            if (r < 0.3)
+                return Blocks.DEEPSLATE_GOLD_ORE;
+            if (r < 0.5)
+                return Blocks.DEEPSLATE_IRON_ORE;
+            return Blocks.DEEPSLATE_REDSTONE_ORE;
+        } else {
+            double r = random.nextDouble();
+            if (r < 0.1)
+                return Blocks.DIAMOND_ORE;
+            if (r < 0.3)
+                return Blocks.GOLD_ORE;
+            if (r < 0.5)
+                return Blocks.IRON_ORE;
+            return Blocks.COAL_ORE;
+        }
+    }
+}
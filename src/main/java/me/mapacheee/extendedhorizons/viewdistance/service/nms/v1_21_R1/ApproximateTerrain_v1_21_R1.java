@@ -0,0 +1,144 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacketData;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.StructureManager;
+import net.minecraft.world.level.biome.BiomeManager;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.WorldGenerationContext;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import net.minecraft.world.level.levelgen.blending.BlendingData;
+import net.minecraft.world.level.levelgen.structure.Structure;
+import net.minecraft.world.level.levelgen.structure.StructureStart;
+import org.bukkit.craftbukkit.generator.CustomChunkGenerator;
+
+import java.lang.reflect.Constructor;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Runs a world's generator up to the surface step on a throwaway proto-chunk.
+ *
+ * The result has the terrain shape, biomes and surface blocks but none of the
+ * features, structures or light of a real chunk. It is never handed to the
+ * chunk map, so nothing is saved. Structure lookups answer "none", which keeps
+ * generation from requesting neighbouring chunks from the level.
+ *
+ * The proto-chunk constructor switched its container argument between 1.21
+ * releases, so it is resolved reflectively once.
+ */
+final class ApproximateTerrain_v1_21_R1 {
+
+    private static volatile Constructor<?> protoConstructor;
+    private static volatile boolean constructorTakesRegistry;
+
+    private ApproximateTerrain_v1_21_R1() {
+    }
+
+    /**
+     * Generates an approximate snapshot, or returns null if the world uses a
+     * plugin generator, which may not be safe to run off its usual threads.
+     */
+    static ChunkSnapshot_v1_21_R1 generate(ServerLevel level, int chunkX, int chunkZ) {
+        ChunkGenerator generator = level.getChunkSource().getGenerator();
+        if (generator instanceof CustomChunkGenerator)
+            return null;
+
+        ChunkPos pos = new ChunkPos(chunkX, chunkZ);
+        RandomState randomState = level.getChunkSource().randomState();
+        StructureManager structures = noStructures(level);
+        Blender blender = Blender.empty();
+
+        ProtoChunk proto = createProtoChunk(level, pos);
+        generator.createBiomes(randomState, blender, structures, proto).join();
+        generator.fillFromNoise(blender, randomState, structures, proto).join();
+        if (generator instanceof NoiseBasedChunkGenerator noiseGenerator) {
+            noiseGenerator.buildSurface(proto, new WorldGenerationContext(generator, level), randomState, structures,
+                    new BiomeManager(proto, BiomeManager.obfuscateSeed(level.getSeed())),
+                    level.registryAccess().lookupOrThrow(Registries.BIOME), blender);
+        }
+
+        EnumSet<Heightmap.Types> clientHeightmaps = EnumSet.noneOf(Heightmap.Types.class);
+        for (Heightmap.Types type : Heightmap.Types.values()) {
+            if (type.sendToClient()) {
+                clientHeightmaps.add(type);
+            }
+        }
+        Heightmap.primeHeightmaps(proto, clientHeightmaps);
+
+        final LevelChunkSection[] sections = proto.getSections();
+        final Map<BlockPos, BlockEntity> blockEntities = Map.of();
+        LevelChunk chunk = new LevelChunk(level, pos) {
+            @Override
+            public Map<BlockPos, BlockEntity> getBlockEntities() {
+                return blockEntities;
+            }
+
+            @Override
+            public LevelChunkSection[] getSections() {
+                return sections;
+            }
+        };
+        for (Heightmap.Types type : clientHeightmaps) {
+            chunk.setHeightmap(type, proto.getOrCreateHeightmapUnprimed(type).getRawData().clone());
+        }
+
+        // No light was computed; the client lights sections without data as open sky
+        ClientboundLightUpdatePacketData lightData = LightMasks_v1_21_R1.none(chunkX, chunkZ);
+        return new ChunkSnapshot_v1_21_R1(chunk, lightData, 0);
+    }
+
+    private static StructureManager noStructures(ServerLevel level) {
+        return new StructureManager(level, level.getServer().getWorldData().worldGenOptions(), null) {
+            @Override
+            public List<StructureStart> startsForStructure(ChunkPos pos, Predicate<Structure> predicate) {
+                return List.of();
+            }
+        };
+    }
+
+    private static ProtoChunk createProtoChunk(ServerLevel level, ChunkPos pos) {
+        try {
+            Constructor<?> constructor = resolveConstructor();
+            Object containers = constructorTakesRegistry
+                    ? level.registryAccess().lookupOrThrow(Registries.BIOME)
+                    : level.getClass().getMethod("palettedContainerFactory").invoke(level);
+            return (ProtoChunk) constructor.newInstance(pos, UpgradeData.EMPTY, level, containers, null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create proto chunk", e);
+        }
+    }
+
+    private static Constructor<?> resolveConstructor() {
+        Constructor<?> constructor = protoConstructor;
+        if (constructor != null) {
+            return constructor;
+        }
+
+        for (Constructor<?> c : ProtoChunk.class.getConstructors()) {
+            Class<?>[] types = c.getParameterTypes();
+            if (types.length == 5 && types[0] == ChunkPos.class && types[1] == UpgradeData.class
+                    && types[2] == LevelHeightAccessor.class && types[4] == BlendingData.class) {
+                constructorTakesRegistry = Registry.class.isAssignableFrom(types[3]);
+                protoConstructor = c;
+                return c;
+            }
+        }
+        throw new IllegalStateException("No suitable ProtoChunk constructor found");
+    }
+}
@@ -0,0 +1,44 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
+
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacketData;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+/**
+ * Detached copy of a chunk taken on its owning thread.
+ *
+ * The chunk holds copied palettes, heightmaps and saved block entity data,
+ * loaded back into block entities on first read, and is never registered
+ * with the level, so it can be read, obfuscated and encoded from any thread. Light is captured as packet data at the same moment and may be
+ * trimmed by later transforms.
+ */
+final class ChunkSnapshot_v1_21_R1 {
+
+    private final LevelChunk chunk;
+    private volatile ClientboundLightUpdatePacketData lightData;
+    private final int omittedLightSections;
+
+    ChunkSnapshot_v1_21_R1(LevelChunk chunk, ClientboundLightUpdatePacketData lightData, int omittedLightSections) {
+        this.chunk = chunk;
+        this.lightData = lightData;
+        this.omittedLightSections = omittedLightSections;
+    }
+
+    LevelChunk chunk() {
+        return chunk;
+    }
+
+    ClientboundLightUpdatePacketData lightData() {
+        return lightData;
+    }
+
+    void setLightData(ClientboundLightUpdatePacketData lightData) {
+        this.lightData = lightData;
+    }
+
+    /**
+     * Number of light arrays the exact light masks left out at capture.
+     */
+    int omittedLightSections() {
+        return omittedLightSections;
+    }
+}
@@ -0,0 +1,193 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacketData;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.lighting.LayerLightEventListener;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Works out which light sections are worth sending and rewrites captured
+ * light data to match. Rewrites go through the packet data's own wire format,
+ * which keeps this independent of its private fields.
+ */
+final class LightMasks_v1_21_R1 {
+
+    private static final int NIBBLE_ARRAY_BYTES = 2048;
+    private static final byte FULL_BRIGHT = (byte) 0xFF;
+
+    private LightMasks_v1_21_R1() {
+    }
+
+    /**
+     * Removes the given light sections from the data. Light section indices
+     * are offset by one from chunk section indices.
+     */
+    static ClientboundLightUpdatePacketData withoutSections(ClientboundLightUpdatePacketData data, int chunkX,
+            int chunkZ, BitSet dropped) {
+        if (dropped.isEmpty()) {
+            return data;
+        }
+
+        Sections sections = Sections.read(data);
+        sections.dropSky(dropped);
+        sections.dropBlock(dropped);
+        return sections.toData(chunkX, chunkZ);
+    }
+
+    /**
+     * Light data without any sections, for chunks that have no light yet.
+     */
+    static ClientboundLightUpdatePacketData none(int chunkX, int chunkZ) {
+        return new Sections(new BitSet(), new BitSet(), new BitSet(), new BitSet(), List.of(), List.of())
+                .toData(chunkX, chunkZ);
+    }
+
+    /**
+     * Computes the light masks a chunk actually needs. Sections without light
+     * data are left out, and so is the sky light of the topmost sections that
+     * are lit at full brightness everywhere: the client treats sky light above
+     * the highest section it has data for as full brightness, so it renders
+     * them exactly as before without receiving their arrays. Sections that are
+     * completely dark end up in the empty masks when the packet data is built.
+     */
+    static Masks exactMasks(LevelLightEngine lightEngine, ChunkPos pos) {
+        int sectionCount = lightEngine.getLightSectionCount();
+        int minSection = lightEngine.getMinLightSection();
+        LayerLightEventListener skyLight = lightEngine.getLayerListener(LightLayer.SKY);
+        LayerLightEventListener blockLight = lightEngine.getLayerListener(LightLayer.BLOCK);
+
+        BitSet sky = new BitSet(sectionCount);
+        BitSet block = new BitSet(sectionCount);
+        int omitted = 0;
+        boolean abovePeak = true;
+        for (int i = sectionCount - 1; i >= 0; i--) {
+            SectionPos sectionPos = SectionPos.of(pos, minSection + i);
+
+            DataLayer skyLayer = skyLight.getDataLayerData(sectionPos);
+            if (skyLayer != null) {
+                if (abovePeak && isFullBright(skyLayer)) {
+                    omitted++;
+                } else {
+                    abovePeak = false;
+                    sky.set(i);
+                }
+            }
+
+            if (blockLight.getDataLayerData(sectionPos) != null) {
+                block.set(i);
+            }
+        }
+        return new Masks(sky, block, omitted);
+    }
+
+    /**
+     * Light masks for a chunk and how many sky arrays they leave out.
+     */
+    record Masks(BitSet sky, BitSet block, int omittedSkySections) {
+    }
+
+    private static boolean isFullBright(DataLayer layer) {
+        if (layer.isDefinitelyHomogenous()) {
+            return layer.isDefinitelyFullOf(15);
+        }
+        return isFullBright(layer.getData());
+    }
+
+    private static boolean isFullBright(byte[] nibbles) {
+        for (byte value : nibbles) {
+            if (value != FULL_BRIGHT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the arrays of removed sections and clears their bits in the mask.
+     */
+    private static List<byte[]> filter(BitSet mask, List<byte[]> updates, BitSet dropped) {
+        List<byte[]> kept = new ArrayList<>(updates.size());
+        int index = 0;
+        for (int bit = mask.nextSetBit(0); bit >= 0; bit = mask.nextSetBit(bit + 1)) {
+            if (!dropped.get(bit) && index < updates.size()) {
+                kept.add(updates.get(index));
+            }
+            index++;
+        }
+        mask.andNot(dropped);
+        return kept;
+    }
+
+    /**
+     * Light data decoded into its masks and nibble arrays.
+     */
+    private static final class Sections {
+
+        private final BitSet skyMask;
+        private final BitSet blockMask;
+        private final BitSet emptySkyMask;
+        private final BitSet emptyBlockMask;
+        private List<byte[]> skyUpdates;
+        private List<byte[]> blockUpdates;
+
+        private Sections(BitSet skyMask, BitSet blockMask, BitSet emptySkyMask, BitSet emptyBlockMask,
+                List<byte[]> skyUpdates, List<byte[]> blockUpdates) {
+            this.skyMask = skyMask;
+            this.blockMask = blockMask;
+            this.emptySkyMask = emptySkyMask;
+            this.emptyBlockMask = emptyBlockMask;
+            this.skyUpdates = skyUpdates;
+            this.blockUpdates = blockUpdates;
+        }
+
+        static Sections read(ClientboundLightUpdatePacketData data) {
+            FriendlyByteBuf in = new FriendlyByteBuf(Unpooled.buffer());
+            try {
+                data.write(in);
+                return new Sections(
+                        in.readBitSet(),
+                        in.readBitSet(),
+                        in.readBitSet(),
+                        in.readBitSet(),
+                        in.readList(buf -> buf.readByteArray(NIBBLE_ARRAY_BYTES)),
+                        in.readList(buf -> buf.readByteArray(NIBBLE_ARRAY_BYTES)));
+            } finally {
+                in.release();
+            }
+        }
+
+        void dropSky(BitSet dropped) {
+            skyUpdates = filter(skyMask, skyUpdates, dropped);
+            emptySkyMask.andNot(dropped);
+        }
+
+        void dropBlock(BitSet dropped) {
+            blockUpdates = filter(blockMask, blockUpdates, dropped);
+            emptyBlockMask.andNot(dropped);
+        }
+
+        ClientboundLightUpdatePacketData toData(int chunkX, int chunkZ) {
+            FriendlyByteBuf out = new FriendlyByteBuf(Unpooled.buffer());
+            try {
+                out.writeBitSet(skyMask);
+                out.writeBitSet(blockMask);
+                out.writeBitSet(emptySkyMask);
+                out.writeBitSet(emptyBlockMask);
+                out.writeCollection(skyUpdates, FriendlyByteBuf::writeByteArray);
+                out.writeCollection(blockUpdates, FriendlyByteBuf::writeByteArray);
+                return new ClientboundLightUpdatePacketData(out, chunkX, chunkZ);
+            } finally {
+                out.release();
+            }
+        }
+    }
+}
@@ -6,18 +6,18 @@ import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacketData;
+import net.minecraft.world.level.levelgen.Heightmap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.lang.reflect.Field;
-import java.lang.reflect.Constructor;
-import net.minecraft.core.registries.Registries;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.EmptyLevelChunk;
-import net.minecraft.world.level.chunk.PalettedContainer;
-import net.minecraft.world.level.block.Block;
-import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.state.BlockState;
-import java.util.Random;
 import org.bukkit.World;
 import org.bukkit.craftbukkit.CraftWorld;
 import com.thewinterframework.service.annotation.Service;
@@ -25,6 +25,18 @@ import com.thewinterframework.service.annotation.Service;
 @Service
 public class NMSChunkAccess_v1_21_R1 implements NMSChunkAccess {
 
+    // Sky and block light nibble arrays plus object headers per section
+    private static final long SECTION_OVERHEAD_BYTES = 2 * 2048 + 128;
+    // Heightmaps, block ticks and the chunk object itself
+    private static final long CHUNK_OVERHEAD_BYTES = 4096;
+
+    /**
+     * Block entity data saved on the chunk's owning thread, turned back into a
+     * detached block entity on the first read of the snapshot.
+     */
+    private record SavedBlockEntity(BlockState state, CompoundTag tag) {
+    }
+
     @Override
     public Object getChunkIfLoaded(World world, int x, int z) {
         try {
@@ -49,6 +61,11 @@ public class NMSChunkAccess_v1_21_R1 implements NMSChunkAccess {
         return chunk instanceof LevelChunk && !((LevelChunk) chunk).isEmpty();
     }
 
+    @Override
+    public boolean isUnsaved(Object chunk) {
+        return chunk instanceof LevelChunk levelChunk && levelChunk.isUnsaved();
+    }
+
     @Override
     public Object getNMSChunk(org.bukkit.Chunk chunk) {
         if (chunk instanceof org.bukkit.craftbukkit.CraftChunk) {
@@ -59,183 +76,306 @@ public class NMSChunkAccess_v1_21_R1 implements NMSChunkAccess {
     }
 
     @Override
-    public Object cloneChunk(Object chunk) {
-        if (!(chunk instanceof LevelChunk))
+    public Object snapshotChunk(Object chunk) {
+        if (!(chunk instanceof LevelChunk original))
             return null;
-        LevelChunk original = (LevelChunk) chunk;
 
         final LevelChunkSection[] originalSections = original.getSections();
-        final LevelChunkSection[] newSections = new LevelChunkSection[originalSections.length];
+        final LevelChunkSection[] sections = new LevelChunkSection[originalSections.length];
+        for (int i = 0; i < originalSections.length; i++) {
+            LevelChunkSection section = originalSections[i];
+            if (section != null) {
+                sections[i] = new LevelChunkSection(section.getStates().copy(), section.getBiomes().copy());
+            }
+        }
+
+        // Only the save reads the live block entity; loading the copies back is
+        // left to whichever thread reads the snapshot first
+        final Map<BlockPos, SavedBlockEntity> saved = new HashMap<>();
+        final HolderLookup.Provider registries = original.getLevel().registryAccess();
+        for (BlockEntity blockEntity : original.getBlockEntities().values()) {
+            try {
+                saved.put(blockEntity.getBlockPos(), new SavedBlockEntity(blockEntity.getBlockState(),
+                        blockEntity.saveWithFullMetadata(registries)));
+            } catch (Exception ignored) {
+                // The client renders the block without its extra data
+            }
+        }
+
+        LevelChunk snapshot = new LevelChunk(original.getLevel(), original.getPos()) {
+            private Map<BlockPos, BlockEntity> blockEntities;
 
-        LevelChunk newChunk = new LevelChunk(original.getLevel(), original.getPos()) {
             @Override
-            public Map<BlockPos, BlockEntity> getBlockEntities() {
-                return original.getBlockEntities();
+            public synchronized Map<BlockPos, BlockEntity> getBlockEntities() {
+                if (blockEntities == null) {
+                    blockEntities = loadBlockEntities(saved, registries);
+                }
+                return blockEntities;
             }
 
             @Override
             public LevelChunkSection[] getSections() {
-                return newSections;
+                return sections;
             }
         };
+        snapshot.setInhabitedTime(original.getInhabitedTime());
 
-        // Copy critical data
-        newChunk.setInhabitedTime(original.getInhabitedTime());
-
-        for (int i = 0; i < originalSections.length; i++) {
-            LevelChunkSection oldSection = originalSections[i];
-            if (oldSection != null && !oldSection.hasOnlyAir()) {
-                try {
-                    // get section Y using reflection if method is missing
-                    Field bottomYField = LevelChunkSection.class.getDeclaredField("bottomBlockY");
-                    bottomYField.setAccessible(true);
-                    int bottomY = bottomYField.getInt(oldSection);
-                    int sectionY = bottomY >> 4;
-                    LevelChunkSection newSection = null;
-                    Object biomeRegistryOrContainer = null;
-
-                    for (Constructor<?> c : LevelChunkSection.class.getDeclaredConstructors()) {
-                        if (c.getParameterCount() == 2 && c.getParameterTypes()[0] == int.class) {
-                            c.setAccessible(true);
-                            Class<?> argType = c.getParameterTypes()[1];
-
-                            if (net.minecraft.core.Registry.class.isAssignableFrom(argType)) {
-                                biomeRegistryOrContainer = original.getLevel().registryAccess()
-                                        .lookupOrThrow(Registries.BIOME);
-                                newSection = (LevelChunkSection) c.newInstance(sectionY, biomeRegistryOrContainer);
-                                break;
-                            } else if (PalettedContainer.class.isAssignableFrom(argType)) {
-                                biomeRegistryOrContainer = oldSection.getBiomes(); // already a container
-                                newSection = (LevelChunkSection) c.newInstance(sectionY, biomeRegistryOrContainer);
-                                break;
-                            }
-                        }
-                    }
+        for (Map.Entry<Heightmap.Types, Heightmap> entry : original.getHeightmaps()) {
+            if (entry.getKey().sendToClient()) {
+                snapshot.setHeightmap(entry.getKey(), entry.getValue().getRawData().clone());
+            }
+        }
 
-                    if (newSection == null) {
-                        throw new RuntimeException("Could not find suitable LevelChunkSection constructor");
-                    }
+        LightMasks_v1_21_R1.Masks lightMasks = LightMasks_v1_21_R1.exactMasks(original.getLevel().getLightEngine(),
+                original.getPos());
+        ClientboundLightUpdatePacketData lightData = new ClientboundLightUpdatePacketData(original.getPos(),
+                original.getLevel().getLightEngine(), lightMasks.sky(), lightMasks.block());
 
-                    // Reflective copy fields
+        return new ChunkSnapshot_v1_21_R1(snapshot, lightData, lightMasks.omittedSkySections());
+    }
 
-                    // 1. Biomes
-                    Field biomesField = LevelChunkSection.class.getDeclaredField("biomes");
-                    biomesField.setAccessible(true);
-                    biomesField.set(newSection, oldSection.getBiomes().copy());
+    private static Map<BlockPos, BlockEntity> loadBlockEntities(Map<BlockPos, SavedBlockEntity> saved,
+            HolderLookup.Provider registries) {
+        Map<BlockPos, BlockEntity> blockEntities = new HashMap<>();
+        for (Map.Entry<BlockPos, SavedBlockEntity> entry : saved.entrySet()) {
+            try {
+                BlockEntity copy = BlockEntity.loadStatic(entry.getKey(), entry.getValue().state(),
+                        entry.getValue().tag(), registries);
+                if (copy != null) {
+                    blockEntities.put(copy.getBlockPos(), copy);
+                }
+            } catch (Exception ignored) {
+                // The client renders the block without its extra data
+            }
+        }
+        return blockEntities;
+    }
 
-                    // 2. States (BlockStates)
-                    Field statesField = LevelChunkSection.class.getDeclaredField("states");
-                    statesField.setAccessible(true);
-                    statesField.set(newSection, oldSection.getStates().copy());
+    @Override
+    public int reduceDetail(Object chunk, int surfaceBandSections, double uniformThreshold) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return 0;
+
+        LevelChunk levelChunk = snapshot.chunk();
+        LevelChunkSection[] sections = levelChunk.getSections();
+
+        int[] surface = new int[256];
+        int minSurface = Integer.MAX_VALUE;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int height = levelChunk.getHeight(Heightmap.Types.WORLD_SURFACE, x, z);
+                surface[(z << 4) | x] = height;
+                minSurface = Math.min(minSurface, height);
+            }
+        }
+        int solidBelowY = minSurface - surfaceBandSections * 16;
 
-                    // 3. Non-empty block count
-                    Field nonEmptyCountField = LevelChunkSection.class
-                            .getDeclaredField("nonEmptyBlockCount");
-                    nonEmptyCountField.setAccessible(true);
-                    short count = (short) nonEmptyCountField.getShort(oldSection);
-                    nonEmptyCountField.setShort(newSection, count);
+        int simplified = 0;
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
+            if (section == null || section.hasOnlyAir())
+                continue;
 
-                    // 4. Ticking block count
-                    Field tickingCountField = LevelChunkSection.class
-                            .getDeclaredField("tickingBlockCount");
-                    tickingCountField.setAccessible(true);
-                    tickingCountField.setShort(newSection, (short) tickingCountField.getShort(oldSection));
+            int sectionBottomY = levelChunk.getMinY() + (i << 4);
+            if (sectionBottomY + 15 < solidBelowY) {
+                SectionPalettes_v1_21_R1.Dominant dominant = SectionPalettes_v1_21_R1.dominantState(section);
+                if (dominant.state() != null) {
+                    sections[i] = SectionPalettes_v1_21_R1.singleState(section, dominant.state());
+                    simplified++;
+                }
+                continue;
+            }
 
-                    newSections[i] = newSection;
+            // Around the surface only the solid blocks under the top block of each column are
+            // merged, so air, fluids and the visible surface layer keep their shape and colour
+            LevelChunkSection merged = SectionPalettes_v1_21_R1.mergeSolid(section, sectionBottomY, surface,
+                    uniformThreshold);
+            if (merged != null) {
+                sections[i] = merged;
+                simplified++;
+            }
+        }
+        return simplified;
+    }
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    newSections[i] = oldSection;
+    @Override
+    public int cullVerticalSections(Object chunk, int sectionsBelowSurface, int sectionsAboveSurface) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return 0;
+
+        LevelChunk levelChunk = snapshot.chunk();
+        LevelChunkSection[] sections = levelChunk.getSections();
+
+        int minSurface = Integer.MAX_VALUE;
+        int maxSurface = Integer.MIN_VALUE;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int height = levelChunk.getHeight(Heightmap.Types.WORLD_SURFACE, x, z);
+                minSurface = Math.min(minSurface, height);
+                maxSurface = Math.max(maxSurface, height);
+            }
+        }
+        int keepFromY = minSurface - sectionsBelowSurface * 16;
+        int keepToY = maxSurface + sectionsAboveSurface * 16;
+
+        BitSet droppedLight = new BitSet(sections.length + 2);
+        int culled = 0;
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
+            int bottomY = levelChunk.getMinY() + (i << 4);
+
+            if (bottomY + 15 < keepFromY) {
+                if (section != null && !section.hasOnlyAir()) {
+                    SectionPalettes_v1_21_R1.Dominant dominant = SectionPalettes_v1_21_R1.dominantState(section);
+                    if (dominant.state() != null) {
+                        sections[i] = SectionPalettes_v1_21_R1.singleState(section, dominant.state());
+                    }
                 }
+                droppedLight.set(i + 1);
+                culled++;
+            } else if (bottomY > keepToY && (section == null || section.hasOnlyAir())) {
+                droppedLight.set(i + 1);
+                culled++;
             }
         }
 
-        return newChunk;
+        if (!droppedLight.isEmpty()) {
+            ChunkPos pos = levelChunk.getPos();
+            snapshot.setLightData(LightMasks_v1_21_R1.withoutSections(snapshot.lightData(), pos.x, pos.z,
+                    droppedLight));
+        }
+        return culled;
     }
 
     @Override
-    public void obfuscateChunk(Object chunkObj, boolean hideOres, boolean addFakeOres, double density) {
-        if (!(chunkObj instanceof LevelChunk))
-            return;
-        LevelChunk chunk = (LevelChunk) chunkObj;
-        Random random = new Random();
-
-        for (LevelChunkSection section : chunk.getSections()) {
+    public long compactPalettes(Object chunk) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return 0;
+
+        LevelChunkSection[] sections = snapshot.chunk().getSections();
+        long saved = 0;
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
             if (section == null || section.hasOnlyAir())
                 continue;
 
-            for (int x = 0; x < 16; x++) {
-                for (int y = 0; y < 16; y++) {
-                    for (int z = 0; z < 16; z++) {
-                        BlockState state = section.getBlockState(x, y, z);
-                        Block block = state.getBlock();
-
-                        if (hideOres && isValuableOre(block)) {
-                            section.setBlockState(x, y, z, getReplacement(block).defaultBlockState(), false);
-                        } else if (addFakeOres && shouldFakeOre(block)) {
-                            if (random.nextDouble() < density) {
-                                section.setBlockState(x, y, z, getRandomOre(block, random).defaultBlockState(), false);
-                            }
-                        }
-                    }
-                }
+            LevelChunkSection compacted = SectionPalettes_v1_21_R1.compact(section);
+            if (compacted != null) {
+                saved += section.getSerializedSize() - compacted.getSerializedSize();
+                sections[i] = compacted;
             }
         }
+        return saved;
+    }
+
+    @Override
+    public Object generateApproximateChunk(World world, int x, int z) {
+        return ApproximateTerrain_v1_21_R1.generate(((CraftWorld) world).getHandle(), x, z);
+    }
+
+    @Override
+    public Object generateSkylineChunk(World world, int x, int z, int samplesPerAxis) {
+        return SkylineImpostor_v1_21_R1.build(((CraftWorld) world).getHandle(), x, z, samplesPerAxis);
+    }
+
+    @Override
+    public int getSurfaceHeight(Object chunk) {
+        if (chunk instanceof ChunkSnapshot_v1_21_R1 snapshot)
+            chunk = snapshot.chunk();
+        if (!(chunk instanceof LevelChunk levelChunk))
+            return Integer.MIN_VALUE;
+
+        int maxHeight = levelChunk.getMinY();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                maxHeight = Math.max(maxHeight, levelChunk.getHeight(Heightmap.Types.MOTION_BLOCKING, x, z) + 1);
+            }
+        }
+        return maxHeight;
+    }
+
+    @Override
+    public int getLowSurfaceHeight(Object chunk) {
+        if (chunk instanceof ChunkSnapshot_v1_21_R1 snapshot)
+            chunk = snapshot.chunk();
+        if (!(chunk instanceof LevelChunk levelChunk))
+            return Integer.MIN_VALUE;
+
+        int[] heights = new int[256];
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                heights[(x << 4) | z] = levelChunk.getHeight(Heightmap.Types.MOTION_BLOCKING, x, z) + 1;
+            }
+        }
+        Arrays.sort(heights);
+        return heights[heights.length / 10];
+    }
+
+    @Override
+    public boolean isUniform(Object chunk) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return false;
+
+        LevelChunk levelChunk = snapshot.chunk();
+        if (!levelChunk.getBlockEntities().isEmpty())
+            return false;
+
+        for (LevelChunkSection section : levelChunk.getSections()) {
+            if (section == null || section.hasOnlyAir())
+                continue;
+            if (SectionPalettes_v1_21_R1.dominantState(section).count() < 4096)
+                return false;
+        }
+        return true;
     }
 
-    private boolean isValuableOre(Block block) {
-        return block == Blocks.DIAMOND_ORE || block == Blocks.DEEPSLATE_DIAMOND_ORE ||
-                block == Blocks.GOLD_ORE || block == Blocks.DEEPSLATE_GOLD_ORE ||
-                block == Blocks.IRON_ORE || block == Blocks.DEEPSLATE_IRON_ORE ||
-                block == Blocks.EMERALD_ORE || block == Blocks.DEEPSLATE_EMERALD_ORE ||
-                block == Blocks.COPPER_ORE || block == Blocks.DEEPSLATE_COPPER_ORE ||
-                block == Blocks.LAPIS_ORE || block == Blocks.DEEPSLATE_LAPIS_ORE ||
-                block == Blocks.REDSTONE_ORE || block == Blocks.DEEPSLATE_REDSTONE_ORE ||
-                block == Blocks.COAL_ORE || block == Blocks.DEEPSLATE_COAL_ORE ||
-                block == Blocks.NETHER_QUARTZ_ORE || block == Blocks.NETHER_GOLD_ORE ||
-                block == Blocks.ANCIENT_DEBRIS;
-    }
-
-    private boolean shouldFakeOre(Block block) {
-        return block == Blocks.STONE || block == Blocks.DEEPSLATE || block == Blocks.NETHERRACK
-                || block == Blocks.END_STONE;
-    }
-
-    private Block getReplacement(Block block) {
-        if (block == Blocks.DEEPSLATE_DIAMOND_ORE || block == Blocks.DEEPSLATE_GOLD_ORE ||
-                block == Blocks.DEEPSLATE_IRON_ORE || block == Blocks.DEEPSLATE_EMERALD_ORE ||
-                block == Blocks.DEEPSLATE_COPPER_ORE || block == Blocks.DEEPSLATE_LAPIS_ORE ||
-                block == Blocks.DEEPSLATE_REDSTONE_ORE || block == Blocks.DEEPSLATE_COAL_ORE) {
-            return Blocks.DEEPSLATE;
-        } else if (block == Blocks.NETHER_QUARTZ_ORE || block == Blocks.NETHER_GOLD_ORE
-                || block == Blocks.ANCIENT_DEBRIS) {
-            return Blocks.NETHERRACK;
-        } else {
-            return Blocks.STONE;
-        }
-    }
-
-    private Block getRandomOre(Block context, Random random) {
-        if (context == Blocks.NETHERRACK) {
-            return random.nextBoolean() ? Blocks.NETHER_QUARTZ_ORE : Blocks.NETHER_GOLD_ORE;
-        } else if (context == Blocks.DEEPSLATE) {
-            double r = random.nextDouble();
-            if (r < 0.1)
-                return Blocks.DEEPSLATE_DIAMOND_ORE;
-            if (r < 0.3)
-                return Blocks.DEEPSLATE_GOLD_ORE;
-            if (r < 0.5)
-                return Blocks.DEEPSLATE_IRON_ORE;
-            return Blocks.DEEPSLATE_REDSTONE_ORE;
-        } else {
-            double r = random.nextDouble();
-            if (r < 0.1)
-                return Blocks.DIAMOND_ORE;
-            if (r < 0.3)
-                return Blocks.GOLD_ORE;
-            if (r < 0.5)
-                return Blocks.IRON_ORE;
-            return Blocks.COAL_ORE;
+    @Override
+    public int getOmittedLightSections(Object chunk) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return 0;
+        return snapshot.omittedLightSections();
+    }
+
+    @Override
+    public long stripBlockEntityData(Object chunk) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return 0;
+
+        LevelChunk levelChunk = snapshot.chunk();
+        HolderLookup.Provider registries = levelChunk.getLevel().registryAccess();
+        long saved = 0;
+        for (Map.Entry<BlockPos, BlockEntity> entry : levelChunk.getBlockEntities().entrySet()) {
+            BlockEntity original = entry.getValue();
+            BlockEntity blank = original.getType().create(original.getBlockPos(), original.getBlockState());
+            if (blank == null)
+                continue;
+
+            saved += original.getUpdateTag(registries).sizeInBytes() - blank.getUpdateTag(registries).sizeInBytes();
+            entry.setValue(blank);
+        }
+        return Math.max(saved, 0);
+    }
+
+    @Override
+    public long estimateMemoryUsage(Object chunk) {
+        if (chunk instanceof ChunkSnapshot_v1_21_R1 snapshot)
+            chunk = snapshot.chunk();
+        if (!(chunk instanceof LevelChunk levelChunk))
+            return 0;
+
+        long bytes = CHUNK_OVERHEAD_BYTES;
+        for (LevelChunkSection section : levelChunk.getSections()) {
+            if (section == null)
+                continue;
+            bytes += section.getSerializedSize() + SECTION_OVERHEAD_BYTES;
         }
+        return bytes;
+    }
+
+    @Override
+    public long obfuscateChunk(Object chunk, boolean hideOres, boolean addFakeOres, double density, long secret) {
+        if (!(chunk instanceof ChunkSnapshot_v1_21_R1 snapshot))
+            return 0;
+        return AntiXray_v1_21_R1.obfuscate(snapshot.chunk(), hideOres, addFakeOres, density, secret);
     }
 }
@@ -1,41 +1,213 @@
 package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
 
 import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSPacketAccess;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
 import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
 import net.minecraft.network.protocol.game.ClientboundForgetLevelChunkPacket;
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacket;
 import net.minecraft.network.protocol.game.ClientboundSetChunkCacheRadiusPacket;
 import net.minecraft.network.protocol.game.ClientboundSetChunkCacheCenterPacket;
 import net.minecraft.network.protocol.game.ClientboundSetSimulationDistancePacket;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.lighting.LevelLightEngine;
 import org.bukkit.craftbukkit.entity.CraftPlayer;
 import org.bukkit.entity.Player;
 import com.thewinterframework.service.annotation.Service;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
 
 @Service
 public class NMSPacketAccess_v1_21_R1 implements NMSPacketAccess {
 
+    private static final BitSet NO_LIGHT = new BitSet();
+    // Typical light update for a surface chunk: a handful of nibble arrays
+    private static final int LIGHT_PACKET_ESTIMATE_BYTES = 8 * 1024;
+    private static volatile Field lightDataField;
+    private static volatile Field lightUpdateDataField;
+    // Chunk X and Z ints that open the packet body
+    private static final int COORDINATE_BYTES = 8;
+    // The client rejects bundles of more than 4096 packets
+    private static final int MAX_BUNDLE_SIZE = 4000;
+    private static volatile Method setReadyMethod;
+    private static volatile boolean setReadyResolved;
+
     @Override
     public Object createChunkPacket(Object chunk) {
+        if (chunk instanceof ChunkSnapshot_v1_21_R1 snapshot) {
+            return createSnapshotPacket(snapshot);
+        }
+
         if (!(chunk instanceof LevelChunk))
             return null;
 
         LevelChunk nmsChunk = (LevelChunk) chunk;
         LevelLightEngine lightEngine = nmsChunk.getLevel().getLightEngine();
-        int sectionCount = nmsChunk.getSections().length;
-        BitSet[] lightMasks = getLightMasks(sectionCount);
+        LightMasks_v1_21_R1.Masks lightMasks = LightMasks_v1_21_R1.exactMasks(lightEngine, nmsChunk.getPos());
 
         @SuppressWarnings("deprecation")
         ClientboundLevelChunkWithLightPacket packet = new ClientboundLevelChunkWithLightPacket(
                 nmsChunk,
                 lightEngine,
-                lightMasks[0],
-                lightMasks[1]);
+                lightMasks.sky(),
+                lightMasks.block());
+        return packet;
+    }
+
+    /**
+     * Builds the packet from a snapshot without touching the live light engine:
+     * the packet is created with empty light masks and the light captured with
+     * the snapshot is put in place afterwards.
+     */
+    private Object createSnapshotPacket(ChunkSnapshot_v1_21_R1 snapshot) {
+        LevelChunk chunk = snapshot.chunk();
+
+        @SuppressWarnings("deprecation")
+        ClientboundLevelChunkWithLightPacket packet = new ClientboundLevelChunkWithLightPacket(
+                chunk,
+                chunk.getLevel().getLightEngine(),
+                NO_LIGHT,
+                NO_LIGHT);
+
+        try {
+            getLightDataField().set(packet, snapshot.lightData());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not attach snapshot light data", e);
+        }
         return packet;
     }
 
+    @Override
+    public Object createChunkPacketWithoutLight(Object chunk) {
+        if (chunk instanceof ChunkSnapshot_v1_21_R1 snapshot) {
+            chunk = snapshot.chunk();
+        }
+        if (!(chunk instanceof LevelChunk nmsChunk))
+            return null;
+
+        @SuppressWarnings("deprecation")
+        ClientboundLevelChunkWithLightPacket packet = new ClientboundLevelChunkWithLightPacket(
+                nmsChunk,
+                nmsChunk.getLevel().getLightEngine(),
+                NO_LIGHT,
+                NO_LIGHT);
+        return packet;
+    }
+
+    @Override
+    public Object createLightPacket(Object chunk) {
+        if (chunk instanceof ChunkSnapshot_v1_21_R1 snapshot) {
+            LevelChunk snapshotChunk = snapshot.chunk();
+            ClientboundLightUpdatePacket packet = new ClientboundLightUpdatePacket(snapshotChunk.getPos(),
+                    snapshotChunk.getLevel().getLightEngine(), NO_LIGHT, NO_LIGHT);
+            try {
+                getLightUpdateDataField().set(packet, snapshot.lightData());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not attach snapshot light data", e);
+            }
+            return packet;
+        }
+
+        if (!(chunk instanceof LevelChunk nmsChunk))
+            return null;
+
+        LevelLightEngine lightEngine = nmsChunk.getLevel().getLightEngine();
+        LightMasks_v1_21_R1.Masks lightMasks = LightMasks_v1_21_R1.exactMasks(lightEngine, nmsChunk.getPos());
+        return new ClientboundLightUpdatePacket(nmsChunk.getPos(), lightEngine, lightMasks.sky(),
+                lightMasks.block());
+    }
+
+    private static Field getLightUpdateDataField() throws NoSuchFieldException {
+        Field field = lightUpdateDataField;
+        if (field == null) {
+            field = ClientboundLightUpdatePacket.class.getDeclaredField("lightData");
+            field.setAccessible(true);
+            lightUpdateDataField = field;
+        }
+        return field;
+    }
+
+    private static Field getLightDataField() throws NoSuchFieldException {
+        Field field = lightDataField;
+        if (field == null) {
+            field = ClientboundLevelChunkWithLightPacket.class.getDeclaredField("lightData");
+            field.setAccessible(true);
+            lightDataField = field;
+        }
+        return field;
+    }
+
+    @Override
+    public byte[] encodeChunkTemplate(Object chunkPacket) {
+        if (!(chunkPacket instanceof ClientboundLevelChunkWithLightPacket packet))
+            return null;
+
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            RegistryFriendlyByteBuf registryBuffer = RegistryFriendlyByteBuf
+                    .decorator(MinecraftServer.getServer().registryAccess()).apply(buffer);
+            ClientboundLevelChunkWithLightPacket.STREAM_CODEC.encode(registryBuffer, packet);
+            byte[] body = new byte[registryBuffer.writerIndex() - COORDINATE_BYTES];
+            registryBuffer.getBytes(COORDINATE_BYTES, body);
+            return body;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public Object createChunkPacketFromTemplate(byte[] template, int x, int z) {
+        ByteBuf buffer = Unpooled.buffer(COORDINATE_BYTES + template.length);
+        try {
+            RegistryFriendlyByteBuf registryBuffer = RegistryFriendlyByteBuf
+                    .decorator(MinecraftServer.getServer().registryAccess()).apply(buffer);
+            registryBuffer.writeInt(x);
+            registryBuffer.writeInt(z);
+            registryBuffer.writeBytes(template);
+            ClientboundLevelChunkWithLightPacket packet = ClientboundLevelChunkWithLightPacket.STREAM_CODEC
+                    .decode(registryBuffer);
+            markReady(packet);
+            return packet;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Paper holds chunk packets back until anti-xray marks them ready. Packets
+     * decoded from a template never pass through anti-xray, so they are
+     * marked ready right away.
+     */
+    private static void markReady(ClientboundLevelChunkWithLightPacket packet) {
+        if (!setReadyResolved) {
+            try {
+                setReadyMethod = ClientboundLevelChunkWithLightPacket.class.getMethod("setReady", boolean.class);
+            } catch (NoSuchMethodException ignored) {
+                // Not a Paper build with delayed chunk packets
+            }
+            setReadyResolved = true;
+        }
+
+        Method method = setReadyMethod;
+        if (method != null) {
+            try {
+                method.invoke(packet, true);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not mark template chunk packet ready", e);
+            }
+        }
+    }
+
     @Override
     public Object createUnloadPacket(int x, int z) {
         return new ClientboundForgetLevelChunkPacket(new ChunkPos(x, z));
@@ -48,14 +220,70 @@ public class NMSPacketAccess_v1_21_R1 implements NMSPacketAccess {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sendPackets(Player player, List<Object> packets) {
+        var connection = ((CraftPlayer) player).getHandle().connection;
+        List<Packet<? super ClientGamePacketListener>> bundle = new ArrayList<>();
+        for (Object packet : packets) {
+            if (!(packet instanceof Packet)) {
+                continue;
+            }
+
+            bundle.add((Packet<? super ClientGamePacketListener>) packet);
+            if (bundle.size() == MAX_BUNDLE_SIZE) {
+                connection.send(new ClientboundBundlePacket(bundle));
+                bundle = new ArrayList<>();
+            }
+        }
+
+        if (bundle.size() == 1) {
+            connection.send(bundle.get(0));
+        } else if (!bundle.isEmpty()) {
+            connection.send(new ClientboundBundlePacket(bundle));
+        }
+    }
+
     @Override
     public int getPacketSize(Object packet) {
         if (packet instanceof ClientboundLevelChunkWithLightPacket) {
             return -1;
         }
+        if (packet instanceof ClientboundLightUpdatePacket) {
+            return LIGHT_PACKET_ESTIMATE_BYTES;
+        }
         return 512;
     }
 
+    @Override
+    public int getChunkDataSize(Object packet) {
+        if (packet instanceof ClientboundLevelChunkWithLightPacket chunkPacket) {
+            return chunkPacket.getChunkData().getReadBuffer().readableBytes();
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSerializedSize(Object packet) {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            if (packet instanceof ClientboundLevelChunkWithLightPacket chunkPacket) {
+                RegistryFriendlyByteBuf registryBuffer = RegistryFriendlyByteBuf
+                        .decorator(MinecraftServer.getServer().registryAccess()).apply(buffer);
+                ClientboundLevelChunkWithLightPacket.STREAM_CODEC.encode(registryBuffer, chunkPacket);
+                return registryBuffer.writerIndex();
+            }
+            if (packet instanceof ClientboundLightUpdatePacket lightPacket) {
+                FriendlyByteBuf friendlyBuffer = new FriendlyByteBuf(buffer);
+                ClientboundLightUpdatePacket.STREAM_CODEC.encode(friendlyBuffer, lightPacket);
+                return friendlyBuffer.writerIndex();
+            }
+            return -1;
+        } finally {
+            buffer.release();
+        }
+    }
+
     @Override
     public Object createChunkCacheRadiusPacket(int radius) {
         return new ClientboundSetChunkCacheRadiusPacket(radius);
@@ -70,14 +298,4 @@ public class NMSPacketAccess_v1_21_R1 implements NMSPacketAccess {
     public Object createSimulationDistancePacket(int distance) {
         return new ClientboundSetSimulationDistancePacket(distance);
     }
-
-    private BitSet[] getLightMasks(int sectionCount) {
-        BitSet skyLight = new BitSet(sectionCount + 2);
-        BitSet blockLight = new BitSet(sectionCount + 2);
-        for (int i = 0; i < sectionCount + 2; i++) {
-            skyLight.set(i);
-            blockLight.set(i);
-        }
-        return new BitSet[] { skyLight, blockLight };
-    }
 }
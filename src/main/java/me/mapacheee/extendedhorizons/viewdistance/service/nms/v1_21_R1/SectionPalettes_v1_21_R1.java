@@ -0,0 +1,205 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
+
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Palette helpers shared by the chunk transforms that run on snapshots.
+ *
+ * The single-value container constructor moved between 1.21 releases, so it
+ * is resolved reflectively once, the same way section copying is.
+ */
+final class SectionPalettes_v1_21_R1 {
+
+    private static volatile Constructor<?> singleValueConstructor;
+    private static volatile boolean constructorTakesRegistry;
+    private static volatile Field strategyField;
+    private static volatile Field registryField;
+
+    private SectionPalettes_v1_21_R1() {
+    }
+
+    /**
+     * Most common block state of a section and how many of its 4096 blocks
+     * use it.
+     */
+    record Dominant(BlockState state, int count) {
+
+        double share() {
+            return count / 4096.0;
+        }
+    }
+
+    static Dominant dominantState(LevelChunkSection section) {
+        Map<BlockState, Integer> counts = new IdentityHashMap<>();
+        section.getStates().count((state, count) -> counts.merge(state, count, Integer::sum));
+
+        BlockState best = null;
+        int bestCount = -1;
+        for (Map.Entry<BlockState, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > bestCount) {
+                best = entry.getKey();
+                bestCount = entry.getValue();
+            }
+        }
+        return new Dominant(best, Math.max(bestCount, 0));
+    }
+
+    /**
+     * Replaces the solid blocks of a section with its most common solid
+     * block when that block covers at least {@code threshold} of them. Air,
+     * fluids and the top block of every column (one below the
+     * {@code surface} height, indexed {@code z << 4 | x}) are kept.
+     *
+     * @return The merged section, or null if nothing qualifies
+     */
+    static LevelChunkSection mergeSolid(LevelChunkSection section, int sectionBottomY, int[] surface,
+            double threshold) {
+        if (threshold >= 1.0) {
+            return null;
+        }
+
+        PalettedContainer<BlockState> states = section.getStates();
+        Map<BlockState, Integer> counts = new IdentityHashMap<>();
+        states.count((state, count) -> {
+            if (isSolid(state)) {
+                counts.merge(state, count, Integer::sum);
+            }
+        });
+        if (counts.size() < 2) {
+            return null;
+        }
+
+        BlockState dominant = null;
+        int dominantCount = 0;
+        int solid = 0;
+        for (Map.Entry<BlockState, Integer> entry : counts.entrySet()) {
+            solid += entry.getValue();
+            if (entry.getValue() > dominantCount) {
+                dominant = entry.getKey();
+                dominantCount = entry.getValue();
+            }
+        }
+        if (dominantCount < solid * threshold) {
+            return null;
+        }
+
+        PalettedContainer<BlockState> rebuilt = singleValue(states, states.get(0, 0, 0));
+        for (int y = 0; y < 16; y++) {
+            int worldY = sectionBottomY + y;
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BlockState state = states.get(x, y, z);
+                    if (isSolid(state) && worldY != surface[(z << 4) | x] - 1) {
+                        state = dominant;
+                    }
+                    rebuilt.getAndSetUnchecked(x, y, z, state);
+                }
+            }
+        }
+        return new LevelChunkSection(rebuilt, section.getBiomes());
+    }
+
+    private static boolean isSolid(BlockState state) {
+        return !state.isAir() && state.getFluidState().isEmpty();
+    }
+
+    /**
+     * Builds a section whose blocks are all {@code state}, keeping the biomes
+     * of the original section. The result encodes as a single-value palette.
+     */
+    static LevelChunkSection singleState(LevelChunkSection template, BlockState state) {
+        return new LevelChunkSection(singleValue(template.getStates(), state), template.getBiomes());
+    }
+
+    /**
+     * Rebuilds the block palette of a section from the blocks it actually
+     * contains. The container starts as a single-value palette and grows
+     * through linear, hashmap and global palettes only as far as the number
+     * of distinct blocks requires, so unused palette entries and oversized
+     * entries left behind by edits or obfuscation are gone.
+     *
+     * @return The compacted section, or null if it would not be smaller
+     */
+    static LevelChunkSection compact(LevelChunkSection section) {
+        PalettedContainer<BlockState> states = section.getStates();
+        PalettedContainer<BlockState> rebuilt = singleValue(states, states.get(0, 0, 0));
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    rebuilt.getAndSetUnchecked(x, y, z, states.get(x, y, z));
+                }
+            }
+        }
+
+        if (rebuilt.getSerializedSize() >= states.getSerializedSize()) {
+            return null;
+        }
+        return new LevelChunkSection(rebuilt, section.getBiomes());
+    }
+
+    @SuppressWarnings("unchecked")
+    static PalettedContainer<BlockState> singleValue(PalettedContainer<BlockState> template, BlockState state) {
+        try {
+            Constructor<?> constructor = resolveConstructor();
+            Object strategy = getStrategyField().get(template);
+            if (constructorTakesRegistry) {
+                Object registry = getRegistryField().get(template);
+                return (PalettedContainer<BlockState>) constructor.newInstance(registry, state, strategy);
+            }
+            return (PalettedContainer<BlockState>) constructor.newInstance(state, strategy);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create single-value palette", e);
+        }
+    }
+
+    private static Constructor<?> resolveConstructor() {
+        Constructor<?> constructor = singleValueConstructor;
+        if (constructor != null) {
+            return constructor;
+        }
+
+        for (Constructor<?> c : PalettedContainer.class.getDeclaredConstructors()) {
+            Class<?>[] types = c.getParameterTypes();
+            if (types.length == 3 && types[1] == Object.class && !types[2].isArray()) {
+                c.setAccessible(true);
+                constructorTakesRegistry = true;
+                singleValueConstructor = c;
+                return c;
+            }
+            if (types.length == 2 && types[0] == Object.class && !types[1].isArray()) {
+                c.setAccessible(true);
+                constructorTakesRegistry = false;
+                singleValueConstructor = c;
+                return c;
+            }
+        }
+        throw new IllegalStateException("No single-value PalettedContainer constructor found");
+    }
+
+    private static Field getStrategyField() throws NoSuchFieldException {
+        Field field = strategyField;
+        if (field == null) {
+            field = PalettedContainer.class.getDeclaredField("strategy");
+            field.setAccessible(true);
+            strategyField = field;
+        }
+        return field;
+    }
+
+    private static Field getRegistryField() throws NoSuchFieldException {
+        Field field = registryField;
+        if (field == null) {
+            field = PalettedContainer.class.getDeclaredField("registry");
+            field.setAccessible(true);
+            registryField = field;
+        }
+        return field;
+    }
+}
@@ -0,0 +1,199 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.nms.v1_21_R1;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.QuartPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.tags.BiomeTags;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.RandomState;
+import org.bukkit.craftbukkit.generator.CustomChunkGenerator;
+
+import java.util.EnumSet;
+
+/**
+ * Skyline impostors: cheap stand-ins for far chunks that were never
+ * generated.
+ *
+ * The generator is only asked for its base height and biome on a coarse grid,
+ * one sample per cell, including a ring of cells in the neighbouring chunks.
+ * Each cell becomes a flat column of biome-appropriate surface blocks
+ * reaching down to its lowest neighbour, so cliffs between cells have walls
+ * and impostors join up without gaps. Oceans are filled with water up to sea
+ * level. The chunk is never registered with the level.
+ */
+final class SkylineImpostor_v1_21_R1 {
+
+    // Filler blocks below the top block before plain stone begins
+    private static final int FILLER_DEPTH = 3;
+    // Ocean floors this far below sea level are gravel rather than sand
+    private static final int DEEP_OCEAN_DEPTH = 20;
+    private static final float SNOW_TEMPERATURE = 0.15f;
+    private static final int HIGH_PEAK_Y = 200;
+
+    private SkylineImpostor_v1_21_R1() {
+    }
+
+    /**
+     * Builds an impostor snapshot, or returns null if the world uses a plugin
+     * generator.
+     *
+     * @param samplesPerAxis Height samples along each chunk axis (1 to 16)
+     */
+    static ChunkSnapshot_v1_21_R1 build(ServerLevel level, int chunkX, int chunkZ, int samplesPerAxis) {
+        ChunkGenerator generator = level.getChunkSource().getGenerator();
+        if (generator instanceof CustomChunkGenerator)
+            return null;
+
+        int samples = Math.max(1, Math.min(16, Integer.highestOneBit(samplesPerAxis)));
+        int cellSize = 16 / samples;
+        RandomState randomState = level.getChunkSource().randomState();
+        int seaLevel = generator.getSeaLevel();
+        int minY = level.getMinY();
+        int baseX = chunkX << 4;
+        int baseZ = chunkZ << 4;
+
+        // Heights of the chunk's cells plus one ring of cells around them
+        int[][] heights = new int[samples + 2][samples + 2];
+        for (int i = 0; i < samples + 2; i++) {
+            for (int j = 0; j < samples + 2; j++) {
+                int x = baseX + (i - 1) * cellSize + cellSize / 2;
+                int z = baseZ + (j - 1) * cellSize + cellSize / 2;
+                heights[i][j] = generator.getBaseHeight(x, z, Heightmap.Types.OCEAN_FLOOR_WG, level, randomState);
+            }
+        }
+
+        LevelChunk chunk = new LevelChunk(level, new ChunkPos(chunkX, chunkZ));
+        for (int i = 1; i <= samples; i++) {
+            for (int j = 1; j <= samples; j++) {
+                int height = heights[i][j];
+                int bottom = Math.min(Math.min(heights[i - 1][j], heights[i + 1][j]),
+                        Math.min(heights[i][j - 1], heights[i][j + 1]));
+                bottom = Math.max(minY, Math.min(bottom, height) - 1);
+
+                int cellX = baseX + (i - 1) * cellSize;
+                int cellZ = baseZ + (j - 1) * cellSize;
+                Holder<Biome> biome = generator.getBiomeSource().getNoiseBiome(
+                        QuartPos.fromBlock(cellX + cellSize / 2), QuartPos.fromBlock(Math.max(height, seaLevel)),
+                        QuartPos.fromBlock(cellZ + cellSize / 2), randomState.sampler());
+
+                fillCell(chunk, cellX & 15, cellZ & 15, cellSize, bottom, height, seaLevel, biome);
+            }
+        }
+
+        EnumSet<Heightmap.Types> clientHeightmaps = EnumSet.noneOf(Heightmap.Types.class);
+        for (Heightmap.Types type : Heightmap.Types.values()) {
+            if (type.sendToClient()) {
+                clientHeightmaps.add(type);
+            }
+        }
+        Heightmap.primeHeightmaps(chunk, clientHeightmaps);
+
+        return new ChunkSnapshot_v1_21_R1(chunk, LightMasks_v1_21_R1.none(chunkX, chunkZ), 0);
+    }
+
+    /**
+     * Fills one cell: stone up to the filler, filler, the top block at
+     * {@code height - 1}, then water up to sea level.
+     */
+    private static void fillCell(LevelChunk chunk, int localX, int localZ, int cellSize, int bottom, int height,
+            int seaLevel, Holder<Biome> biome) {
+        boolean underwater = height < seaLevel;
+        BlockState top = topBlock(biome, height, seaLevel);
+        BlockState filler = fillerBlock(biome, underwater);
+        BlockState stone = Blocks.STONE.defaultBlockState();
+        BlockState water = Blocks.WATER.defaultBlockState();
+        int surfaceY = height - 1;
+        int topY = underwater ? seaLevel - 1 : surfaceY;
+
+        for (int y = bottom; y <= topY; y++) {
+            BlockState state;
+            if (y > surfaceY) {
+                state = water;
+            } else if (y == surfaceY) {
+                state = top;
+            } else if (y >= surfaceY - FILLER_DEPTH) {
+                state = filler;
+            } else {
+                state = stone;
+            }
+
+            int sectionIndex = chunk.getSectionIndex(y);
+            if (sectionIndex < 0 || sectionIndex >= chunk.getSections().length)
+                continue;
+            LevelChunkSection section = chunk.getSection(sectionIndex);
+            for (int dx = 0; dx < cellSize; dx++) {
+                for (int dz = 0; dz < cellSize; dz++) {
+                    section.setBlockState(localX + dx, y & 15, localZ + dz, state, false);
+                }
+            }
+        }
+
+        setBiome(chunk, localX, localZ, cellSize, surfaceY, biome);
+    }
+
+    /**
+     * Sets the biome of the surface section so the client tints grass,
+     * foliage and water of the impostor like the real terrain.
+     */
+    @SuppressWarnings("unchecked")
+    private static void setBiome(LevelChunk chunk, int localX, int localZ, int cellSize, int surfaceY,
+            Holder<Biome> biome) {
+        int sectionIndex = chunk.getSectionIndex(surfaceY);
+        if (sectionIndex < 0 || sectionIndex >= chunk.getSections().length)
+            return;
+        if (!(chunk.getSection(sectionIndex).getBiomes() instanceof PalettedContainer<?> container))
+            return;
+
+        PalettedContainer<Holder<Biome>> biomes = (PalettedContainer<Holder<Biome>>) container;
+        int quarts = Math.max(1, cellSize >> 2);
+        int quartX = localX >> 2;
+        int quartZ = localZ >> 2;
+        for (int qx = quartX; qx < quartX + quarts; qx++) {
+            for (int qz = quartZ; qz < quartZ + quarts; qz++) {
+                for (int qy = 0; qy < 4; qy++) {
+                    biomes.getAndSetUnchecked(qx, qy, qz, biome);
+                }
+            }
+        }
+    }
+
+    private static BlockState topBlock(Holder<Biome> biome, int height, int seaLevel) {
+        if (height < seaLevel) {
+            return height < seaLevel - DEEP_OCEAN_DEPTH
+                    ? Blocks.GRAVEL.defaultBlockState()
+                    : Blocks.SAND.defaultBlockState();
+        }
+        if (biome.is(BiomeTags.IS_BADLANDS)) {
+            return Blocks.RED_SAND.defaultBlockState();
+        }
+        if (biome.is(Biomes.DESERT) || biome.is(BiomeTags.IS_BEACH)) {
+            return Blocks.SAND.defaultBlockState();
+        }
+        if (biome.value().getBaseTemperature() < SNOW_TEMPERATURE) {
+            return Blocks.SNOW_BLOCK.defaultBlockState();
+        }
+        if (height > HIGH_PEAK_Y) {
+            return Blocks.STONE.defaultBlockState();
+        }
+        return Blocks.GRASS_BLOCK.defaultBlockState();
+    }
+
+    private static BlockState fillerBlock(Holder<Biome> biome, boolean underwater) {
+        if (underwater || biome.is(Biomes.DESERT) || biome.is(BiomeTags.IS_BEACH)) {
+            return Blocks.SANDSTONE.defaultBlockState();
+        }
+        if (biome.is(BiomeTags.IS_BADLANDS)) {
+            return Blocks.TERRACOTTA.defaultBlockState();
+        }
+        return Blocks.DIRT.defaultBlockState();
+    }
+}
@@ -91,7 +91,8 @@ public class PacketQueueProcessor {
         List<UUID> playerIds = new ArrayList<>();
         for (UUID playerId : playerStateManager.getAllPlayerIds()) {
             PlayerChunkState state = playerStateManager.get(playerId).orElse(null);
-            if (state != null && !state.getPendingPackets().isEmpty()) {
+            if (state != null
+                    && (!state.getPendingPackets().isEmpty() || state.hasPendingLightPackets())) {
                 playerIds.add(playerId);
             }
         }
@@ -105,7 +106,7 @@ public class PacketQueueProcessor {
         }
 
         Queue<Object> queue = state.getPendingPackets();
-        if (queue.isEmpty()) {
+        if (queue.isEmpty() && !state.hasPendingLightPackets()) {
             return;
         }
 
@@ -131,10 +132,13 @@ public class PacketQueueProcessor {
             boolean bandwidthExceeded = maxBandwidth > 0 && bytesSent >= (maxBandwidth * 1024L);
 
             int count = 0;
-            while (!queue.isEmpty() && count < maxPacketsThisTick && !bandwidthExceeded) {
+            while (count < maxPacketsThisTick && !bandwidthExceeded) {
+                // Deferred light only goes out once every queued chunk has been sent
                 Object packet = queue.poll();
                 if (packet == null)
-                    continue;
+                    packet = state.pollLightPacket();
+                if (packet == null)
+                    break;
 
                 nmsPacketAccess.sendPacket(player, packet);
                 count++;
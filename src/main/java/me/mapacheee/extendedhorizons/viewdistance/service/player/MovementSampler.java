@@ -0,0 +1,180 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.player;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.thewinterframework.service.annotation.Service;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.ViewDistanceService;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples player movement once per tick and triggers view updates.
+ *
+ * Each player gets a repeating task on their own entity scheduler, so the
+ * location is read on the thread that owns the player. A sample compares the
+ * player's chunk with the chunk of the last view update; crossing a chunk
+ * border triggers an update, throttled to one every
+ * {@link #UPDATE_COOLDOWN_MS}. A move that lands inside the cooldown is kept
+ * and applied once it expires instead of being dropped. Each sample starts
+ * at most one view computation.
+ */
+@Service
+public class MovementSampler {
+
+    private static final long UPDATE_COOLDOWN_MS = 250;
+    // Chunks crossed between two samples that count as fast movement
+    private static final int FAST_MOVE_CHUNKS = 3;
+    // Ticks after a fast update before the full update follows
+    private static final int FULL_UPDATE_DELAY_TICKS = 5;
+
+    private final Provider<ViewDistanceService> viewDistanceServiceProvider;
+    private final PlayerStateManager playerStateManager;
+
+    private final Map<UUID, Sample> samples = new ConcurrentHashMap<>();
+    private final AtomicLong sampledTicks = new AtomicLong(0);
+    private final AtomicLong viewUpdates = new AtomicLong(0);
+    private final AtomicLong fastUpdates = new AtomicLong(0);
+    private final AtomicLong deferredSamples = new AtomicLong(0);
+
+    /**
+     * Movement state of one player; only touched from the player's thread.
+     */
+    private static final class Sample {
+        private ScheduledTask task;
+        private long plannedChunkKey = Long.MIN_VALUE;
+        private long lastUpdateTime;
+        private int fullUpdateIn = -1;
+    }
+
+    @Inject
+    public MovementSampler(Provider<ViewDistanceService> viewDistanceServiceProvider,
+            PlayerStateManager playerStateManager) {
+        this.viewDistanceServiceProvider = viewDistanceServiceProvider;
+        this.playerStateManager = playerStateManager;
+    }
+
+    /**
+     * Starts sampling a player. Does nothing if the player is already sampled.
+     */
+    public void start(Player player) {
+        Sample sample = new Sample();
+        if (samples.putIfAbsent(player.getUniqueId(), sample) != null) {
+            return;
+        }
+
+        sample.task = player.getScheduler().runAtFixedRate(ExtendedHorizonsPlugin.getInstance(),
+                (task) -> sample(player, sample), () -> samples.remove(player.getUniqueId(), sample), 1L, 1L);
+        if (sample.task == null) {
+            samples.remove(player.getUniqueId(), sample);
+        }
+    }
+
+    /**
+     * Stops sampling a player.
+     */
+    public void stop(UUID playerId) {
+        Sample sample = samples.remove(playerId);
+        if (sample != null && sample.task != null) {
+            sample.task.cancel();
+        }
+    }
+
+    /**
+     * Forgets the chunk of the last view update, so the next sample does not
+     * treat a teleport as movement. The teleport schedules its own update.
+     */
+    public void rebase(UUID playerId) {
+        Sample sample = samples.get(playerId);
+        if (sample != null) {
+            sample.plannedChunkKey = Long.MIN_VALUE;
+            sample.fullUpdateIn = -1;
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("sampled_players", (long) samples.size());
+        stats.put("sampled_ticks", sampledTicks.get());
+        stats.put("view_updates", viewUpdates.get());
+        stats.put("fast_updates", fastUpdates.get());
+        stats.put("deferred_samples", deferredSamples.get());
+        return stats;
+    }
+
+    private void sample(Player player, Sample sample) {
+        if (!player.isOnline()) {
+            return;
+        }
+        sampledTicks.incrementAndGet();
+
+        Location location = player.getLocation();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        long chunkKey = ChunkUtils.packChunkKey(chunkX, chunkZ);
+
+        PlayerChunkState state = playerStateManager.get(player.getUniqueId()).orElse(null);
+        if (state != null) {
+            Location eye = player.getEyeLocation();
+            state.setEyePosition(eye.toVector());
+            state.setViewDirection(eye.getDirection());
+            // Checked against the state itself: the state may be created after the player left their first chunk
+            if (state.getCenterChunk() != chunkKey) {
+                state.setCenterChunk(chunkKey);
+            }
+        }
+
+        ViewDistanceService viewDistanceService = viewDistanceServiceProvider.get();
+
+        if (sample.fullUpdateIn > 0) {
+            sample.fullUpdateIn--;
+        }
+
+        // The first sample after a join or teleport only records where the
+        // player is; those schedule their own updates
+        if (sample.plannedChunkKey == Long.MIN_VALUE) {
+            sample.plannedChunkKey = chunkKey;
+            return;
+        }
+
+        if (chunkKey == sample.plannedChunkKey) {
+            if (sample.fullUpdateIn == 0) {
+                sample.fullUpdateIn = -1;
+                sample.lastUpdateTime = System.currentTimeMillis();
+                viewUpdates.incrementAndGet();
+                viewDistanceService.updatePlayerView(player);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - sample.lastUpdateTime < UPDATE_COOLDOWN_MS) {
+            deferredSamples.incrementAndGet();
+            return;
+        }
+
+        int moved = Math.max(
+                Math.abs(chunkX - ChunkUtils.unpackX(sample.plannedChunkKey)),
+                Math.abs(chunkZ - ChunkUtils.unpackZ(sample.plannedChunkKey)));
+        sample.plannedChunkKey = chunkKey;
+        sample.lastUpdateTime = now;
+
+        if (moved >= FAST_MOVE_CHUNKS) {
+            fastUpdates.incrementAndGet();
+            sample.fullUpdateIn = FULL_UPDATE_DELAY_TICKS;
+            viewDistanceService.updatePlayerViewFast(player);
+        } else {
+            sample.fullUpdateIn = -1;
+            viewUpdates.incrementAndGet();
+            viewDistanceService.updatePlayerView(player);
+        }
+    }
+}
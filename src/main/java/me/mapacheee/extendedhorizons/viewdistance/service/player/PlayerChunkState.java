@@ -1,5 +1,11 @@
 package me.mapacheee.extendedhorizons.viewdistance.service.player;
 
+import org.bukkit.util.Vector;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
@@ -33,12 +39,92 @@ public class PlayerChunkState {
      */
     private final Queue<Long> chunkQueue = new ConcurrentLinkedQueue<>();
 
+    /**
+     * Fake chunks sent with coarse detail that still wait for their
+     * full-detail version (progressive refinement).
+     */
+    private final Set<Long> coarseChunks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Fake chunks sent with coarse detail because terrain hides them from
+     * the player. They are refined once they come into sight.
+     */
+    private final Set<Long> occludedChunks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Fake chunks outside the load radius that are kept because they are
+     * still within the unload radius.
+     */
+    private final Set<Long> retainedChunks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Dropped fake chunks whose unload packet has not been sent yet.
+     * Drained a batch per tick so lowering the distance does not flood the
+     * connection.
+     */
+    private final Queue<Long> unloadQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Fake chunks sent as skyline impostors, replaced by the real chunk once
+     * the player comes close enough.
+     */
+    private final Set<Long> skylineChunks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Player chunk position the skyline chunks were last checked from.
+     */
+    private volatile long skylineCheckPosition = Long.MIN_VALUE;
+
+    /**
+     * Terrain occlusion results for the position bucket the player was last
+     * checked in (true = hidden).
+     */
+    private final Map<Long, Boolean> occlusionResults = new ConcurrentHashMap<>();
+
+    /**
+     * Position bucket the occlusion results belong to.
+     */
+    private volatile long occlusionBucket = Long.MIN_VALUE;
+
+    /**
+     * Whether occluded chunks must be checked again since the player moved
+     * to another position bucket.
+     */
+    private volatile boolean occlusionRecheck;
+
     /**
      * Last known chunk position for teleport detection.
      * Format: packed long from ChunkUtils.packChunkKey(x, z)
      */
     private volatile long lastChunkPosition;
 
+    /**
+     * Chunk the player stands in, written from the player's region thread so
+     * the packet threads can read it without touching the entity.
+     * Format: packed long from ChunkUtils.packChunkKey(x, z), or
+     * Long.MIN_VALUE while unknown
+     */
+    private volatile long centerChunk = Long.MIN_VALUE;
+
+    /**
+     * Eye position of the player, sampled every tick on the player's region
+     * thread for the terrain occlusion pass, or null while unknown.
+     */
+    private volatile Vector eyePosition;
+
+    /**
+     * Horizontal look direction of the player, sampled with the eye position
+     * so coarse chunks in front of the player are refined first, or null
+     * while unknown.
+     */
+    private volatile Vector viewDirection;
+
+    /**
+     * Whether queued chunks were dropped since the last view plan, so the
+     * next plan has to list the whole view instead of what changed.
+     */
+    private volatile boolean fullPlanNeeded;
+
     // === Packet Management ===
 
     /**
@@ -46,6 +132,12 @@ public class PlayerChunkState {
      */
     private final Queue<Object> pendingPackets = new ConcurrentLinkedQueue<>();
 
+    /**
+     * Light packets for chunks sent without light, by chunk key, flushed only
+     * once pendingPackets is empty. Guarded by itself.
+     */
+    private final LinkedHashMap<Long, Object> pendingLightPackets = new LinkedHashMap<>();
+
     // === Bandwidth Tracking ===
 
     /**
@@ -130,6 +222,54 @@ public class PlayerChunkState {
         return chunkQueue;
     }
 
+    public Set<Long> getCoarseChunks() {
+        return coarseChunks;
+    }
+
+    public Set<Long> getOccludedChunks() {
+        return occludedChunks;
+    }
+
+    public Set<Long> getRetainedChunks() {
+        return retainedChunks;
+    }
+
+    public Queue<Long> getUnloadQueue() {
+        return unloadQueue;
+    }
+
+    public Set<Long> getSkylineChunks() {
+        return skylineChunks;
+    }
+
+    public long getSkylineCheckPosition() {
+        return skylineCheckPosition;
+    }
+
+    public void setSkylineCheckPosition(long position) {
+        this.skylineCheckPosition = position;
+    }
+
+    public Map<Long, Boolean> getOcclusionResults() {
+        return occlusionResults;
+    }
+
+    public long getOcclusionBucket() {
+        return occlusionBucket;
+    }
+
+    public void setOcclusionBucket(long bucket) {
+        this.occlusionBucket = bucket;
+    }
+
+    public boolean isOcclusionRecheck() {
+        return occlusionRecheck;
+    }
+
+    public void setOcclusionRecheck(boolean recheck) {
+        this.occlusionRecheck = recheck;
+    }
+
     public long getLastChunkPosition() {
         return lastChunkPosition;
     }
@@ -138,12 +278,91 @@ public class PlayerChunkState {
         this.lastChunkPosition = position;
     }
 
+    public long getCenterChunk() {
+        return centerChunk;
+    }
+
+    public void setCenterChunk(long position) {
+        this.centerChunk = position;
+    }
+
+    public Vector getEyePosition() {
+        return eyePosition;
+    }
+
+    public void setEyePosition(Vector position) {
+        this.eyePosition = position;
+    }
+
+    public Vector getViewDirection() {
+        return viewDirection;
+    }
+
+    public void setViewDirection(Vector direction) {
+        this.viewDirection = direction;
+    }
+
+    public void requestFullPlan() {
+        this.fullPlanNeeded = true;
+    }
+
+    /**
+     * Gets and clears whether the next view plan has to be a full one.
+     */
+    public boolean takeFullPlanNeeded() {
+        boolean needed = fullPlanNeeded;
+        fullPlanNeeded = false;
+        return needed;
+    }
+
     // --- Packet Management ---
 
     public Queue<Object> getPendingPackets() {
         return pendingPackets;
     }
 
+    /**
+     * Queues the light packet of a chunk sent without light, replacing any
+     * light still pending for an older packet of the same chunk.
+     */
+    public void queueLightPacket(long chunkKey, Object lightPacket) {
+        synchronized (pendingLightPackets) {
+            pendingLightPackets.remove(chunkKey);
+            pendingLightPackets.put(chunkKey, lightPacket);
+        }
+    }
+
+    /**
+     * Removes and returns the oldest pending light packet, or null if none.
+     */
+    public Object pollLightPacket() {
+        synchronized (pendingLightPackets) {
+            Iterator<Object> iterator = pendingLightPackets.values().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Object packet = iterator.next();
+            iterator.remove();
+            return packet;
+        }
+    }
+
+    /**
+     * Drops the pending light of chunks the client no longer holds as fake
+     * chunks.
+     */
+    public void dropLightPackets(Collection<Long> chunkKeys) {
+        synchronized (pendingLightPackets) {
+            pendingLightPackets.keySet().removeAll(chunkKeys);
+        }
+    }
+
+    public boolean hasPendingLightPackets() {
+        synchronized (pendingLightPackets) {
+            return !pendingLightPackets.isEmpty();
+        }
+    }
+
     // --- Bandwidth Tracking ---
 
     public long getBytesThisTick() {
@@ -250,6 +469,7 @@ public class PlayerChunkState {
         this.warmupStartTime = System.currentTimeMillis();
         this.inWarmup = true;
         this.chunkQueue.clear();
+        this.fullPlanNeeded = true;
     }
 
     /**
@@ -305,8 +525,21 @@ public class PlayerChunkState {
     public void clear() {
         fakeChunks.clear();
         chunkQueue.clear();
+        coarseChunks.clear();
+        occludedChunks.clear();
+        retainedChunks.clear();
+        unloadQueue.clear();
+        skylineChunks.clear();
+        skylineCheckPosition = Long.MIN_VALUE;
+        occlusionResults.clear();
+        occlusionBucket = Long.MIN_VALUE;
+        occlusionRecheck = false;
         pendingPackets.clear();
+        synchronized (pendingLightPackets) {
+            pendingLightPackets.clear();
+        }
         lastChunkPosition = 0;
+        fullPlanNeeded = false;
         bytesThisTick = 0;
         bytesThisSecond = 0;
         actualBytesSent = 0;
@@ -34,6 +34,14 @@ public class PlayerStateManager {
      */
     private final Map<UUID, PlayerChunkState> playerStates = new ConcurrentHashMap<>();
 
+    /**
+     * Chunks the plugin is unloading itself, per player; their unload packets
+     * must not be cancelled by the packet interceptor. Kept apart from the
+     * chunk states because the packets are still in flight when a state is
+     * removed and a new one created.
+     */
+    private final Map<UUID, Set<Long>> releasedChunks = new ConcurrentHashMap<>();
+
     @Inject
     public PlayerStateManager() {
     }
@@ -128,6 +136,29 @@ public class PlayerStateManager {
         return state;
     }
 
+    /**
+     * Marks a chunk the plugin is about to unload on the player's client.
+     */
+    public void markReleased(UUID playerId, long chunkKey) {
+        releasedChunks.computeIfAbsent(playerId, id -> ConcurrentHashMap.newKeySet()).add(chunkKey);
+    }
+
+    /**
+     * Checks whether an unload packet was sent by the plugin itself, and
+     * forgets the mark if so.
+     */
+    public boolean consumeReleased(UUID playerId, long chunkKey) {
+        Set<Long> chunks = releasedChunks.get(playerId);
+        return chunks != null && chunks.remove(chunkKey);
+    }
+
+    /**
+     * Forgets the released chunks of a player who left.
+     */
+    public void forgetReleased(UUID playerId) {
+        releasedChunks.remove(playerId);
+    }
+
     /**
      * Clears all player states.
      * Should be called on plugin disable.
@@ -136,6 +167,7 @@ public class PlayerStateManager {
         logger.info("[PlayerStateManager] Clearing {} player states", playerStates.size());
         playerStates.values().forEach(PlayerChunkState::clear);
         playerStates.clear();
+        releasedChunks.clear();
     }
 
     // === Warmup Management ===
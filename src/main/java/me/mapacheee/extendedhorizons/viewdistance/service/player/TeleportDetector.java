@@ -3,7 +3,6 @@ package me.mapacheee.extendedhorizons.viewdistance.service.player;
 import com.google.inject.Inject;
 import com.thewinterframework.service.annotation.Service;
 import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
-import org.bukkit.entity.Player;
 
 /**
  * Detects if a player has moved significantly (teleported) requiring a reset of
@@ -20,16 +19,20 @@ public class TeleportDetector {
 
     /**
      * Checks if the player has moved significantly since the last check.
-     * Updates the last known chunk position in the state.
+     * Updates the last known chunk position in the state. The position is
+     * the center chunk cached on the state, as this runs off the player's
+     * region thread.
      * 
-     * @param player The player to check
-     * @param state  The player's chunk state
+     * @param state The player's chunk state
      * @return true if significant movement (teleport) was detected
      */
-    public boolean hasMovedSignificantly(Player player, PlayerChunkState state) {
-        int playerChunkX = player.getLocation().getBlockX() >> 4;
-        int playerChunkZ = player.getLocation().getBlockZ() >> 4;
-        long currentChunkPos = ChunkUtils.packChunkKey(playerChunkX, playerChunkZ);
+    public boolean hasMovedSignificantly(PlayerChunkState state) {
+        long currentChunkPos = state.getCenterChunk();
+        if (currentChunkPos == Long.MIN_VALUE) {
+            return false;
+        }
+        int playerChunkX = ChunkUtils.unpackX(currentChunkPos);
+        int playerChunkZ = ChunkUtils.unpackZ(currentChunkPos);
 
         long lastPos = state.getLastChunkPosition();
         boolean isTeleport = false;
@@ -29,6 +29,21 @@ public class WarmupManager {
         state.setWarmupStartTime(System.currentTimeMillis());
         state.setInWarmup(true);
         state.getChunkQueue().clear(); // Clear old chunks as they might be irrelevant
+        state.requestFullPlan();
+    }
+
+    /**
+     * Ends the warmup period of the given player state right away, e.g. when
+     * the player arrives at a destination that was already prefetched.
+     *
+     * @param state The player's chunk state
+     * @return true if a warmup was still active
+     */
+    public boolean endWarmup(PlayerChunkState state) {
+        boolean wasActive = isWarmupActive(state);
+        state.setWarmupStartTime(0);
+        state.setInWarmup(false);
+        return wasActive;
     }
 
     /**
@@ -0,0 +1,193 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.snapshot;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.shared.config.MainConfig;
+import me.mapacheee.extendedhorizons.shared.service.ConfigService;
+import me.mapacheee.extendedhorizons.shared.utils.ChunkUtils;
+import me.mapacheee.extendedhorizons.viewdistance.service.encoding.LodTier;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import me.mapacheee.extendedhorizons.viewdistance.service.player.PlayerChunkState;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds approximate snapshots of horizon chunks that were never generated.
+ *
+ * Instead of generating and saving a real chunk, the world generator only
+ * runs up to the surface step on a throwaway proto-chunk. The horizon of
+ * unexplored land shows its terrain shape and surface blocks at a fraction of
+ * the cost, and the world on disk does not grow.
+ *
+ * The farthest band can use skyline impostors instead, built from a handful
+ * of generator height samples. Impostors are per player and never cached;
+ * they are swapped for the real chunk once the player comes closer.
+ */
+@Service
+public class ApproximateChunkService {
+
+    private static final int DEFAULT_SKYLINE_SAMPLES = 4;
+
+    private final ConfigService configService;
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final AtomicLong generated = new AtomicLong(0);
+    private final AtomicLong unsupported = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong generationNanos = new AtomicLong(0);
+    private final AtomicLong skylines = new AtomicLong(0);
+    private final AtomicLong skylineNanos = new AtomicLong(0);
+    private final AtomicLong skylineReplaced = new AtomicLong(0);
+
+    @Inject
+    public ApproximateChunkService(ConfigService configService, NMSChunkAccess nmsChunkAccess) {
+        this.configService = configService;
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    /**
+     * Checks whether a missing chunk sent with the given tier should be
+     * approximated instead of generated.
+     */
+    public boolean appliesTo(LodTier tier) {
+        MainConfig.PerformanceConfig.FakeChunksConfig.ApproximateGenerationConfig config = getConfig();
+        return config != null && config.enabled() && tier.ordinal() >= parseTier(config.fromTier()).ordinal();
+    }
+
+    /**
+     * Generates an approximate snapshot on the calling thread.
+     *
+     * @return The snapshot, or null if the world cannot be approximated
+     */
+    public Object generate(World world, int chunkX, int chunkZ) {
+        long start = System.nanoTime();
+        try {
+            Object snapshot = nmsChunkAccess.generateApproximateChunk(world, chunkX, chunkZ);
+            if (snapshot == null) {
+                unsupported.incrementAndGet();
+                return null;
+            }
+            generationNanos.addAndGet(System.nanoTime() - start);
+            generated.incrementAndGet();
+            return snapshot;
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a missing chunk is far enough from the player to be sent
+     * as a skyline impostor. Measured from the player's cached center chunk,
+     * as loads complete off the player's region thread.
+     */
+    public boolean isSkyline(PlayerChunkState state, int chunkX, int chunkZ) {
+        int distance = getSkylineDistance();
+        long center = state.getCenterChunk();
+        if (distance <= 0 || center == Long.MIN_VALUE) {
+            return false;
+        }
+
+        int dx = chunkX - ChunkUtils.unpackX(center);
+        int dz = chunkZ - ChunkUtils.unpackZ(center);
+        return dx * dx + dz * dz >= distance * distance;
+    }
+
+    /**
+     * Builds a skyline impostor on the calling thread.
+     *
+     * @return The snapshot, or null if the world cannot be approximated
+     */
+    public Object generateSkyline(World world, int chunkX, int chunkZ) {
+        MainConfig.PerformanceConfig.FakeChunksConfig.ApproximateGenerationConfig config = getConfig();
+        int samples = config != null && config.skylineSamples() > 0 ? config.skylineSamples()
+                : DEFAULT_SKYLINE_SAMPLES;
+
+        long start = System.nanoTime();
+        Object snapshot = nmsChunkAccess.generateSkylineChunk(world, chunkX, chunkZ, samples);
+        if (snapshot == null) {
+            unsupported.incrementAndGet();
+            return null;
+        }
+        skylineNanos.addAndGet(System.nanoTime() - start);
+        skylines.incrementAndGet();
+        return snapshot;
+    }
+
+    /**
+     * Picks the player's skyline impostors that are now closer than the
+     * skyline distance and removes them from the player's skyline set. Only
+     * checked after the player entered another chunk.
+     *
+     * @return Chunks to send again as real chunks
+     */
+    public List<Long> approaching(PlayerChunkState state) {
+        long position = state.getCenterChunk();
+        if (state.getSkylineChunks().isEmpty() || position == Long.MIN_VALUE) {
+            return List.of();
+        }
+
+        if (state.getSkylineCheckPosition() == position) {
+            return List.of();
+        }
+        state.setSkylineCheckPosition(position);
+        int playerChunkX = ChunkUtils.unpackX(position);
+        int playerChunkZ = ChunkUtils.unpackZ(position);
+
+        int distance = getSkylineDistance();
+        long distanceSquared = (long) distance * distance;
+        List<Long> replaced = new ArrayList<>();
+        Iterator<Long> iterator = state.getSkylineChunks().iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next();
+            long dx = ChunkUtils.unpackX(key) - playerChunkX;
+            long dz = ChunkUtils.unpackZ(key) - playerChunkZ;
+            if (distance <= 0 || dx * dx + dz * dz < distanceSquared) {
+                iterator.remove();
+                replaced.add(key);
+            }
+        }
+        skylineReplaced.addAndGet(replaced.size());
+        return replaced;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long count = generated.get();
+        stats.put("generated", count);
+        stats.put("unsupported", unsupported.get());
+        stats.put("failed", failed.get());
+        stats.put("avg_micros", count > 0 ? generationNanos.get() / count / 1000 : 0);
+        long skylineCount = skylines.get();
+        stats.put("skylines", skylineCount);
+        stats.put("skyline_avg_micros", skylineCount > 0 ? skylineNanos.get() / skylineCount / 1000 : 0);
+        stats.put("skyline_replaced", skylineReplaced.get());
+        return stats;
+    }
+
+    private int getSkylineDistance() {
+        MainConfig.PerformanceConfig.FakeChunksConfig.ApproximateGenerationConfig config = getConfig();
+        return config != null && config.enabled() ? config.skylineFromDistance() : 0;
+    }
+
+    private MainConfig.PerformanceConfig.FakeChunksConfig.ApproximateGenerationConfig getConfig() {
+        return configService.get().performance().fakeChunks().approximateGeneration();
+    }
+
+    private static LodTier parseTier(String value) {
+        if (value != null) {
+            for (LodTier tier : LodTier.values()) {
+                if (tier.name().equalsIgnoreCase(value.trim())) {
+                    return tier;
+                }
+            }
+        }
+        return LodTier.FULL;
+    }
+}
@@ -0,0 +1,87 @@
+package me.mapacheee.extendedhorizons.viewdistance.service.snapshot;
+
+import com.google.inject.Inject;
+import com.thewinterframework.service.annotation.Service;
+import me.mapacheee.extendedhorizons.ExtendedHorizonsPlugin;
+import me.mapacheee.extendedhorizons.viewdistance.service.nms.NMSChunkAccess;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captures chunk snapshots on the thread that owns the chunk.
+ *
+ * Live chunks may be mutated by the server at any time, so encoding them
+ * from the chunk processor threads can read torn data. A snapshot copies the
+ * chunk once on its region thread; obfuscation and encoding then work on the
+ * copy without any further coordination.
+ */
+@Service
+public class ChunkSnapshotService {
+
+    private final NMSChunkAccess nmsChunkAccess;
+
+    private final AtomicLong captured = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong captureNanos = new AtomicLong(0);
+
+    @Inject
+    public ChunkSnapshotService(NMSChunkAccess nmsChunkAccess) {
+        this.nmsChunkAccess = nmsChunkAccess;
+    }
+
+    /**
+     * Snapshots a loaded chunk on its owning thread.
+     *
+     * @param world    The world containing the chunk
+     * @param chunkX   Chunk X coordinate
+     * @param chunkZ   Chunk Z coordinate
+     * @param nmsChunk The live NMS chunk
+     * @return Future completed with the snapshot once it was taken
+     */
+    public CompletableFuture<Object> capture(World world, int chunkX, int chunkZ, Object nmsChunk) {
+        if (Bukkit.isOwnedByCurrentRegion(world, chunkX, chunkZ)) {
+            try {
+                return CompletableFuture.completedFuture(captureNow(nmsChunk));
+            } catch (Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        Bukkit.getRegionScheduler().execute(ExtendedHorizonsPlugin.getInstance(), world, chunkX, chunkZ, () -> {
+            try {
+                future.complete(captureNow(nmsChunk));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private Object captureNow(Object nmsChunk) {
+        long start = System.nanoTime();
+        Object snapshot = nmsChunkAccess.snapshotChunk(nmsChunk);
+        captureNanos.addAndGet(System.nanoTime() - start);
+
+        if (snapshot == null) {
+            failed.incrementAndGet();
+            throw new IllegalStateException("Unsupported chunk type: " + nmsChunk);
+        }
+        captured.incrementAndGet();
+        return snapshot;
+    }
+
+    public Map<String, Long> getStats() {
+        long count = captured.get();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("captured", count);
+        stats.put("failed", failed.get());
+        stats.put("average_capture_us", count == 0 ? 0L : captureNanos.get() / count / 1000);
+        return stats;
+    }
+}
@@ -49,7 +49,7 @@ public class ProgressiveChunkLoadStrategy implements ChunkLoadStrategy {
 
     @Override
     public void onPlayerUpdate(Player player, PlayerChunkState state) {
-        boolean isTeleport = teleportDetector.hasMovedSignificantly(player, state);
+        boolean isTeleport = teleportDetector.hasMovedSignificantly(state);
 
         if (isTeleport) {
             warmupManager.startWarmup(state);
@@ -66,8 +66,9 @@ public class ProgressiveChunkLoadStrategy implements ChunkLoadStrategy {
 
     @Override
     public void processWarmup(Player player, PlayerChunkState state, Set<Long> allVisibleChunks) {
-        int playerChunkX = player.getLocation().getBlockX() >> 4;
-        int playerChunkZ = player.getLocation().getBlockZ() >> 4;
+        long center = state.getCenterChunk();
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
 
         List<Long> sortedKeys = new ArrayList<>(allVisibleChunks);
         sortedKeys.sort((key1, key2) -> compareDistance(key1, key2, playerChunkX, playerChunkZ));
@@ -92,8 +93,9 @@ public class ProgressiveChunkLoadStrategy implements ChunkLoadStrategy {
             return;
         }
 
-        int playerChunkX = player.getLocation().getBlockX() >> 4;
-        int playerChunkZ = player.getLocation().getBlockZ() >> 4;
+        long center = state.getCenterChunk();
+        int playerChunkX = ChunkUtils.unpackX(center);
+        int playerChunkZ = ChunkUtils.unpackZ(center);
 
         newChunksToLoad.sort((key1, key2) -> compareDistance(key1, key2, playerChunkX, playerChunkZ));
 
@@ -106,6 +108,7 @@ public class ProgressiveChunkLoadStrategy implements ChunkLoadStrategy {
                             player.getName(), queue.size());
                 }
                 queue.clear();
+                state.requestFullPlan();
 
                 globalGeneratingSet.removeIf(key -> {
                     int chunkX = ChunkUtils.unpackX(key);